@@ -0,0 +1,100 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.Builder;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the per-request header handling of the proxy servlet in isolation. */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class HeaderBenchmark {
+  private static final String PATH_INFO = "/api/v1/checking/checks";
+
+  @Param({"8", "32"})
+  public int headerCount;
+
+  private AcrolinxProxyHttpServlet acrolinxProxyHttpServlet;
+  private String cookieHeaderValue;
+  private HttpServletRequest httpServletRequest;
+  private HttpServletResponse httpServletResponse;
+  private HttpHeaders responseHeaders;
+
+  @Benchmark
+  public Builder copyHeaders() {
+    Builder httpRequestBuilder = HttpRequest.newBuilder();
+    AcrolinxProxyHttpServlet.copyHeaders(httpServletRequest, httpRequestBuilder);
+    return httpRequestBuilder;
+  }
+
+  @Benchmark
+  public String filterCookies() {
+    return AcrolinxProxyHttpServlet.filterCookies(cookieHeaderValue);
+  }
+
+  @Benchmark
+  public URI getTargetUri() {
+    return acrolinxProxyHttpServlet.getTargetUri(httpServletRequest);
+  }
+
+  @Setup
+  public void setUp() throws ServletException {
+    acrolinxProxyHttpServlet = new AcrolinxProxyHttpServlet();
+    acrolinxProxyHttpServlet.init(
+        ServletStubs.createServletConfig(
+            Map.of(
+                "acrolinxUrl", "http://localhost:8031",
+                "username", "benchmark",
+                "genericToken", "secret")));
+
+    Map<String, String> requestHeaders = ServletStubs.createRequestHeaders(headerCount);
+    cookieHeaderValue = requestHeaders.get("Cookie");
+    httpServletRequest =
+        ServletStubs.createHttpServletRequest("GET", PATH_INFO, requestHeaders, new byte[0], null);
+    httpServletResponse = ServletStubs.createHttpServletResponse(statusCode -> {});
+
+    Map<String, List<String>> responseHeaderMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    responseHeaderMap.put("Content-Length", List.of("1024"));
+    responseHeaderMap.put("Content-Type", List.of("application/json"));
+
+    for (int i = 2; i < headerCount; i++) {
+      responseHeaderMap.put("X-Benchmark-Header-" + i, List.of("0123456789abcdef"));
+    }
+
+    responseHeaders = HttpHeaders.of(responseHeaderMap, (headerName, headerValue) -> true);
+  }
+
+  @TearDown
+  public void tearDown() {
+    acrolinxProxyHttpServlet.destroy();
+  }
+
+  @Benchmark
+  public void transferResponseHeaders() {
+    AcrolinxProxyHttpServlet.transferResponseHeaders(httpServletResponse, responseHeaders);
+  }
+}
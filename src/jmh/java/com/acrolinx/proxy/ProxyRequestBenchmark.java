@@ -0,0 +1,142 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures complete proxied exchanges against an in-process back-end. Each invocation proxies
+ * {@code concurrency} requests in parallel, the way that many container threads would, so the score
+ * counts batches rather than single requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+public class ProxyRequestBenchmark {
+  private static final String PATH_INFO = "/api/v1/checking/checks";
+  private static final long TIMEOUT_SECONDS = 30;
+
+  @Param({"1024", "1048576"})
+  public int bodySize;
+
+  @Param({"1", "16"})
+  public int concurrency;
+
+  @Param({"SYNC", "ASYNC"})
+  public String executionMode;
+
+  @Param({"8", "32"})
+  public int headerCount;
+
+  @Param({"GET", "POST"})
+  public String httpMethod;
+
+  private AcrolinxProxyHttpServlet acrolinxProxyHttpServlet;
+  private ExecutorService executorService;
+  private byte[] requestBody;
+  private Map<String, String> requestHeaders;
+  private List<Callable<Void>> requests;
+  private StubUpstream stubUpstream;
+
+  @Benchmark
+  public void proxyRequest() throws Exception {
+    if (concurrency == 1) {
+      proxySingleRequest();
+      return;
+    }
+
+    for (Future<Void> future : executorService.invokeAll(requests)) {
+      future.get();
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException, ServletException {
+    byte[] body = new byte[bodySize];
+    Arrays.fill(body, (byte) 'a');
+    requestBody = "POST".equals(httpMethod) ? body : new byte[0];
+    requestHeaders = ServletStubs.createRequestHeaders(headerCount);
+    stubUpstream = StubUpstream.start(body);
+
+    acrolinxProxyHttpServlet = new AcrolinxProxyHttpServlet();
+    acrolinxProxyHttpServlet.init(
+        ServletStubs.createServletConfig(
+            Map.of(
+                "acrolinxUrl", stubUpstream.getUrl(),
+                "username", "benchmark",
+                "genericToken", "secret",
+                "executionMode", executionMode)));
+
+    executorService = Executors.newFixedThreadPool(concurrency);
+    requests = new ArrayList<>(concurrency);
+
+    for (int i = 0; i < concurrency; i++) {
+      requests.add(
+          () -> {
+            proxySingleRequest();
+            return null;
+          });
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    executorService.shutdownNow();
+    acrolinxProxyHttpServlet.destroy();
+    stubUpstream.close();
+  }
+
+  private void proxySingleRequest() throws Exception {
+    CountDownLatch asyncCompletion = new CountDownLatch(1);
+    AtomicInteger statusCode = new AtomicInteger();
+    HttpServletRequest httpServletRequest =
+        ServletStubs.createHttpServletRequest(
+            httpMethod, PATH_INFO, requestHeaders, requestBody, asyncCompletion::countDown);
+    HttpServletResponse httpServletResponse =
+        ServletStubs.createHttpServletResponse(statusCode::set);
+
+    if ("POST".equals(httpMethod)) {
+      acrolinxProxyHttpServlet.doPost(httpServletRequest, httpServletResponse);
+    } else {
+      acrolinxProxyHttpServlet.doGet(httpServletRequest, httpServletResponse);
+    }
+
+    if (httpServletRequest.isAsyncStarted()
+        && !asyncCompletion.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new TimeoutException("The proxied request did not complete");
+    }
+
+    if (statusCode.get() != HttpServletResponse.SC_OK) {
+      throw new IllegalStateException("Unexpected status code: " + statusCode.get());
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.IntConsumer;
+
+/**
+ * Minimal servlet objects for the benchmarks. Unlike Mockito mocks, they neither record
+ * invocations nor verify them, so they hardly add to the measured time and allocation rate.
+ */
+final class ServletStubs {
+  static final String PROXY_URL = "http://localhost:8080/" + AcrolinxProxyHttpServlet.PROXY_PATH;
+
+  static HttpServletRequest createHttpServletRequest(
+      String httpMethod,
+      String pathInfo,
+      Map<String, String> headers,
+      byte[] body,
+      Runnable asyncCompletionListener) {
+    AtomicBoolean asyncStarted = new AtomicBoolean();
+    AsyncContext asyncContext =
+        createStub(
+            AsyncContext.class,
+            (methodName, arguments) -> {
+              switch (methodName) {
+                case "addListener":
+                case "setTimeout":
+                  return null;
+                case "complete":
+                  asyncCompletionListener.run();
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(methodName);
+              }
+            });
+
+    return createStub(
+        HttpServletRequest.class,
+        (methodName, arguments) -> {
+          switch (methodName) {
+            case "getContentLengthLong":
+              return (long) body.length;
+            case "getHeader":
+              return headers.get((String) arguments[0]);
+            case "getHeaderNames":
+              return Collections.enumeration(headers.keySet());
+            case "getHeaders":
+              return headers.containsKey(arguments[0])
+                  ? Collections.enumeration(List.of(headers.get((String) arguments[0])))
+                  : Collections.emptyEnumeration();
+            case "getInputStream":
+              return createServletInputStream(body);
+            case "getMethod":
+              return httpMethod;
+            case "getPathInfo":
+              return pathInfo;
+            case "getQueryString":
+              return null;
+            case "getRequestURL":
+              return new StringBuffer(PROXY_URL).append(pathInfo);
+            case "isAsyncStarted":
+              return asyncStarted.get();
+            case "startAsync":
+              asyncStarted.set(true);
+              return asyncContext;
+            default:
+              throw new UnsupportedOperationException(methodName);
+          }
+        });
+  }
+
+  /**
+   * @param statusCodeConsumer receives the status code set by the servlet
+   */
+  static HttpServletResponse createHttpServletResponse(IntConsumer statusCodeConsumer) {
+    ServletOutputStream servletOutputStream = createServletOutputStream();
+
+    return createStub(
+        HttpServletResponse.class,
+        (methodName, arguments) -> {
+          switch (methodName) {
+            case "addHeader":
+            case "setContentLength":
+            case "setContentLengthLong":
+            case "setContentType":
+            case "setHeader":
+              return null;
+            case "getOutputStream":
+              return servletOutputStream;
+            case "isCommitted":
+              return false;
+            case "sendError":
+            case "setStatus":
+              statusCodeConsumer.accept((Integer) arguments[0]);
+              return null;
+            default:
+              throw new UnsupportedOperationException(methodName);
+          }
+        });
+  }
+
+  /**
+   * @return a cookie header and further headers, {@code headerCount} in total, whose names are
+   *     compared case-insensitively like those of a servlet container
+   */
+  static Map<String, String> createRequestHeaders(int headerCount) {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    StringBuilder cookieHeaderValue = new StringBuilder();
+
+    for (int i = 0; i < headerCount; i++) {
+      cookieHeaderValue.append(i == 0 ? "" : "; ");
+      cookieHeaderValue.append(i % 2 == 0 ? "X-Acrolinx-Cookie-" : "session-").append(i);
+      cookieHeaderValue.append("=0123456789abcdef");
+    }
+
+    headers.put("Cookie", cookieHeaderValue.toString());
+
+    for (int i = 1; i < headerCount; i++) {
+      headers.put("X-Benchmark-Header-" + i, "0123456789abcdef0123456789abcdef");
+    }
+
+    return headers;
+  }
+
+  static ServletConfig createServletConfig(Map<String, String> initParameters) {
+    return createStub(
+        ServletConfig.class,
+        (methodName, arguments) -> {
+          switch (methodName) {
+            case "getInitParameter":
+              return initParameters.get((String) arguments[0]);
+            case "getInitParameterNames":
+              return Collections.enumeration(initParameters.keySet());
+            case "getServletName":
+              return AcrolinxProxyHttpServlet.class.getSimpleName();
+            default:
+              throw new UnsupportedOperationException(methodName);
+          }
+        });
+  }
+
+  private static ServletInputStream createServletInputStream(byte[] body) {
+    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(body);
+
+    return new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return byteArrayInputStream.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public int read() {
+        return byteArrayInputStream.read();
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) {
+        return byteArrayInputStream.read(buffer, offset, length);
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        try {
+          readListener.onDataAvailable();
+        } catch (IOException e) {
+          readListener.onError(e);
+        }
+      }
+    };
+  }
+
+  private static ServletOutputStream createServletOutputStream() {
+    OutputStream outputStream = OutputStream.nullOutputStream();
+
+    return new ServletOutputStream() {
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        try {
+          writeListener.onWritePossible();
+        } catch (IOException e) {
+          writeListener.onError(e);
+        }
+      }
+
+      @Override
+      public void write(byte[] buffer, int offset, int length) throws IOException {
+        outputStream.write(buffer, offset, length);
+      }
+
+      @Override
+      public void write(int data) throws IOException {
+        outputStream.write(data);
+      }
+    };
+  }
+
+  private static <T> T createStub(
+      Class<T> stubType, BiFunction<String, Object[], Object> invocationHandler) {
+    return stubType.cast(
+        Proxy.newProxyInstance(
+            ServletStubs.class.getClassLoader(),
+            new Class<?>[] {stubType},
+            (proxy, method, arguments) -> {
+              switch (method.getName()) {
+                case "equals":
+                  return proxy == arguments[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "toString":
+                  return stubType.getSimpleName() + " stub";
+                default:
+                  return invocationHandler.apply(method.getName(), arguments);
+              }
+            }));
+  }
+
+  private ServletStubs() {
+    throw new IllegalStateException();
+  }
+}
@@ -0,0 +1,61 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-process Acrolinx back-end that answers every request with the same body. It runs on the
+ * HTTP server of the JDK, so the benchmarks measure the proxy rather than a mock server.
+ */
+final class StubUpstream implements AutoCloseable {
+  static StubUpstream start(byte[] responseBody) throws IOException {
+    // Otherwise delayed acknowledgements add about 40 ms to every small response
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer httpServer =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    httpServer.setExecutor(executorService);
+    httpServer.createContext("/", httpExchange -> respond(httpExchange, responseBody));
+    httpServer.start();
+    return new StubUpstream(httpServer, executorService);
+  }
+
+  private static void respond(HttpExchange httpExchange, byte[] responseBody) throws IOException {
+    try (InputStream inputStream = httpExchange.getRequestBody()) {
+      inputStream.transferTo(OutputStream.nullOutputStream());
+    }
+
+    httpExchange.getResponseHeaders().set("Content-Type", "application/json");
+    httpExchange.sendResponseHeaders(200, responseBody.length);
+
+    try (OutputStream outputStream = httpExchange.getResponseBody()) {
+      outputStream.write(responseBody);
+    }
+  }
+
+  private final ExecutorService executorService;
+  private final HttpServer httpServer;
+
+  private StubUpstream(HttpServer httpServer, ExecutorService executorService) {
+    this.httpServer = httpServer;
+    this.executorService = executorService;
+  }
+
+  @Override
+  public void close() {
+    httpServer.stop(0);
+    executorService.shutdownNow();
+  }
+
+  String getUrl() {
+    return "http://localhost:" + httpServer.getAddress().getPort();
+  }
+}
@@ -1,13 +1,17 @@
 /* Copyright (c) 2023 Acrolinx GmbH */
 package com.acrolinx.proxy;
 
+import com.acrolinx.proxy.HeaderClassifier.HeaderClass;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
 import java.net.URI;
@@ -18,22 +22,34 @@ import java.net.http.HttpClient.Version;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
-import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
 import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +62,29 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
   public static final String PROXY_PATH = "acrolinx-proxy-sample/proxy";
   public static final String PROXY_VERSION = "2";
   public static final String USER_AGENT = "Acrolinx Proxy";
+  static final String ACROLINX_COOKIE_NAME_PREFIX = "x-acrolinx-";
   private static final String ACROLINX_BASE_URL_HEADER = "X-Acrolinx-Base-Url";
-  private static final Set<String> DISALLOWED_HEADER_NAMES =
-      Set.of("connection", "content-length", "expect", "host", "upgrade");
+  private static final int END_OF_STREAM = -1;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final HeaderClassifier HEADER_CLASSIFIER =
+      new HeaderClassifier(
+          Map.ofEntries(
+              Map.entry("connection", HeaderClass.HOP_BY_HOP),
+              Map.entry("content-length", HeaderClass.CONTENT_LENGTH),
+              Map.entry("content-type", HeaderClass.CONTENT_TYPE),
+              Map.entry("cookie", HeaderClass.COOKIE),
+              Map.entry("expect", HeaderClass.CLIENT_MANAGED),
+              Map.entry("host", HeaderClass.CLIENT_MANAGED),
+              Map.entry("keep-alive", HeaderClass.HOP_BY_HOP),
+              Map.entry("proxy-authenticate", HeaderClass.HOP_BY_HOP),
+              Map.entry("proxy-authorization", HeaderClass.HOP_BY_HOP),
+              Map.entry("proxy-connection", HeaderClass.HOP_BY_HOP),
+              Map.entry("te", HeaderClass.HOP_BY_HOP),
+              Map.entry("trailer", HeaderClass.HOP_BY_HOP),
+              Map.entry("transfer-encoding", HeaderClass.HOP_BY_HOP),
+              Map.entry("upgrade", HeaderClass.HOP_BY_HOP)));
   private static final Logger LOGGER = LoggerFactory.getLogger(AcrolinxProxyHttpServlet.class);
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
   private static final long serialVersionUID = 1L;
 
   private static void addAcrolinxBaseUrlHeader(
@@ -64,68 +99,311 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     }
   }
 
-  private static void copyHeaders(
-      HttpServletRequest httpServletRequest, Builder httpRequestBuilder) {
+  /**
+   * Waits for the response headers like {@link HttpClient#send} does, and cancels the requests if
+   * the thread is interrupted.
+   */
+  private static <T> HttpResponse<T> awaitResponse(
+      CompletableFuture<HttpResponse<T>> responseFuture) throws IOException, InterruptedException {
+    try {
+      return responseFuture.get();
+    } catch (CancellationException e) {
+      throw new IOException("Request cancelled", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+
+      throw new IOException(cause);
+    } catch (InterruptedException e) {
+      responseFuture.cancel(true);
+      throw e;
+    }
+  }
+
+  /** Closes the response body from another thread, which wakes up a thread blocked in a read. */
+  static void closeUpstreamBody(InputStream upstreamBody) {
+    try {
+      upstreamBody.close();
+    } catch (IOException e) {
+      LOGGER.debug("Could not close response body", e);
+    }
+  }
+
+  /** Copies all values of the end-to-end headers of the client request. */
+  static void copyHeaders(HttpServletRequest httpServletRequest, Builder httpRequestBuilder) {
     Enumeration<String> headerNames = httpServletRequest.getHeaderNames();
+    Enumeration<String> connectionHeaderValues = httpServletRequest.getHeaders("Connection");
+    List<String> connectionOptions =
+        connectionHeaderValues == null || !connectionHeaderValues.hasMoreElements()
+            ? List.of()
+            : Collections.list(connectionHeaderValues);
 
     while (headerNames.hasMoreElements()) {
       String headerName = headerNames.nextElement();
-      String headerValue = httpServletRequest.getHeader(headerName);
+      HeaderClass headerClass = HEADER_CLASSIFIER.classify(headerName);
 
-      if (isHeaderNameDisallowed(headerName)) {
+      if (!headerClass.isForwardedToAcrolinx()
+          || HeaderClassifier.isListed(connectionOptions, headerName)) {
         continue;
       }
 
-      if (headerValue == null) {
-        headerValue = "";
+      Enumeration<String> headerValues = httpServletRequest.getHeaders(headerName);
+
+      if (headerValues == null) {
+        // The servlet container does not grant access to the individual values
+        copyHeaderValue(
+            httpRequestBuilder, headerName, headerClass, httpServletRequest.getHeader(headerName));
+        continue;
       }
 
-      if ("cookie".equalsIgnoreCase(headerName)) {
-        headerValue = filterCookies(headerValue);
+      while (headerValues.hasMoreElements()) {
+        copyHeaderValue(httpRequestBuilder, headerName, headerClass, headerValues.nextElement());
       }
+    }
+  }
+
+  private static void copyHeaderValue(
+      Builder httpRequestBuilder, String headerName, HeaderClass headerClass, String headerValue) {
+    if (headerValue == null) {
+      headerValue = "";
+    }
 
-      httpRequestBuilder.header(headerName, headerValue);
+    if (headerClass == HeaderClass.COOKIE) {
+      headerValue = filterCookies(headerValue);
+
+      if (headerValue.isEmpty()) {
+        return;
+      }
     }
+
+    httpRequestBuilder.header(headerName, headerValue);
   }
 
-  private static BodyPublisher createBodyPublisher(HttpServletRequest httpServletRequest) {
-    return BodyPublishers.ofInputStream(getInputStreamSupplier(httpServletRequest));
+  private static ThreadFactory createDaemonThreadFactory(String threadNamePrefix) {
+    AtomicInteger threadCounter = new AtomicInteger();
+
+    return runnable -> {
+      Thread thread = new Thread(runnable, threadNamePrefix + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
   }
 
-  private static HttpClient createHttpClient() {
-    return HttpClient.newBuilder()
-        .followRedirects(Redirect.NEVER)
-        .version(Version.HTTP_1_1)
-        .build();
+  /**
+   * With HTTP/2, the HttpClient negotiates the protocol via ALPN for HTTPS and via an h2c upgrade
+   * for plain HTTP. It falls back to HTTP/1.1 if the back-end does not accept HTTP/2.
+   */
+  private static HttpClient createHttpClient(
+      ExecutorService executorService, Version version, Duration connectTimeout) {
+    HttpClient.Builder httpClientBuilder =
+        HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(Redirect.NEVER)
+            .version(version);
+
+    if (executorService != null) {
+      httpClientBuilder.executor(executorService);
+    }
+
+    return httpClientBuilder.build();
+  }
+
+  private static ServletOutputStreamSubscriber createServletOutputStreamSubscriber(
+      HttpServletResponse httpServletResponse,
+      ResponseInfo responseInfo,
+      ResponseRecorder responseRecorder,
+      ExchangeTimer exchangeTimer) {
+    int status = responseInfo.statusCode();
+    LOGGER.debug("Response received: {} via {}", status, responseInfo.version());
+
+    httpServletResponse.setStatus(status);
+
+    transferResponseHeaders(httpServletResponse, responseInfo.headers());
+    transferEntityHeaders(httpServletResponse, responseInfo.headers());
+
+    try {
+      return new ServletOutputStreamSubscriber(
+          httpServletResponse.getOutputStream(), responseRecorder, exchangeTimer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
-  private static String filterCookies(String headerValue) {
-    return Arrays.stream(headerValue.split(";"))
-        .filter(
-            rawCookieNameAndValue -> rawCookieNameAndValue.toUpperCase().startsWith("X-ACROLINX-"))
-        .collect(Collectors.joining(";"));
+  /**
+   * Virtual threads are only available as of Java 21 while this servlet is built for Java 17, so
+   * the executor is looked up reflectively.
+   */
+  private static ExecutorService createVirtualThreadExecutorService() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(
+          "Execution mode " + ExecutionMode.VIRTUAL_THREAD + " requires Java 21 or later", e);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
-  private static Supplier<InputStream> getInputStreamSupplier(
-      HttpServletRequest httpServletRequest) {
-    return () -> {
-      try {
-        return httpServletRequest.getInputStream();
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+  /**
+   * Keeps the cookies of a {@code Cookie} header whose names start with {@code X-Acrolinx-},
+   * ignoring ASCII case. The header is scanned once, and a new string is only built if more than
+   * one cookie is kept.
+   *
+   * @return the kept cookies separated by {@code "; "}, or an empty string if there are none
+   */
+  static String filterCookies(String headerValue) {
+    StringBuilder stringBuilder = null;
+    int firstCookieStart = -1;
+    int firstCookieEnd = -1;
+    int index = 0;
+
+    while (index < headerValue.length()) {
+      int separatorIndex = headerValue.indexOf(';', index);
+      int cookieEnd = separatorIndex == -1 ? headerValue.length() : separatorIndex;
+      int cookieStart = index;
+
+      while (cookieStart < cookieEnd
+          && HeaderClassifier.isOptionalWhitespace(headerValue.charAt(cookieStart))) {
+        cookieStart++;
       }
-    };
+
+      while (cookieEnd > cookieStart
+          && HeaderClassifier.isOptionalWhitespace(headerValue.charAt(cookieEnd - 1))) {
+        cookieEnd--;
+      }
+
+      if (HeaderClassifier.regionMatchesIgnoreAsciiCase(
+          headerValue, cookieStart, ACROLINX_COOKIE_NAME_PREFIX)) {
+        if (firstCookieStart == -1) {
+          firstCookieStart = cookieStart;
+          firstCookieEnd = cookieEnd;
+        } else {
+          if (stringBuilder == null) {
+            stringBuilder = new StringBuilder(headerValue.length());
+            stringBuilder.append(headerValue, firstCookieStart, firstCookieEnd);
+          }
+
+          stringBuilder.append("; ").append(headerValue, cookieStart, cookieEnd);
+        }
+      }
+
+      index = separatorIndex == -1 ? headerValue.length() : separatorIndex + 1;
+    }
+
+    if (stringBuilder != null) {
+      return stringBuilder.toString();
+    }
+
+    return firstCookieStart == -1 ? "" : headerValue.substring(firstCookieStart, firstCookieEnd);
+  }
+
+  private static void handleAsynchronousFailure(
+      HttpServletResponse httpServletResponse, Throwable throwable) {
+    Throwable cause = throwable;
+
+    if (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+
+    if (cause instanceof UncheckedIOException) {
+      cause = cause.getCause();
+    }
+
+    if (httpServletResponse.isCommitted()) {
+      LOGGER.error("Aborted response to client", cause);
+      return;
+    }
+
+    try {
+      if (RequestBodyTooLargeException.isCausedBy(cause)) {
+        logRequestBodyTooLargeAndSendError(httpServletResponse, cause);
+      } else if (cause instanceof ConnectException || cause instanceof HttpTimeoutException) {
+        logExceptionAndSendError(httpServletResponse, cause, HttpURLConnection.HTTP_BAD_GATEWAY);
+      } else if (cause instanceof IOException) {
+        logExceptionAndSendError(httpServletResponse, cause, HttpURLConnection.HTTP_UNAVAILABLE);
+      } else {
+        logExceptionAndSendError(httpServletResponse, cause, HttpURLConnection.HTTP_INTERNAL_ERROR);
+      }
+    } catch (IOException e) {
+      LOGGER.error("Could not send error to client", e);
+    }
   }
 
-  private static boolean isHeaderNameDisallowed(String headerName) {
-    return DISALLOWED_HEADER_NAMES.contains(headerName.toLowerCase(Locale.ENGLISH));
+  /**
+   * @return {@code true} if the Acrolinx node could not be connected to or did not respond in time
+   */
+  static boolean isUpstreamFailure(Throwable throwable) {
+    Throwable cause =
+        throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable;
+    return cause instanceof ConnectException || cause instanceof HttpTimeoutException;
+  }
+
+  private static void logClientDisconnected(Throwable throwable) {
+    LOGGER.info(
+        "Cancelled request to Acrolinx since the client disconnected: {}", throwable.toString());
+    PROXY_METRICS.clientDisconnected();
   }
 
   private static void logExceptionAndSendError(
-      HttpServletResponse httpServletResponse, Exception exception, int statusCode)
+      HttpServletResponse httpServletResponse, Throwable throwable, int statusCode)
       throws IOException {
-    LOGGER.error("", exception);
-    httpServletResponse.sendError(statusCode, exception.toString());
+    LOGGER.error("", throwable);
+    PROXY_METRICS.errorSent(statusCode);
+    httpServletResponse.sendError(statusCode, throwable.toString());
+  }
+
+  private static void logRequestBodyTooLargeAndSendError(
+      HttpServletResponse httpServletResponse, Throwable throwable) throws IOException {
+    LOGGER.warn("Rejected request: {}", throwable.getMessage());
+    PROXY_METRICS.errorSent(HttpURLConnection.HTTP_ENTITY_TOO_LARGE);
+    httpServletResponse.sendError(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, throwable.getMessage());
+  }
+
+  private static void sendCircuitBreakerOpenError(
+      HttpServletResponse httpServletResponse, Upstream upstream) throws IOException {
+    LOGGER.warn("Rejected request since the circuit breaker of {} is open", upstream);
+    PROXY_METRICS.circuitBreakerRejected();
+    PROXY_METRICS.errorSent(HttpURLConnection.HTTP_UNAVAILABLE);
+    httpServletResponse.setHeader(
+        "Retry-After", Long.toString(upstream.getCircuitBreaker().getRetryAfterSeconds()));
+    httpServletResponse.sendError(
+        HttpURLConnection.HTTP_UNAVAILABLE, "Acrolinx node " + upstream + " is unavailable");
+  }
+
+  private static void sendDeadlineExceededError(HttpServletResponse httpServletResponse)
+      throws IOException {
+    LOGGER.warn("Rejected request since its deadline passed before it could be sent to Acrolinx");
+    // the same status as a deadline that passes while the request waits for Acrolinx
+    PROXY_METRICS.errorSent(HttpURLConnection.HTTP_BAD_GATEWAY);
+    httpServletResponse.sendError(HttpURLConnection.HTTP_BAD_GATEWAY, "Deadline exceeded");
+  }
+
+  private static void sendRequestShedError(HttpServletResponse httpServletResponse)
+      throws IOException {
+    LOGGER.warn("Rejected request since too many requests to Acrolinx are in flight");
+    PROXY_METRICS.errorSent(HttpURLConnection.HTTP_UNAVAILABLE);
+    httpServletResponse.setHeader("Retry-After", "1");
+    httpServletResponse.sendError(
+        HttpURLConnection.HTTP_UNAVAILABLE, "Too many requests to Acrolinx in flight");
+  }
+
+  private static void sendTooManyRequestsError(
+      HttpServletResponse httpServletResponse, long waitNanos) throws IOException {
+    PROXY_METRICS.errorSent(HTTP_TOO_MANY_REQUESTS);
+    httpServletResponse.setHeader(
+        "Retry-After",
+        Long.toString(Math.max(TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L), 1)));
+    httpServletResponse.sendError(HTTP_TOO_MANY_REQUESTS, "Rate limit exceeded");
   }
 
   private static void setRequestHeader(
@@ -133,40 +411,136 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     httpRequestBuilder.setHeader(headerName, headerValue);
   }
 
-  private static void transferResponseBodyWithAdditionalHeaders(
-      HttpServletResponse httpServletResponse, HttpResponse<InputStream> httpResponse)
-      throws IOException {
-    HttpHeaders httpHeaders = httpResponse.headers();
+  /**
+   * The HttpClient reads its connection pool settings from system properties once per JVM. An init
+   * parameter therefore only takes effect if the property is not set otherwise, for example on the
+   * command line, and if no HttpClient has been used in the JVM before.
+   */
+  private static void setHttpClientSystemProperty(String propertyName, String propertyValue) {
+    String currentValue = System.getProperty(propertyName);
+
+    if (currentValue == null) {
+      System.setProperty(propertyName, propertyValue);
+    } else if (!currentValue.equals(propertyValue)) {
+      LOGGER.warn(
+          "Ignoring {}={} since the JVM already uses {}",
+          propertyName,
+          propertyValue,
+          currentValue);
+    }
+  }
+
+  private static void skipBody(InputStream inputStream, byte[] buffer) throws IOException {
+    while (inputStream.read(buffer) != END_OF_STREAM) {
+      // discard the data
+    }
+  }
+
+  private static AsyncContext startAsync(
+      HttpServletRequest httpServletRequest, ClientConnection clientConnection) {
+    AsyncContext asyncContext = httpServletRequest.startAsync();
+    // The container reports failed writes to a disconnected client as an error of the request
+    asyncContext.addListener(clientConnection);
+    // The HttpClient enforces the timeout while waiting for the response headers
+    asyncContext.setTimeout(0);
+    return asyncContext;
+  }
+
+  private static long transferBody(
+      InputStream inputStream, OutputStream outputStream, byte[] buffer) throws IOException {
+    long numberOfTransferredBytes = 0;
+    int numberOfReadBytes;
+
+    while ((numberOfReadBytes = inputStream.read(buffer)) != END_OF_STREAM) {
+      outputStream.write(buffer, 0, numberOfReadBytes);
+      numberOfTransferredBytes += numberOfReadBytes;
+
+      // Pass on what has arrived so far instead of waiting until the buffer is full
+      if (inputStream.available() == 0) {
+        outputStream.flush();
+      }
+    }
+
+    // available() may not have dropped to zero before the end of the stream was read
+    outputStream.flush();
+    return numberOfTransferredBytes;
+  }
+
+  private static void transferEntityHeaders(
+      HttpServletResponse httpServletResponse, HttpHeaders httpHeaders) {
     Optional<String> contentTypeHeader = httpHeaders.firstValue("Content-Type");
 
     if (contentTypeHeader.isPresent()) {
       httpServletResponse.setContentType(contentTypeHeader.get());
     }
 
-    try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        OutputStream outputStream = httpServletResponse.getOutputStream(); ) {
-      long numberOfTransferredBytes = httpResponse.body().transferTo(byteArrayOutputStream);
-      httpServletResponse.setContentLength((int) numberOfTransferredBytes);
+    // Without a Content-Length header, the servlet container uses chunked transfer encoding
+    OptionalLong contentLengthHeader = httpHeaders.firstValueAsLong("Content-Length");
 
-      // all response headers must be set before writing to the OutputStream
-      outputStream.write(byteArrayOutputStream.toByteArray());
+    if (contentLengthHeader.isPresent()) {
+      httpServletResponse.setContentLengthLong(contentLengthHeader.getAsLong());
     }
+  }
+
+  /**
+   * @param clientConnection is told when writing to the client fails, or {@code null} if the body
+   *     is written from memory
+   */
+  private static void transferResponseBodyWithAdditionalHeaders(
+      HttpServletResponse httpServletResponse,
+      InputStream body,
+      ContentTranscoding contentTranscoding,
+      ClientConnection clientConnection,
+      BufferPool bufferPool,
+      int transferBufferSize)
+      throws IOException {
+    transferEntityHeaders(httpServletResponse, contentTranscoding.getHeaders());
+    byte[] buffer = bufferPool.acquire(transferBufferSize);
 
-    LOGGER.debug("Forwarded response to client");
+    // all response headers must be set before writing to the OutputStream
+    try (body;
+        InputStream inputStream = contentTranscoding.decode(body);
+        OutputStream outputStream =
+            contentTranscoding.encode(
+                clientConnection == null
+                    ? httpServletResponse.getOutputStream()
+                    : clientConnection.watch(httpServletResponse.getOutputStream()))) {
+      long numberOfTransferredBytes = transferBody(inputStream, outputStream, buffer);
+      // A decoder may stop before the end of the encoded body, which a recorder still needs
+      skipBody(body, buffer);
+      PROXY_METRICS.responseBodyWritten(numberOfTransferredBytes);
+      LOGGER.debug("Forwarded response to client: {} bytes", numberOfTransferredBytes);
+    } finally {
+      bufferPool.release(buffer);
+    }
   }
 
-  private static void transferResponseHeaders(
+  /**
+   * Copies all values of the end-to-end headers of the back-end response. The Content-Length and
+   * Content-Type headers are copied via the corresponding setter methods. Hop-by-hop headers such
+   * as Transfer-Encoding only apply to the connection to the back-end and are filtered out, while
+   * the servlet container frames the body on its own.
+   */
+  static void transferResponseHeaders(
       HttpServletResponse httpServletResponse, HttpHeaders httpHeaders) {
+    List<String> connectionOptions = httpHeaders.allValues("Connection");
+
     for (Map.Entry<String, List<String>> header : httpHeaders.map().entrySet()) {
-      /* The Content-Length and Content-Type headers are copied via the corresponding setter
-      methods. The Transfer-Encoding header is filtered out since the HttpClient automatically decompresses the response body. */
       final String headerName = header.getKey();
-      final String headerValue = header.getValue().get(0);
 
-      if (!(headerName.equalsIgnoreCase("Content-Length")
-          || headerName.equalsIgnoreCase("Content-Type")
-          || headerName.equalsIgnoreCase("Transfer-Encoding"))) {
-        httpServletResponse.setHeader(headerName, headerValue);
+      if (!HEADER_CLASSIFIER.classify(headerName).isForwardedToClient()
+          || HeaderClassifier.isListed(connectionOptions, headerName)) {
+        continue;
+      }
+
+      final List<String> headerValues = header.getValue();
+
+      for (int i = 0; i < headerValues.size(); i++) {
+        if (i == 0) {
+          httpServletResponse.setHeader(headerName, headerValues.get(i));
+        } else {
+          httpServletResponse.addHeader(headerName, headerValues.get(i));
+        }
       }
     }
   }
@@ -175,14 +549,71 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     return URLEncoder.encode(string, StandardCharsets.UTF_8);
   }
 
+  private int acrolinxPathLength;
   private String acrolinxUrl;
+  private BufferPool bufferPool;
+  private ConcurrencyLimiter concurrencyLimiter;
+  private final List<ConnectionWarmer> connectionWarmers = new ArrayList<>();
+  private String deadlineHeader;
+  private ExecutorService executorService;
+  private ExecutionMode executionMode;
   private String genericToken;
-  private final HttpClient httpClient;
+  private HttpClient httpClient;
+  private LoadBalancer loadBalancer;
+  private long maxRequestBodySize;
+  private RequestCoalescer requestCoalescer;
+  private RateLimiter rateLimiter;
+  private ResponseCache responseCache;
+  private ResponseCompressor responseCompressor;
+  private RetryPolicy retryPolicy;
+  private ScheduledExecutorService scheduledExecutorService;
   private Duration timeoutDuration;
+  private List<TimeoutPolicy> timeoutPolicies;
+  private int transferBufferSize;
+  private UpstreamHealthChecker upstreamHealthChecker;
+  private final UpstreamRequests.Listener upstreamRequestListener = new UpstreamRequestListener();
+  private final UpstreamStatistics upstreamStatistics = new UpstreamStatistics();
   private String username;
 
-  public AcrolinxProxyHttpServlet() {
-    httpClient = createHttpClient();
+  @Override
+  public void destroy() {
+    for (ConnectionWarmer connectionWarmer : connectionWarmers) {
+      connectionWarmer.close();
+    }
+
+    if (upstreamHealthChecker != null) {
+      upstreamHealthChecker.close();
+    }
+
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.close();
+    }
+
+    if (rateLimiter != null) {
+      rateLimiter.close();
+    }
+
+    if (scheduledExecutorService != null) {
+      scheduledExecutorService.shutdownNow();
+    }
+
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+
+    if (bufferPool != null) {
+      bufferPool.close();
+    }
+
+    LOGGER.info("{}", upstreamStatistics);
+
+    if (responseCache != null) {
+      LOGGER.info("{}", responseCache);
+    }
+
+    if (requestCoalescer != null) {
+      LOGGER.info("{}", requestCoalescer);
+    }
   }
 
   @Override
@@ -203,26 +634,139 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
   @Override
   public void doPost(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
       throws IOException {
-    final Builder httpRequestBuilder =
-        HttpRequest.newBuilder().POST(createBodyPublisher(httpServletRequest));
-    proxyRequest(httpServletRequest, httpServletResponse, httpRequestBuilder);
+    proxyRequestWithBody(httpServletRequest, httpServletResponse, "POST");
   }
 
   @Override
   public void doPut(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
       throws IOException {
-    final Builder httpRequestBuilder =
-        HttpRequest.newBuilder().PUT(createBodyPublisher(httpServletRequest));
-    proxyRequest(httpServletRequest, httpServletResponse, httpRequestBuilder);
+    proxyRequestWithBody(httpServletRequest, httpServletResponse, "PUT");
   }
 
   @Override
   public void init() {
     // Properties can be configured by init parameters in the web.xml.
-    acrolinxUrl = getInitParameterOrThrowException("acrolinxUrl").replaceAll("/$", "");
+    List<Upstream> upstreams = new ArrayList<>();
+
+    for (String url : getInitParameterOrThrowException("acrolinxUrl").split(",")) {
+      if (!url.isBlank()) {
+        upstreams.add(createUpstream(url.strip().replaceAll("/$", "")));
+      }
+    }
+
+    // requests are built against the first node and rewritten for the node they are sent to
+    acrolinxUrl = upstreams.get(0).getUrl();
+    acrolinxPathLength = URI.create(acrolinxUrl).getRawPath().length();
+    loadBalancer =
+        new LoadBalancer(
+            upstreams,
+            LoadBalancingStrategy.valueOf(
+                getInitParameterOrDefaultValue("loadBalancingStrategy", "ROUND_ROBIN")
+                    .toUpperCase(Locale.ENGLISH)),
+            getInitParameter("affinityCookie"),
+            Boolean.parseBoolean(getInitParameterOrDefaultValue("affinityByPathId", "false")));
     genericToken = getInitParameterOrThrowException("genericToken");
     username = getInitParameterOrThrowException("username");
     timeoutDuration = Duration.parse(getInitParameterOrDefaultValue("timeoutDuration", "PT1M"));
+    timeoutPolicies = createTimeoutPolicies(getInitParameter("timeoutPolicies"));
+    deadlineHeader = getInitParameterOrDefaultValue("deadlineHeader", "X-Request-Timeout-Ms");
+
+    if (deadlineHeader.isBlank()) {
+      deadlineHeader = null;
+    }
+
+    retryPolicy = createRetryPolicy();
+    transferBufferSize =
+        Integer.parseInt(getInitParameterOrDefaultValue("transferBufferSize", "8192"));
+    maxRequestBodySize = Long.parseLong(getInitParameterOrDefaultValue("maxRequestBodySize", "-1"));
+    bufferPool =
+        new BufferPool(
+            Integer.parseInt(getInitParameterOrDefaultValue("bufferPoolSize", "256")),
+            Boolean.parseBoolean(getInitParameterOrDefaultValue("bufferLeakDetection", "false")));
+    executionMode =
+        ExecutionMode.valueOf(
+            getInitParameterOrDefaultValue("executionMode", "SYNC").toUpperCase(Locale.ENGLISH));
+
+    if (executionMode == ExecutionMode.ASYNC) {
+      // A small fixed pool suffices since no thread ever blocks on the network in this mode
+      int asyncThreadPoolSize =
+          Integer.parseInt(
+              getInitParameterOrDefaultValue(
+                  "asyncThreadPoolSize",
+                  Integer.toString(Runtime.getRuntime().availableProcessors())));
+      executorService =
+          Executors.newFixedThreadPool(
+              asyncThreadPoolSize, createDaemonThreadFactory("acrolinx-proxy-async-"));
+    } else if (executionMode == ExecutionMode.VIRTUAL_THREAD) {
+      executorService = createVirtualThreadExecutorService();
+    }
+
+    Version httpVersion =
+        Version.valueOf(
+            getInitParameterOrDefaultValue("httpVersion", "HTTP_1_1").toUpperCase(Locale.ENGLISH));
+    configureConnectionPool();
+    httpClient =
+        createHttpClient(
+            executorService,
+            httpVersion,
+            Duration.parse(getInitParameterOrDefaultValue("connectTimeout", "PT10S")));
+
+    int concurrencyLimit =
+        Integer.parseInt(getInitParameterOrDefaultValue("concurrencyLimit", "0"));
+
+    String trafficClassNames = getInitParameter("trafficClasses");
+
+    if (concurrencyLimit > 0) {
+      concurrencyLimiter =
+          new ConcurrencyLimiter(
+              concurrencyLimit,
+              Integer.parseInt(getInitParameterOrDefaultValue("concurrencyMinLimit", "4")),
+              Integer.parseInt(getInitParameterOrDefaultValue("concurrencyMaxLimit", "1000")),
+              createTrafficClasses(trafficClassNames),
+              Duration.parse(getInitParameterOrDefaultValue("admissionQueueTimeout", "PT1S")));
+    } else if (trafficClassNames != null) {
+      // only the budgets of the traffic classes limit the requests in flight
+      concurrencyLimiter =
+          new ConcurrencyLimiter(
+              Integer.MAX_VALUE,
+              Integer.MAX_VALUE,
+              Integer.MAX_VALUE,
+              createTrafficClasses(trafficClassNames),
+              Duration.parse(getInitParameterOrDefaultValue("admissionQueueTimeout", "PT1S")));
+    }
+
+    long cacheMaxSize = Long.parseLong(getInitParameterOrDefaultValue("cacheMaxSize", "0"));
+
+    if (cacheMaxSize > 0) {
+      responseCache =
+          new ResponseCache(
+              cacheMaxSize,
+              Integer.parseInt(getInitParameterOrDefaultValue("cacheMaxEntrySize", "1048576")));
+    }
+
+    if (Boolean.parseBoolean(getInitParameterOrDefaultValue("coalesceRequests", "false"))) {
+      requestCoalescer =
+          new RequestCoalescer(
+              Integer.parseInt(
+                  getInitParameterOrDefaultValue("coalescingMaxResponseSize", "1048576")));
+    }
+
+    if (Boolean.parseBoolean(getInitParameterOrDefaultValue("compressResponses", "false"))) {
+      responseCompressor =
+          new ResponseCompressor(
+              getInitParameterOrDefaultValue("contentCodings", "gzip, deflate"),
+              Integer.parseInt(getInitParameterOrDefaultValue("compressionLevel", "6")),
+              Integer.parseInt(getInitParameterOrDefaultValue("compressionMinSize", "1024")));
+    }
+
+    ScheduledThreadPoolExecutor scheduledThreadPoolExecutor =
+        new ScheduledThreadPoolExecutor(1, createDaemonThreadFactory("acrolinx-proxy-scheduler-"));
+    // Finished exchanges cancel their timers, which must not pile up until they would have fired
+    scheduledThreadPoolExecutor.setRemoveOnCancelPolicy(true);
+    scheduledExecutorService = scheduledThreadPoolExecutor;
+    startConnectionWarmer();
+    startUpstreamHealthChecker();
+    startRateLimiter();
   }
 
   private void addSingleSignOnHeaders(Builder httpRequestBuilder) {
@@ -230,6 +774,306 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     setRequestHeader(httpRequestBuilder, "password", urlEncode(genericToken));
   }
 
+  private void configureConnectionPool() {
+    String maxIdleConnections = getInitParameter("maxIdleConnections");
+
+    if (maxIdleConnections != null) {
+      setHttpClientSystemProperty("jdk.httpclient.connectionPoolSize", maxIdleConnections);
+    }
+
+    String keepAliveTimeout = getInitParameter("keepAliveTimeout");
+
+    if (keepAliveTimeout != null) {
+      setHttpClientSystemProperty(
+          "jdk.httpclient.keepalive.timeout",
+          Long.toString(Duration.parse(keepAliveTimeout).toSeconds()));
+    }
+
+    String http2IdleTimeout = getInitParameter("http2IdleTimeout");
+
+    if (http2IdleTimeout != null) {
+      setHttpClientSystemProperty(
+          "jdk.httpclient.keepalive.timeout.h2",
+          Long.toString(Duration.parse(http2IdleTimeout).toSeconds()));
+    }
+  }
+
+  /**
+   * @param contentLength the length of the body declared by the client, or {@code -1}, which the
+   *     HttpClient passes on instead of using chunked transfer encoding
+   */
+  private BodyPublisher createBodyPublisher(
+      HttpServletRequest httpServletRequest, long contentLength) {
+    if (executionMode == ExecutionMode.ASYNC) {
+      return new ServletInputStreamPublisher(
+          httpServletRequest, bufferPool, transferBufferSize, contentLength, maxRequestBodySize);
+    }
+
+    return new BlockingServletInputStreamPublisher(
+        httpServletRequest, bufferPool, transferBufferSize, contentLength, maxRequestBodySize);
+  }
+
+  /**
+   * @return a recorder if the response may be cached or is shared with identical requests, or
+   *     {@code null}
+   */
+  private ResponseRecorder createResponseRecorder(
+      HttpRequest httpRequest, int statusCode, HttpHeaders httpHeaders, boolean shared) {
+    int maxBodySize = shared ? requestCoalescer.getMaxResponseSize() : 0;
+
+    if (responseCache != null && responseCache.isStorable(httpRequest, statusCode, httpHeaders)) {
+      maxBodySize = Math.max(maxBodySize, responseCache.getMaxEntrySize());
+    }
+
+    long contentLength = httpHeaders.firstValueAsLong("Content-Length").orElse(0);
+
+    if (maxBodySize == 0 || contentLength > maxBodySize) {
+      return null;
+    }
+
+    return new ResponseRecorder(statusCode, httpHeaders, maxBodySize);
+  }
+
+  /**
+   * @return the policy for retrying and hedging GET requests, or {@code null} if they are neither
+   *     retried nor hedged
+   */
+  private RetryPolicy createRetryPolicy() {
+    int maxRetries = Integer.parseInt(getInitParameterOrDefaultValue("maxRetries", "0"));
+    double hedgePercentile =
+        Double.parseDouble(getInitParameterOrDefaultValue("hedgePercentile", "0"));
+
+    if (maxRetries <= 0 && hedgePercentile <= 0) {
+      return null;
+    }
+
+    return new RetryPolicy(
+        Math.max(maxRetries, 0),
+        Duration.parse(getInitParameterOrDefaultValue("retryBackoff", "PT0.05S")),
+        Duration.parse(getInitParameterOrDefaultValue("retryMaxBackoff", "PT1S")),
+        hedgePercentile,
+        new RetryBudget(
+            Double.parseDouble(getInitParameterOrDefaultValue("retryBudgetRatio", "0.1")),
+            Double.parseDouble(
+                getInitParameterOrDefaultValue("retryBudgetMinRetriesPerSecond", "10"))));
+  }
+
+  /**
+   * @param timeoutPolicyNames the comma-separated names of the timeout policies in the order in
+   *     which they are matched, or {@code null}
+   * @return the timeout policies followed by the default policy
+   */
+  private List<TimeoutPolicy> createTimeoutPolicies(String timeoutPolicyNames) {
+    String totalTimeout = getInitParameterOrDefaultValue("totalTimeout", "PT0S");
+    String idleTimeout = getInitParameterOrDefaultValue("idleTimeout", "PT0S");
+    TimeoutPolicy defaultTimeoutPolicy =
+        new TimeoutPolicy(
+            "default",
+            List.of(),
+            timeoutDuration,
+            TimeoutPolicy.toTimeoutNanos(Duration.parse(totalTimeout)),
+            TimeoutPolicy.toTimeoutNanos(Duration.parse(idleTimeout)));
+
+    if (timeoutPolicyNames == null) {
+      return List.of(defaultTimeoutPolicy);
+    }
+
+    List<TimeoutPolicy> timeoutPolicies = new ArrayList<>();
+
+    for (String name : timeoutPolicyNames.split(",")) {
+      String trimmedName = name.trim();
+      String parameterPrefix = "timeoutPolicy." + trimmedName + '.';
+      timeoutPolicies.add(
+          new TimeoutPolicy(
+              trimmedName,
+              PathPatterns.parse(
+                  getInitParameterOrDefaultValue(parameterPrefix + "pathPatterns", "")),
+              Duration.parse(
+                  getInitParameterOrDefaultValue(
+                      parameterPrefix + "timeoutDuration", timeoutDuration.toString())),
+              TimeoutPolicy.toTimeoutNanos(
+                  Duration.parse(
+                      getInitParameterOrDefaultValue(
+                          parameterPrefix + "totalTimeout", totalTimeout))),
+              TimeoutPolicy.toTimeoutNanos(
+                  Duration.parse(
+                      getInitParameterOrDefaultValue(
+                          parameterPrefix + "idleTimeout", idleTimeout)))));
+    }
+
+    timeoutPolicies.add(defaultTimeoutPolicy);
+    LOGGER.info("Timeout policies in the order in which they are matched: {}", timeoutPolicies);
+    return timeoutPolicies;
+  }
+
+  /**
+   * @param trafficClassNames the comma-separated names of the traffic classes in the order of their
+   *     priority, or {@code null} for a single class that takes all requests
+   */
+  private List<TrafficClass> createTrafficClasses(String trafficClassNames) {
+    int defaultQueueSize =
+        Integer.parseInt(getInitParameterOrDefaultValue("admissionQueueSize", "100"));
+
+    if (trafficClassNames == null) {
+      return List.of(new TrafficClass("default", List.of(), Integer.MAX_VALUE, defaultQueueSize));
+    }
+
+    List<TrafficClass> trafficClasses = new ArrayList<>();
+
+    for (String name : trafficClassNames.split(",")) {
+      String trimmedName = name.trim();
+      String parameterPrefix = "trafficClass." + trimmedName + '.';
+      trafficClasses.add(
+          new TrafficClass(
+              trimmedName,
+              PathPatterns.parse(
+                  getInitParameterOrDefaultValue(parameterPrefix + "pathPatterns", "")),
+              Integer.parseInt(
+                  getInitParameterOrDefaultValue(
+                      parameterPrefix + "maxConcurrency", Integer.toString(Integer.MAX_VALUE))),
+              Integer.parseInt(
+                  getInitParameterOrDefaultValue(
+                      parameterPrefix + "queueSize", Integer.toString(defaultQueueSize)))));
+    }
+
+    LOGGER.info("Traffic classes in the order of priority: {}", trafficClasses);
+    return trafficClasses;
+  }
+
+  private Upstream createUpstream(String url) {
+    return new Upstream(
+        url,
+        Integer.parseInt(getInitParameterOrDefaultValue("outlierEjectionThreshold", "5")),
+        Duration.parse(getInitParameterOrDefaultValue("outlierEjectionDuration", "PT30S")),
+        new CircuitBreaker(
+            url,
+            Integer.parseInt(getInitParameterOrDefaultValue("circuitBreakerWindowSize", "0")),
+            Integer.parseInt(
+                getInitParameterOrDefaultValue("circuitBreakerFailureRateThreshold", "50")),
+            Integer.parseInt(
+                getInitParameterOrDefaultValue("circuitBreakerSlowCallRateThreshold", "80")),
+            Duration.parse(
+                getInitParameterOrDefaultValue("circuitBreakerSlowCallDuration", "PT10S")),
+            Duration.parse(getInitParameterOrDefaultValue("circuitBreakerOpenDuration", "PT30S")),
+            Integer.parseInt(getInitParameterOrDefaultValue("circuitBreakerProbes", "3"))));
+  }
+
+  /**
+   * In the ASYNC execution mode, bodies are streamed to the client without being transcoded, so the
+   * back-end must only use codings that the client accepts.
+   *
+   * @param exchangeTimer enforces the total and idle timeouts, or {@code null} if there are none
+   */
+  private HttpRequest createUpstreamRequest(
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      Upstream upstream,
+      ExchangeTimer exchangeTimer) {
+    HttpRequest upstreamRequest =
+        storedResponse == null
+            ? httpRequest
+            : ResponseCache.createConditionalRequest(httpRequest, storedResponse);
+    boolean transcoding = responseCompressor != null && executionMode != ExecutionMode.ASYNC;
+    boolean deadline = exchangeTimer != null && exchangeTimer.hasDeadline();
+
+    if (!transcoding && !deadline && upstream == loadBalancer.getPrimaryUpstream()) {
+      return upstreamRequest;
+    }
+
+    Builder upstreamRequestBuilder =
+        HttpRequest.newBuilder(upstreamRequest, (headerName, headerValue) -> true)
+            .uri(loadBalancer.getUpstreamUri(upstreamRequest.uri(), upstream));
+
+    if (transcoding) {
+      upstreamRequestBuilder.setHeader("Accept-Encoding", responseCompressor.getAcceptEncoding());
+    }
+
+    if (deadline) {
+      // The time that the request waited in the proxy counts against its deadline
+      long remainingNanos = Math.max(exchangeTimer.getRemainingNanos(), 1);
+
+      if (remainingNanos < upstreamRequest.timeout().orElse(timeoutDuration).toNanos()) {
+        upstreamRequestBuilder.timeout(Duration.ofNanos(remainingNanos));
+      }
+
+      if (deadlineHeader != null) {
+        upstreamRequestBuilder.setHeader(
+            deadlineHeader,
+            Long.toString(Math.max(TimeUnit.NANOSECONDS.toMillis(remainingNanos), 1)));
+      }
+    }
+
+    return upstreamRequestBuilder.build();
+  }
+
+  /**
+   * @param upstreamReference receives the permit of the request whose response answers the client
+   */
+  private <T> UpstreamRequests<T> createUpstreamRequests(
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      ExchangeTimer exchangeTimer,
+      BodyHandler<T> bodyHandler,
+      AtomicReference<UpstreamPermit> upstreamReference) {
+    return new UpstreamRequests<>(
+        httpClient,
+        loadBalancer,
+        scheduledExecutorService,
+        upstreamRequestListener,
+        retryPolicy != null && RetryPolicy.isRetryable(httpRequest) ? retryPolicy : null,
+        upstream -> createUpstreamRequest(httpRequest, storedResponse, upstream, exchangeTimer),
+        exchangeTimer,
+        bodyHandler,
+        upstreamReference);
+  }
+
+  /** Finishes an exchange that was rejected before a request was sent to Acrolinx. */
+  private void finishRejectedExchange(
+      HttpRequest httpRequest,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      long startNanos) {
+    if (sharedResponse != null) {
+      requestCoalescer.complete(httpRequest, sharedResponse, null);
+    }
+
+    PROXY_METRICS.exchangeFinished(httpRequest, startNanos);
+  }
+
+  private void finishUpstreamRequest(UpstreamPermit permit, Version version) {
+    permit.getUpstream().requestFinished();
+    permit.callFinished();
+    upstreamStatistics.exchangeFinished(version);
+  }
+
+  /**
+   * @param httpRequest the request with the copied headers of the client
+   * @return the timeout that the client sent in the deadline header, or {@link
+   *     TimeoutPolicy#NO_TIMEOUT} if there is none
+   */
+  private long getClientTimeoutNanos(HttpRequest httpRequest) {
+    String headerValue =
+        deadlineHeader == null
+            ? null
+            : httpRequest.headers().firstValue(deadlineHeader).orElse(null);
+
+    if (headerValue == null) {
+      return TimeoutPolicy.NO_TIMEOUT;
+    }
+
+    try {
+      long timeoutMillis = Long.parseLong(headerValue.trim());
+
+      if (timeoutMillis > 0) {
+        return TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      }
+    } catch (NumberFormatException e) {
+      // an invalid deadline is ignored like a missing one
+    }
+
+    LOGGER.debug("Ignoring invalid {} header: {}", deadlineHeader, headerValue);
+    return TimeoutPolicy.NO_TIMEOUT;
+  }
+
   private String getInitParameterOrDefaultValue(String name, String defaultValue) {
     String parameterValue = getInitParameter(name);
     return parameterValue == null ? defaultValue : parameterValue;
@@ -245,7 +1089,7 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     return parameterValue;
   }
 
-  private URI getTargetUri(final HttpServletRequest httpServletRequest) {
+  URI getTargetUri(final HttpServletRequest httpServletRequest) {
     final String queryPart =
         httpServletRequest.getQueryString() != null
             ? "?" + httpServletRequest.getQueryString()
@@ -254,48 +1098,957 @@ public class AcrolinxProxyHttpServlet extends HttpServlet {
     return URI.create(uriString);
   }
 
-  private void modifyRequest(HttpServletRequest httpServletRequest, Builder httpRequestBuilder) {
-    httpRequestBuilder.uri(getTargetUri(httpServletRequest));
+  private void modifyRequest(URI targetUri, Builder httpRequestBuilder) {
+    httpRequestBuilder.uri(targetUri);
     setRequestHeader(httpRequestBuilder, "User-Agent", USER_AGENT);
     setRequestHeader(httpRequestBuilder, "X-Acrolinx-Integration-Proxy-Version", PROXY_VERSION);
   }
 
+  private ContentTranscoding negotiateContentTranscoding(
+      HttpRequest httpRequest, int statusCode, HttpHeaders httpHeaders) {
+    if (responseCompressor == null) {
+      return ContentTranscoding.identity(httpHeaders);
+    }
+
+    return responseCompressor.negotiate(httpRequest, statusCode, httpHeaders);
+  }
+
+  /**
+   * Waits for the response of an identical exchange in flight, but at most for the configured
+   * timeout. If the leader cannot share a response in time, the request is sent on its own.
+   */
+  private void proxyCoalescedRequest(
+      HttpServletRequest httpServletRequest,
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      CompletableFuture<BufferedResponse> leaderResponse,
+      TrafficClass trafficClass,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos)
+      throws IOException {
+    CompletableFuture<BufferedResponse> sharedResponse =
+        leaderResponse
+            .copy()
+            .completeOnTimeout(
+                null,
+                httpRequest.timeout().orElse(timeoutDuration).toMillis(),
+                TimeUnit.MILLISECONDS);
+
+    if (executionMode == ExecutionMode.SYNC) {
+      BufferedResponse bufferedResponse = sharedResponse.join();
+
+      if (bufferedResponse == null) {
+        sendRequestAndTransferResponse(
+            httpServletResponse,
+            httpRequest,
+            null,
+            null,
+            trafficClass,
+            exchangeTimer,
+            clientConnection,
+            startNanos);
+      } else {
+        writeBufferedResponseAndFinishExchange(
+            httpServletResponse, httpRequest, bufferedResponse, startNanos);
+      }
+
+      return;
+    }
+
+    AsyncContext asyncContext = startAsync(httpServletRequest, clientConnection);
+
+    // Continue on the executor so that the followers do not write one after the other
+    sharedResponse.thenAcceptAsync(
+        bufferedResponse -> {
+          if (bufferedResponse == null && executionMode == ExecutionMode.ASYNC) {
+            sendRequestAsynchronously(
+                asyncContext,
+                httpServletResponse,
+                httpRequest,
+                null,
+                null,
+                trafficClass,
+                exchangeTimer,
+                clientConnection,
+                startNanos);
+            return;
+          }
+
+          try {
+            if (bufferedResponse == null) {
+              sendRequestAndTransferResponse(
+                  httpServletResponse,
+                  httpRequest,
+                  null,
+                  null,
+                  trafficClass,
+                  exchangeTimer,
+                  clientConnection,
+                  startNanos);
+            } else {
+              writeBufferedResponseAndFinishExchange(
+                  httpServletResponse, httpRequest, bufferedResponse, startNanos);
+            }
+          } catch (IOException | RuntimeException e) {
+            handleAsynchronousFailure(httpServletResponse, e);
+          } finally {
+            asyncContext.complete();
+          }
+        },
+        executorService);
+  }
+
   private void proxyRequest(
       HttpServletRequest httpServletRequest,
       HttpServletResponse httpServletResponse,
       Builder httpRequestBuilder)
       throws IOException {
+    if (rateLimiter != null) {
+      String key = rateLimiter.getKey(httpServletRequest);
+      long waitNanos = rateLimiter.tryAcquire(key);
+
+      if (waitNanos > 0) {
+        LOGGER.warn("Rejected request since {} exceeded the rate limit", key);
+        sendTooManyRequestsError(httpServletResponse, waitNanos);
+        return;
+      }
+    }
+
     copyHeaders(httpServletRequest, httpRequestBuilder);
 
     addAcrolinxBaseUrlHeader(httpServletRequest, httpRequestBuilder);
 
-    modifyRequest(httpServletRequest, httpRequestBuilder);
+    URI targetUri = getTargetUri(httpServletRequest);
+    modifyRequest(targetUri, httpRequestBuilder);
+    // the path info is taken from the target URI instead of asking the client request again
+    String pathInfo = targetUri.getRawPath().substring(acrolinxPathLength);
 
-    httpRequestBuilder.timeout(timeoutDuration);
+    TimeoutPolicy timeoutPolicy = selectTimeoutPolicy(pathInfo);
+    // a shorter total timeout or deadline is applied to each request to Acrolinx when it is sent
+    httpRequestBuilder.timeout(timeoutPolicy.getResponseTimeout());
 
     addSingleSignOnHeaders(httpRequestBuilder);
 
-    LOGGER.info("Performing HTTP request: {}", httpRequestBuilder);
+    HttpRequest httpRequest = httpRequestBuilder.build();
+    long totalTimeoutNanos =
+        Math.min(timeoutPolicy.getTotalTimeoutNanos(), getClientTimeoutNanos(httpRequest));
+    TrafficClass trafficClass =
+        concurrencyLimiter == null ? null : concurrencyLimiter.classify(pathInfo);
+    long startNanos = PROXY_METRICS.exchangeStarted();
+    ExchangeTimer exchangeTimer =
+        totalTimeoutNanos == TimeoutPolicy.NO_TIMEOUT
+                && timeoutPolicy.getIdleTimeoutNanos() == TimeoutPolicy.NO_TIMEOUT
+            ? null
+            : new ExchangeTimer(startNanos, totalTimeoutNanos, timeoutPolicy.getIdleTimeoutNanos());
+    ClientConnection clientConnection = new ClientConnection();
+
+    BufferedResponse storedResponse = null;
+
+    if (responseCache != null) {
+      storedResponse = responseCache.get(httpRequest);
+
+      if (storedResponse != null && ResponseCache.isFresh(httpRequest, storedResponse)) {
+        LOGGER.info("Serving cached response for HTTP request: {}", httpRequest);
+        // The body is already in memory, so writing it does not block for long in any mode
+        writeBufferedResponseAndFinishExchange(
+            httpServletResponse, httpRequest, storedResponse, startNanos);
+        return;
+      }
+    }
+
+    CompletableFuture<BufferedResponse> sharedResponse = null;
+
+    if (requestCoalescer != null && RequestCoalescer.isCoalescable(httpRequest)) {
+      sharedResponse = new CompletableFuture<>();
+      CompletableFuture<BufferedResponse> leaderResponse =
+          requestCoalescer.register(httpRequest, sharedResponse);
+
+      if (leaderResponse != null) {
+        LOGGER.info("Waiting for identical HTTP request in flight: {}", httpRequest);
+        proxyCoalescedRequest(
+            httpServletRequest,
+            httpServletResponse,
+            httpRequest,
+            leaderResponse,
+            trafficClass,
+            exchangeTimer,
+            clientConnection,
+            startNanos);
+        return;
+      }
+    }
+
+    if (storedResponse == null) {
+      LOGGER.info("Performing HTTP request: {}", httpRequest);
+    } else {
+      LOGGER.info("Revalidating cached response for HTTP request: {}", httpRequest);
+    }
+
+    if (executionMode == ExecutionMode.ASYNC) {
+      sendRequestAsynchronously(
+          startAsync(httpServletRequest, clientConnection),
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          trafficClass,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+    } else if (executionMode == ExecutionMode.VIRTUAL_THREAD) {
+      proxyRequestOnVirtualThread(
+          httpServletRequest,
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          trafficClass,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+    } else {
+      sendRequestAndTransferResponse(
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          trafficClass,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+    }
+  }
+
+  private void proxyRequestOnVirtualThread(
+      HttpServletRequest httpServletRequest,
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      TrafficClass trafficClass,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos) {
+    AsyncContext asyncContext = startAsync(httpServletRequest, clientConnection);
+
+    executorService.execute(
+        () -> {
+          try {
+            sendRequestAndTransferResponse(
+                httpServletResponse,
+                httpRequest,
+                storedResponse,
+                sharedResponse,
+                trafficClass,
+                exchangeTimer,
+                clientConnection,
+                startNanos);
+          } catch (IOException | RuntimeException e) {
+            handleAsynchronousFailure(httpServletResponse, e);
+          } finally {
+            asyncContext.complete();
+          }
+        });
+  }
+
+  /**
+   * Rejects a body that is declared larger than the maximum size before reading it. Bodies of
+   * unknown length are checked while they are forwarded.
+   */
+  private void proxyRequestWithBody(
+      HttpServletRequest httpServletRequest,
+      HttpServletResponse httpServletResponse,
+      String httpMethod)
+      throws IOException {
+    long contentLength = httpServletRequest.getContentLengthLong();
+
+    if (maxRequestBodySize >= 0 && contentLength > maxRequestBodySize) {
+      logRequestBodyTooLargeAndSendError(
+          httpServletResponse, new RequestBodyTooLargeException(maxRequestBodySize));
+      return;
+    }
+
+    final Builder httpRequestBuilder =
+        HttpRequest.newBuilder()
+            .method(httpMethod, createBodyPublisher(httpServletRequest, contentLength));
+    proxyRequest(httpServletRequest, httpServletResponse, httpRequestBuilder);
+  }
+
+  /**
+   * @return the stored response updated by the back-end if it confirmed that the response is still
+   *     valid, or {@code null}
+   */
+  private BufferedResponse revalidateStoredResponse(
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      int statusCode,
+      HttpHeaders httpHeaders) {
+    if (storedResponse == null || statusCode != HttpServletResponse.SC_NOT_MODIFIED) {
+      return null;
+    }
+
+    return responseCache.revalidate(httpRequest, storedResponse, httpHeaders);
+  }
+
+  /**
+   * @return the first timeout policy that matches the path info, or the default policy
+   */
+  private TimeoutPolicy selectTimeoutPolicy(String pathInfo) {
+    int lastIndex = timeoutPolicies.size() - 1;
+
+    if (pathInfo != null) {
+      for (int i = 0; i < lastIndex; i++) {
+        if (timeoutPolicies.get(i).matches(pathInfo)) {
+          return timeoutPolicies.get(i);
+        }
+      }
+    }
+
+    return timeoutPolicies.get(lastIndex);
+  }
+
+  /**
+   * Rejects the exchange if the client disconnected or the deadline passed while the request waited
+   * for admission, or if the circuit breaker of the selected node is open.
+   *
+   * @return the permit of the circuit breaker of the node that the request is sent to, or {@code
+   *     null} if the exchange was rejected
+   */
+  private UpstreamPermit selectUpstreamOrRejectExchange(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos)
+      throws IOException {
+    UpstreamPermit permit = null;
 
     try {
-      HttpResponse<InputStream> httpResponse =
-          httpClient.send(
-              httpRequestBuilder.build(), responseInfo -> BodySubscribers.ofInputStream());
+      if (clientConnection.isDisconnected()) {
+        // the client disconnected while the request waited for admission
+        logClientDisconnected(new IOException("Client disconnected"));
+      } else if (exchangeTimer != null && exchangeTimer.getRemainingNanos() <= 0) {
+        sendDeadlineExceededError(httpServletResponse);
+      } else {
+        Upstream upstream = loadBalancer.select(httpRequest);
+        LOGGER.debug("Selected Acrolinx node: {}", upstream);
+        permit = upstream.tryAcquirePermit();
+
+        if (permit == null) {
+          sendCircuitBreakerOpenError(httpServletResponse, upstream);
+        }
+      }
+    } finally {
+      if (permit == null) {
+        finishRejectedExchange(httpRequest, sharedResponse, startNanos);
+      }
+    }
+
+    return permit;
+  }
+
+  private void sendAdmittedRequestAndTransferResponse(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos)
+      throws IOException {
+    UpstreamPermit permit =
+        selectUpstreamOrRejectExchange(
+            httpServletResponse,
+            httpRequest,
+            sharedResponse,
+            exchangeTimer,
+            clientConnection,
+            startNanos);
+
+    if (permit == null) {
+      return;
+    }
+
+    Version negotiatedVersion = null;
+    BufferedResponse bufferedResponse = null;
+    boolean responseReceived = false;
+    AtomicReference<UpstreamPermit> upstreamReference = new AtomicReference<>();
+    long upstreamStartNanos = System.nanoTime();
+
+    try {
+      CompletableFuture<HttpResponse<InputStream>> responseFuture =
+          createUpstreamRequests(
+                  httpRequest,
+                  storedResponse,
+                  exchangeTimer,
+                  responseInfo -> BodySubscribers.ofInputStream(),
+                  upstreamReference)
+              .send(permit);
+      clientConnection.onDisconnect(() -> responseFuture.cancel(true));
+      HttpResponse<InputStream> httpResponse = awaitResponse(responseFuture);
+      responseReceived = true;
+      PROXY_METRICS.upstreamResponded(httpRequest, upstreamStartNanos);
+      negotiatedVersion = httpResponse.version();
+
       int status = httpResponse.statusCode();
-      LOGGER.debug("Response received: {}", status);
+      LOGGER.debug("Response received: {} via {}", status, negotiatedVersion);
+
+      BufferedResponse revalidatedResponse =
+          revalidateStoredResponse(httpRequest, storedResponse, status, httpResponse.headers());
+
+      if (revalidatedResponse != null) {
+        httpResponse.body().close();
+        writeBufferedResponse(httpServletResponse, httpRequest, revalidatedResponse);
+        bufferedResponse = revalidatedResponse;
+        return;
+      }
+
+      ContentTranscoding contentTranscoding =
+          negotiateContentTranscoding(httpRequest, status, httpResponse.headers());
+      InputStream upstreamBody =
+          exchangeTimer == null
+              ? httpResponse.body()
+              : exchangeTimer.watch(httpResponse.body(), scheduledExecutorService);
+      clientConnection.onDisconnect(() -> closeUpstreamBody(upstreamBody));
 
       httpServletResponse.setStatus(status);
 
-      transferResponseHeaders(httpServletResponse, httpResponse.headers());
+      transferResponseHeaders(httpServletResponse, contentTranscoding.getHeaders());
 
-      transferResponseBodyWithAdditionalHeaders(httpServletResponse, httpResponse);
+      // Responses are recorded as sent by the back-end and transcoded for each client
+      ResponseRecorder responseRecorder =
+          createResponseRecorder(
+              httpRequest, status, httpResponse.headers(), sharedResponse != null);
+      InputStream body =
+          responseRecorder == null ? upstreamBody : responseRecorder.record(upstreamBody);
+      transferResponseBodyWithAdditionalHeaders(
+          httpServletResponse,
+          body,
+          contentTranscoding,
+          clientConnection,
+          bufferPool,
+          transferBufferSize);
+      bufferedResponse = storeResponse(httpRequest, responseRecorder);
     } catch (ConnectException | HttpTimeoutException e) {
-      logExceptionAndSendError(httpServletResponse, e, HttpURLConnection.HTTP_BAD_GATEWAY);
+      // the requests that failed before their response headers arrived are already accounted for
+      if (upstreamReference.get() != null) {
+        upstreamFailed(upstreamReference.get());
+      }
+
+      // the response is streamed, so an error can no longer be sent once it was committed
+      if (responseReceived && httpServletResponse.isCommitted()) {
+        LOGGER.error("Aborted response to client", e);
+      } else {
+        logExceptionAndSendError(httpServletResponse, e, HttpURLConnection.HTTP_BAD_GATEWAY);
+      }
     } catch (IOException e) {
-      logExceptionAndSendError(httpServletResponse, e, HttpURLConnection.HTTP_UNAVAILABLE);
+      if (clientConnection.isDisconnected()) {
+        logClientDisconnected(e);
+      } else if (responseReceived && httpServletResponse.isCommitted()) {
+        LOGGER.error("Aborted response to client", e);
+      } else if (RequestBodyTooLargeException.isCausedBy(e)) {
+        logRequestBodyTooLargeAndSendError(httpServletResponse, e);
+      } else {
+        logExceptionAndSendError(httpServletResponse, e, HttpURLConnection.HTTP_UNAVAILABLE);
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       throw new IllegalStateException(e);
+    } finally {
+      if (exchangeTimer != null) {
+        exchangeTimer.stop();
+      }
+
+      UpstreamPermit respondingPermit = upstreamReference.getAndSet(null);
+
+      if (respondingPermit != null) {
+        finishUpstreamRequest(respondingPermit, negotiatedVersion);
+      }
+
+      LOGGER.debug("{}", upstreamStatistics);
+
+      if (sharedResponse != null) {
+        requestCoalescer.complete(httpRequest, sharedResponse, bufferedResponse);
+      }
+
+      PROXY_METRICS.exchangeFinished(httpRequest, startNanos);
+    }
+  }
+
+  /**
+   * @return a future that completes once the exchange is finished
+   */
+  private CompletableFuture<?> sendAdmittedRequestAsynchronously(
+      AsyncContext asyncContext,
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos) {
+    UpstreamPermit permit;
+
+    try {
+      permit =
+          selectUpstreamOrRejectExchange(
+              httpServletResponse,
+              httpRequest,
+              sharedResponse,
+              exchangeTimer,
+              clientConnection,
+              startNanos);
+    } catch (IOException e) {
+      LOGGER.error("Could not send error to client", e);
+      permit = null;
+    }
+
+    if (permit == null) {
+      asyncContext.complete();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    AtomicReference<Version> negotiatedVersion = new AtomicReference<>();
+    AtomicReference<ResponseRecorder> responseRecorderReference = new AtomicReference<>();
+    AtomicReference<BufferedResponse> revalidatedResponseReference = new AtomicReference<>();
+    AtomicReference<ServletOutputStreamSubscriber> subscriberReference = new AtomicReference<>();
+    AtomicReference<UpstreamPermit> upstreamReference = new AtomicReference<>();
+    long upstreamStartNanos = System.nanoTime();
+
+    CompletableFuture<HttpResponse<Long>> responseFuture =
+        createUpstreamRequests(
+                httpRequest,
+                storedResponse,
+                exchangeTimer,
+                responseInfo -> {
+                  PROXY_METRICS.upstreamResponded(httpRequest, upstreamStartNanos);
+                  negotiatedVersion.set(responseInfo.version());
+                  BufferedResponse revalidatedResponse =
+                      revalidateStoredResponse(
+                          httpRequest,
+                          storedResponse,
+                          responseInfo.statusCode(),
+                          responseInfo.headers());
+
+                  if (revalidatedResponse != null) {
+                    revalidatedResponseReference.set(revalidatedResponse);
+                    return BodySubscribers.replacing(0L);
+                  }
+
+                  ResponseRecorder responseRecorder =
+                      createResponseRecorder(
+                          httpRequest,
+                          responseInfo.statusCode(),
+                          responseInfo.headers(),
+                          sharedResponse != null);
+                  responseRecorderReference.set(responseRecorder);
+                  ServletOutputStreamSubscriber servletOutputStreamSubscriber =
+                      createServletOutputStreamSubscriber(
+                          httpServletResponse, responseInfo, responseRecorder, exchangeTimer);
+
+                  if (exchangeTimer != null) {
+                    exchangeTimer.start(
+                        scheduledExecutorService, servletOutputStreamSubscriber::onError);
+                  }
+
+                  subscriberReference.set(servletOutputStreamSubscriber);
+
+                  if (clientConnection.isDisconnected()) {
+                    servletOutputStreamSubscriber.onError(new IOException("Client disconnected"));
+                  }
+
+                  return servletOutputStreamSubscriber;
+                },
+                upstreamReference)
+            .send(permit);
+
+    clientConnection.onDisconnect(
+        () -> {
+          ServletOutputStreamSubscriber servletOutputStreamSubscriber = subscriberReference.get();
+
+          if (servletOutputStreamSubscriber == null) {
+            responseFuture.cancel(true);
+          } else {
+            servletOutputStreamSubscriber.onError(new IOException("Client disconnected"));
+          }
+        });
+
+    return responseFuture.whenComplete(
+        (httpResponse, throwable) -> {
+          if (exchangeTimer != null) {
+            exchangeTimer.stop();
+          }
+
+          UpstreamPermit respondingPermit = upstreamReference.getAndSet(null);
+
+          if (respondingPermit != null) {
+            finishUpstreamRequest(respondingPermit, negotiatedVersion.get());
+          }
+
+          BufferedResponse bufferedResponse = null;
+
+          if (throwable == null && revalidatedResponseReference.get() != null) {
+            bufferedResponse = revalidatedResponseReference.get();
+            writeRevalidatedResponse(httpServletResponse, httpRequest, bufferedResponse);
+          } else if (throwable == null) {
+            LOGGER.debug("Forwarded response to client: {} bytes", httpResponse.body());
+            PROXY_METRICS.responseBodyWritten(httpResponse.body());
+            bufferedResponse = storeResponse(httpRequest, responseRecorderReference.get());
+          } else if (clientConnection.isDisconnected()) {
+            logClientDisconnected(throwable);
+          } else {
+            // the requests that failed before their response headers arrived are already
+            // accounted for
+            if (respondingPermit != null && isUpstreamFailure(throwable)) {
+              upstreamFailed(respondingPermit);
+            }
+
+            handleAsynchronousFailure(httpServletResponse, throwable);
+          }
+
+          if (sharedResponse != null) {
+            requestCoalescer.complete(httpRequest, sharedResponse, bufferedResponse);
+          }
+
+          asyncContext.complete();
+          PROXY_METRICS.exchangeFinished(httpRequest, startNanos);
+        });
+  }
+
+  /**
+   * Waits until the concurrency limit admits the request and then sends it.
+   *
+   * @param storedResponse the cached response to revalidate, or {@code null}
+   * @param sharedResponse receives the response if identical requests wait for it, or {@code null}
+   * @param trafficClass the traffic class of the request, or {@code null} if nothing is limited
+   * @param exchangeTimer enforces the total and idle timeouts, or {@code null} if there are none
+   * @param clientConnection cancels the request to Acrolinx once the client disconnects
+   * @param startNanos the time at which the proxy received the request
+   */
+  private void sendRequestAndTransferResponse(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      TrafficClass trafficClass,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos)
+      throws IOException {
+    if (concurrencyLimiter == null) {
+      sendAdmittedRequestAndTransferResponse(
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+      return;
+    }
+
+    if (!concurrencyLimiter.acquire(trafficClass).join()) {
+      try {
+        sendRequestShedError(httpServletResponse);
+      } finally {
+        finishRejectedExchange(httpRequest, sharedResponse, startNanos);
+      }
+
+      return;
+    }
+
+    try {
+      sendAdmittedRequestAndTransferResponse(
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+    } finally {
+      concurrencyLimiter.release(trafficClass);
+    }
+  }
+
+  /**
+   * Sends the request once the concurrency limit admits it, without blocking a thread while the
+   * request waits.
+   *
+   * @param storedResponse the cached response to revalidate, or {@code null}
+   * @param sharedResponse receives the response if identical requests wait for it, or {@code null}
+   * @param trafficClass the traffic class of the request, or {@code null} if nothing is limited
+   * @param exchangeTimer enforces the total and idle timeouts, or {@code null} if there are none
+   * @param clientConnection cancels the request to Acrolinx once the client disconnects
+   * @param startNanos the time at which the proxy received the request
+   */
+  private void sendRequestAsynchronously(
+      AsyncContext asyncContext,
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse storedResponse,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      TrafficClass trafficClass,
+      ExchangeTimer exchangeTimer,
+      ClientConnection clientConnection,
+      long startNanos) {
+    if (concurrencyLimiter == null) {
+      sendAdmittedRequestAsynchronously(
+          asyncContext,
+          httpServletResponse,
+          httpRequest,
+          storedResponse,
+          sharedResponse,
+          exchangeTimer,
+          clientConnection,
+          startNanos);
+      return;
+    }
+
+    concurrencyLimiter
+        .acquire(trafficClass)
+        .thenAcceptAsync(
+            admitted -> {
+              if (!admitted) {
+                try {
+                  sendRequestShedError(httpServletResponse);
+                } catch (IOException e) {
+                  LOGGER.error("Could not send error to client", e);
+                } finally {
+                  asyncContext.complete();
+                  finishRejectedExchange(httpRequest, sharedResponse, startNanos);
+                }
+
+                return;
+              }
+
+              sendAdmittedRequestAsynchronously(
+                      asyncContext,
+                      httpServletResponse,
+                      httpRequest,
+                      storedResponse,
+                      sharedResponse,
+                      exchangeTimer,
+                      clientConnection,
+                      startNanos)
+                  .whenComplete((result, throwable) -> concurrencyLimiter.release(trafficClass));
+            },
+            executorService);
+  }
+
+  private void startConnectionWarmer() {
+    int warmUpConnections =
+        Integer.parseInt(getInitParameterOrDefaultValue("warmUpConnections", "0"));
+
+    if (warmUpConnections > 0) {
+      String warmUpPath = getInitParameterOrDefaultValue("warmUpPath", "/api/v1/");
+      Duration warmUpInterval =
+          Duration.parse(getInitParameterOrDefaultValue("warmUpInterval", "PT30S"));
+
+      for (Upstream upstream : loadBalancer.getUpstreams()) {
+        ConnectionWarmer connectionWarmer =
+            new ConnectionWarmer(
+                httpClient,
+                URI.create(upstream.getUrl() + warmUpPath),
+                warmUpConnections,
+                timeoutDuration);
+        connectionWarmers.add(connectionWarmer);
+        connectionWarmer.start(scheduledExecutorService, warmUpInterval);
+      }
+    }
+  }
+
+  private void startRateLimiter() {
+    double rateLimit = Double.parseDouble(getInitParameterOrDefaultValue("rateLimit", "0"));
+
+    if (rateLimit > 0) {
+      List<RateLimiter.KeySource> keySources = new ArrayList<>();
+
+      for (String keySource : getInitParameterOrDefaultValue("rateLimitKey", "CLIENT").split(",")) {
+        keySources.add(
+            RateLimiter.KeySource.valueOf(keySource.strip().toUpperCase(Locale.ENGLISH)));
+      }
+
+      rateLimiter =
+          new RateLimiter(
+              rateLimit,
+              Integer.parseInt(
+                  getInitParameterOrDefaultValue(
+                      "rateLimitBurst", Long.toString((long) Math.ceil(rateLimit)))),
+              keySources,
+              Integer.parseInt(getInitParameterOrDefaultValue("rateLimitMaxKeys", "10000")));
+      rateLimiter.start(scheduledExecutorService);
+    }
+  }
+
+  private void startUpstreamHealthChecker() {
+    Duration healthCheckInterval =
+        Duration.parse(getInitParameterOrDefaultValue("healthCheckInterval", "PT0S"));
+
+    if (!healthCheckInterval.isZero()) {
+      upstreamHealthChecker =
+          new UpstreamHealthChecker(
+              httpClient,
+              loadBalancer.getUpstreams(),
+              getInitParameterOrDefaultValue("healthCheckPath", "/api/v1/"),
+              timeoutDuration.compareTo(healthCheckInterval) < 0
+                  ? timeoutDuration
+                  : healthCheckInterval);
+      upstreamHealthChecker.start(scheduledExecutorService, healthCheckInterval);
+    }
+  }
+
+  /**
+   * @return the recorded response, or {@code null} if there is none
+   */
+  private BufferedResponse storeResponse(
+      HttpRequest httpRequest, ResponseRecorder responseRecorder) {
+    if (responseRecorder == null) {
+      return null;
+    }
+
+    BufferedResponse bufferedResponse = responseRecorder.toBufferedResponse();
+
+    if (bufferedResponse != null && responseCache != null) {
+      responseCache.put(httpRequest, bufferedResponse);
+    }
+
+    return bufferedResponse;
+  }
+
+  private void upstreamFailed(UpstreamPermit permit) {
+    permit.onFailure();
+
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.onDropped();
+    }
+
+    if (permit.getUpstream().requestFailed()) {
+      PROXY_METRICS.upstreamEjected();
+    }
+  }
+
+  /**
+   * @param responseNanos the time from sending the request until the response headers arrived
+   */
+  private void upstreamResponded(UpstreamPermit permit, int statusCode, long responseNanos) {
+    permit.getUpstream().responseReceived(responseNanos);
+
+    if (statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+      permit.onFailure();
+    } else {
+      permit.onSuccess(responseNanos);
+    }
+
+    if (concurrencyLimiter == null) {
+      return;
+    }
+
+    if (statusCode == HttpURLConnection.HTTP_UNAVAILABLE) {
+      concurrencyLimiter.onDropped();
+    } else {
+      concurrencyLimiter.onSample(responseNanos);
+    }
+  }
+
+  private void writeBufferedResponse(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse bufferedResponse)
+      throws IOException {
+    ContentTranscoding contentTranscoding =
+        negotiateContentTranscoding(
+            httpRequest, bufferedResponse.getStatusCode(), bufferedResponse.getHeaders());
+    HttpHeaders httpHeaders = contentTranscoding.getHeaders();
+    boolean notModified = ResponseCache.isNotModified(httpRequest, httpHeaders);
+    httpServletResponse.setStatus(
+        notModified ? HttpServletResponse.SC_NOT_MODIFIED : bufferedResponse.getStatusCode());
+
+    transferResponseHeaders(httpServletResponse, httpHeaders);
+    httpServletResponse.setHeader("Age", Long.toString(bufferedResponse.getAge().toSeconds()));
+
+    if (notModified) {
+      return;
+    }
+
+    if (!contentTranscoding.isIdentity()) {
+      transferResponseBodyWithAdditionalHeaders(
+          httpServletResponse,
+          new ByteArrayInputStream(bufferedResponse.getBody()),
+          contentTranscoding,
+          null,
+          bufferPool,
+          transferBufferSize);
+      return;
+    }
+
+    Optional<String> contentTypeHeader = httpHeaders.firstValue("Content-Type");
+
+    if (contentTypeHeader.isPresent()) {
+      httpServletResponse.setContentType(contentTypeHeader.get());
+    }
+
+    httpServletResponse.setContentLength(bufferedResponse.getBody().length);
+
+    try (OutputStream outputStream = httpServletResponse.getOutputStream()) {
+      outputStream.write(bufferedResponse.getBody());
+    }
+
+    PROXY_METRICS.responseBodyWritten(bufferedResponse.getBody().length);
+  }
+
+  private void writeBufferedResponseAndFinishExchange(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse bufferedResponse,
+      long startNanos)
+      throws IOException {
+    try {
+      writeBufferedResponse(httpServletResponse, httpRequest, bufferedResponse);
+    } finally {
+      PROXY_METRICS.exchangeFinished(httpRequest, startNanos);
+    }
+  }
+
+  private void writeRevalidatedResponse(
+      HttpServletResponse httpServletResponse,
+      HttpRequest httpRequest,
+      BufferedResponse revalidatedResponse) {
+    try {
+      writeBufferedResponse(httpServletResponse, httpRequest, revalidatedResponse);
+    } catch (IOException e) {
+      handleAsynchronousFailure(httpServletResponse, e);
+    }
+  }
+
+  /**
+   * Updates the node, its circuit breaker, the concurrency limit and the statistics for each
+   * request to Acrolinx.
+   */
+  private final class UpstreamRequestListener implements UpstreamRequests.Listener {
+    @Override
+    public void requestFailed(UpstreamPermit permit) {
+      upstreamFailed(permit);
+    }
+
+    @Override
+    public void requestFinished(UpstreamPermit permit, Version version) {
+      finishUpstreamRequest(permit, version);
+    }
+
+    @Override
+    public void requestStarted(Upstream upstream) {
+      upstream.requestStarted();
+      upstreamStatistics.exchangeStarted();
+    }
+
+    @Override
+    public void responseReceived(
+        UpstreamPermit permit, int statusCode, Version version, long responseNanos) {
+      upstreamResponded(permit, statusCode, responseNanos);
+      upstreamStatistics.responseReceived(version);
     }
   }
 }
@@ -0,0 +1,171 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the body of a servlet request to the HttpClient with blocking reads. A chunk of at most
+ * the transfer buffer size is only read when the HttpClient has signaled demand for it, so a slow
+ * back-end slows down the upload of the client instead of filling up the heap.
+ */
+final class BlockingServletInputStreamPublisher implements BodyPublisher {
+  private static final int END_OF_STREAM = -1;
+
+  private final BufferPool bufferPool;
+  private final long contentLength;
+  private final HttpServletRequest httpServletRequest;
+  private final long maxBodySize;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final int transferBufferSize;
+
+  /**
+   * @param contentLength the length of the body declared by the client, or {@code -1}
+   * @param maxBodySize the maximum size of the body, or {@code -1} if it is not limited
+   */
+  BlockingServletInputStreamPublisher(
+      HttpServletRequest httpServletRequest,
+      BufferPool bufferPool,
+      int transferBufferSize,
+      long contentLength,
+      long maxBodySize) {
+    this.httpServletRequest = httpServletRequest;
+    this.bufferPool = bufferPool;
+    this.transferBufferSize = transferBufferSize;
+    this.contentLength = contentLength;
+    this.maxBodySize = maxBodySize;
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new InputStreamSubscription(subscriber, null));
+      subscriber.onError(new IllegalStateException("The request body can only be read once"));
+      return;
+    }
+
+    final InputStream inputStream;
+
+    try {
+      inputStream = httpServletRequest.getInputStream();
+    } catch (IOException e) {
+      subscriber.onSubscribe(new InputStreamSubscription(subscriber, null));
+      subscriber.onError(e);
+      return;
+    }
+
+    subscriber.onSubscribe(new InputStreamSubscription(subscriber, inputStream));
+  }
+
+  private final class InputStreamSubscription implements Flow.Subscription {
+    private volatile boolean cancelled;
+    private final AtomicLong demand = new AtomicLong();
+    private boolean done;
+    private volatile Throwable failure;
+    private final InputStream inputStream;
+    private long numberOfReadBytes;
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final AtomicInteger workInProgress = new AtomicInteger();
+
+    InputStreamSubscription(
+        Flow.Subscriber<? super ByteBuffer> subscriber, InputStream inputStream) {
+      this.subscriber = subscriber;
+      this.inputStream = inputStream;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        failure = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+
+      drain();
+    }
+
+    /**
+     * Serializes the reads and all signals to the subscriber. Whichever thread enters first keeps
+     * reading until the demand is met or no other thread has asked for more in the meantime.
+     */
+    private void drain() {
+      if (inputStream == null || workInProgress.getAndIncrement() != 0) {
+        return;
+      }
+
+      do {
+        if (!done && !cancelled) {
+          readRequestedData();
+        }
+      } while (workInProgress.decrementAndGet() != 0);
+    }
+
+    private void finish(Throwable throwable) {
+      done = true;
+
+      if (throwable == null) {
+        subscriber.onComplete();
+      } else {
+        subscriber.onError(throwable);
+      }
+    }
+
+    /**
+     * Reads into a pooled buffer and publishes a copy of exactly the bytes read, since the
+     * HttpClient does not signal when it no longer needs a published buffer.
+     */
+    private void readRequestedData() {
+      byte[] buffer = bufferPool.acquire(transferBufferSize);
+
+      try {
+        while (failure == null && !cancelled && demand.get() > 0) {
+          int numberOfBytes = inputStream.read(buffer, 0, transferBufferSize);
+
+          if (numberOfBytes == END_OF_STREAM) {
+            finish(null);
+            return;
+          }
+
+          numberOfReadBytes += numberOfBytes;
+
+          if (maxBodySize >= 0 && numberOfReadBytes > maxBodySize) {
+            finish(new RequestBodyTooLargeException(maxBodySize));
+            return;
+          }
+
+          if (numberOfBytes > 0) {
+            ProxyMetrics.getInstance().requestBodyRead(numberOfBytes);
+            demand.decrementAndGet();
+            subscriber.onNext(ByteBuffer.wrap(Arrays.copyOf(buffer, numberOfBytes)));
+          }
+        }
+
+        if (failure != null) {
+          finish(failure);
+        }
+      } catch (IOException | RuntimeException e) {
+        finish(e);
+      } finally {
+        bufferPool.release(buffer);
+      }
+    }
+  }
+}
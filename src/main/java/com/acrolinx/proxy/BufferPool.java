@@ -0,0 +1,121 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of transfer buffers in size classes of powers of two, so that forwarding bodies does not
+ * allocate a new buffer for each exchange. Buffers larger than the largest size class are allocated
+ * on demand and left to the garbage collector when they are released.
+ *
+ * <p>With leak detection, the pool remembers where each outstanding buffer was acquired, rejects
+ * buffers that are released twice, and overwrites released buffers with zeros so that a use after
+ * the release becomes visible. Leaked buffers are logged when the pool is closed.
+ */
+final class BufferPool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+  private static final int MAX_SIZE_CLASS_SHIFT = 16;
+  private static final int MIN_SIZE_CLASS_SHIFT = 10;
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+
+  /**
+   * @return the index of the smallest size class that fits the size, which is beyond the last size
+   *     class if the size is larger than the largest one
+   */
+  private static int getSizeClassIndex(int size) {
+    if (size <= getSizeClassSize(0)) {
+      return 0;
+    }
+
+    return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_SIZE_CLASS_SHIFT;
+  }
+
+  private static int getSizeClassSize(int sizeClassIndex) {
+    return 1 << (MIN_SIZE_CLASS_SHIFT + sizeClassIndex);
+  }
+
+  private final Map<byte[], Throwable> outstandingBuffers;
+  private final List<ArrayBlockingQueue<byte[]>> sizeClasses;
+
+  /**
+   * @param maxPooledBuffers the maximum number of idle buffers kept per size class
+   * @param leakDetection {@code true} to track each buffer, which is meant for tests
+   */
+  BufferPool(int maxPooledBuffers, boolean leakDetection) {
+    List<ArrayBlockingQueue<byte[]>> queues = new ArrayList<>();
+
+    for (int shift = MIN_SIZE_CLASS_SHIFT; shift <= MAX_SIZE_CLASS_SHIFT; shift++) {
+      queues.add(new ArrayBlockingQueue<>(Math.max(maxPooledBuffers, 1)));
+    }
+
+    sizeClasses = Collections.unmodifiableList(queues);
+    outstandingBuffers =
+        leakDetection ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+  }
+
+  /**
+   * @return a buffer of at least the given size, which must be passed to {@link #release(byte[])}
+   *     once it is no longer used
+   */
+  byte[] acquire(int minimumSize) {
+    int sizeClassIndex = getSizeClassIndex(minimumSize);
+    byte[] buffer = null;
+
+    if (sizeClassIndex < sizeClasses.size()) {
+      buffer = sizeClasses.get(sizeClassIndex).poll();
+    }
+
+    PROXY_METRICS.bufferAcquired(buffer != null);
+
+    if (buffer == null) {
+      int size =
+          sizeClassIndex < sizeClasses.size() ? getSizeClassSize(sizeClassIndex) : minimumSize;
+      buffer = new byte[size];
+    }
+
+    if (outstandingBuffers != null) {
+      outstandingBuffers.put(buffer, new IllegalStateException("Buffer acquired here"));
+    }
+
+    return buffer;
+  }
+
+  /** Logs the buffers that were acquired but never released if leak detection is enabled. */
+  void close() {
+    if (outstandingBuffers == null) {
+      return;
+    }
+
+    synchronized (outstandingBuffers) {
+      for (Throwable acquisition : outstandingBuffers.values()) {
+        LOGGER.error("Leaked transfer buffer", acquisition);
+      }
+    }
+  }
+
+  void release(byte[] buffer) {
+    if (outstandingBuffers != null) {
+      if (outstandingBuffers.remove(buffer) == null) {
+        throw new IllegalStateException("Buffer released twice or not acquired from this pool");
+      }
+
+      Arrays.fill(buffer, (byte) 0);
+    }
+
+    PROXY_METRICS.bufferReleased();
+    int sizeClassIndex = getSizeClassIndex(buffer.length);
+
+    // buffers beyond the largest size class are not pooled
+    if (sizeClassIndex < sizeClasses.size() && buffer.length == getSizeClassSize(sizeClassIndex)) {
+      sizeClasses.get(sizeClassIndex).offer(buffer);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Optional;
+
+/** A complete response of the Acrolinx back-end, held in memory so that it can be served again. */
+final class BufferedResponse {
+  private final byte[] body;
+  private final HttpHeaders headers;
+  private final long receivedNanos;
+  private final int statusCode;
+
+  BufferedResponse(int statusCode, HttpHeaders headers, byte[] body, long receivedNanos) {
+    this.statusCode = statusCode;
+    this.headers = headers;
+    this.body = body;
+    this.receivedNanos = receivedNanos;
+  }
+
+  /**
+   * @return the age of the response as defined by RFC 9111, which is the age reported by the
+   *     back-end plus the time since the response has been received
+   */
+  Duration getAge() {
+    Optional<String> ageHeader = headers.firstValue("Age");
+    long initialAgeSeconds = 0;
+
+    if (ageHeader.isPresent()) {
+      try {
+        initialAgeSeconds = Math.max(Long.parseLong(ageHeader.get().trim()), 0);
+      } catch (NumberFormatException e) {
+        // an invalid Age header is ignored
+      }
+    }
+
+    return Duration.ofSeconds(initialAgeSeconds).plusNanos(System.nanoTime() - receivedNanos);
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  HttpHeaders getHeaders() {
+    return headers;
+  }
+
+  int getStatusCode() {
+    return statusCode;
+  }
+}
@@ -0,0 +1,223 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops sending requests to an Acrolinx node that fails or slows down, so that the threads of the
+ * proxy do not wait for it until the requests time out. The breaker records whether each of the
+ * most recent calls failed or was slow. Once the window is full and the rate of failed or of slow
+ * calls reaches its threshold, the breaker opens and rejects all calls. After the open duration, it
+ * lets a limited number of concurrent probe calls through. It closes again once as many probes
+ * succeeded and opens again as soon as a probe fails or is slow.
+ *
+ * <p>A call fails if the node could not be connected to, did not respond in time, or responded with
+ * a status code of 500 or above. A call is slow if its response headers took longer than the slow
+ * call duration.
+ *
+ * <p>Each permitted call is tagged with the epoch of the state in which it was permitted, which
+ * advances with each transition. Results and finishes of calls from an earlier epoch are ignored,
+ * so that a call sent while the breaker was closed neither counts as a probe nor frees a probe
+ * slot.
+ */
+final class CircuitBreaker {
+  static final long NOT_PERMITTED = -1;
+  private static final byte FAILED = 1;
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+  private static final byte SLOW = 2;
+
+  private volatile long epoch;
+  private int failedCalls;
+  private final int failureRateThreshold;
+  private final String name;
+  private final long openNanos;
+  private volatile long openUntilNanos;
+  private final byte[] outcomes;
+  private int outcomeCount;
+  private int outcomeIndex;
+  private final int permittedProbes;
+  private volatile int probesInFlight;
+  private int probeSuccesses;
+  private final long slowCallNanos;
+  private final int slowCallRateThreshold;
+  private int slowCalls;
+  private volatile State state = State.CLOSED;
+
+  /**
+   * @param name the name of the node in log messages
+   * @param windowSize the number of most recent calls that the rates are computed over, or {@code
+   *     0} to disable the breaker
+   * @param failureRateThreshold the percentage of failed calls at which the breaker opens
+   * @param slowCallRateThreshold the percentage of slow calls at which the breaker opens
+   * @param permittedProbes the number of probe calls while the breaker is half-open
+   */
+  CircuitBreaker(
+      String name,
+      int windowSize,
+      int failureRateThreshold,
+      int slowCallRateThreshold,
+      Duration slowCallDuration,
+      Duration openDuration,
+      int permittedProbes) {
+    this.name = name;
+    this.outcomes = new byte[Math.max(windowSize, 0)];
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallNanos = slowCallDuration.toNanos();
+    this.openNanos = openDuration.toNanos();
+    this.permittedProbes = Math.max(permittedProbes, 1);
+  }
+
+  /**
+   * Must be called once for each call that was permitted, whether it has a result or not.
+   *
+   * @param epoch the value returned by {@link #tryAcquirePermission()}
+   */
+  synchronized void callFinished(long epoch) {
+    if (epoch == this.epoch && state == State.HALF_OPEN && probesInFlight > 0) {
+      probesInFlight--;
+    }
+  }
+
+  /**
+   * @return the number of seconds after which a rejected call should be retried
+   */
+  long getRetryAfterSeconds() {
+    long remainingNanos = openUntilNanos - System.nanoTime();
+    return Math.max(TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L), 1);
+  }
+
+  /**
+   * @return {@code true} if {@link #tryAcquirePermission()} would currently permit a call
+   */
+  boolean isCallPermitted(long nowNanos) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case HALF_OPEN:
+        return probesInFlight < permittedProbes;
+      default:
+        return nowNanos - openUntilNanos >= 0;
+    }
+  }
+
+  /**
+   * @param epoch the value returned by {@link #tryAcquirePermission()}
+   */
+  synchronized void onFailure(long epoch) {
+    onResult(epoch, FAILED);
+  }
+
+  /**
+   * @param epoch the value returned by {@link #tryAcquirePermission()}
+   * @param responseNanos the time from sending the request until the response headers arrived
+   */
+  synchronized void onSuccess(long epoch, long responseNanos) {
+    onResult(epoch, responseNanos > slowCallNanos ? SLOW : 0);
+  }
+
+  /**
+   * @return the epoch of the state in which the call was permitted, which must be passed to {@link
+   *     #callFinished(long)} once the call is finished, or {@link #NOT_PERMITTED}
+   */
+  long tryAcquirePermission() {
+    // the epoch is read before the state, which is written after it on each transition
+    long currentEpoch = epoch;
+
+    if (outcomes.length == 0 || state == State.CLOSED) {
+      return currentEpoch;
+    }
+
+    synchronized (this) {
+      if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+        transitionTo(State.HALF_OPEN);
+      }
+
+      switch (state) {
+        case CLOSED:
+          return epoch;
+        case HALF_OPEN:
+          if (probesInFlight < permittedProbes) {
+            probesInFlight++;
+            return epoch;
+          }
+
+          return NOT_PERMITTED;
+        default:
+          return NOT_PERMITTED;
+      }
+    }
+  }
+
+  private void onResult(long epoch, byte outcome) {
+    if (outcomes.length == 0 || epoch != this.epoch) {
+      // the result of a call that was permitted before the breaker last changed its state
+      return;
+    }
+
+    if (state == State.HALF_OPEN) {
+      if (outcome != 0) {
+        LOGGER.warn("A probe call to {} failed or was slow", name);
+        transitionTo(State.OPEN);
+      } else if (++probeSuccesses >= permittedProbes) {
+        transitionTo(State.CLOSED);
+      }
+
+      return;
+    }
+
+    if (outcomeCount == outcomes.length) {
+      byte evictedOutcome = outcomes[outcomeIndex];
+      failedCalls -= evictedOutcome & FAILED;
+      slowCalls -= (evictedOutcome & SLOW) >> 1;
+    } else {
+      outcomeCount++;
+    }
+
+    outcomes[outcomeIndex] = outcome;
+    outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+    failedCalls += outcome & FAILED;
+    slowCalls += (outcome & SLOW) >> 1;
+
+    if (outcomeCount == outcomes.length
+        && (failedCalls * 100L >= (long) failureRateThreshold * outcomes.length
+            || slowCalls * 100L >= (long) slowCallRateThreshold * outcomes.length)) {
+      LOGGER.warn(
+          "{} of the last {} calls to {} failed and {} were slow",
+          failedCalls,
+          outcomes.length,
+          name,
+          slowCalls);
+      transitionTo(State.OPEN);
+    }
+  }
+
+  private void transitionTo(State newState) {
+    LOGGER.info("Circuit breaker of {} changed from {} to {}", name, state, newState);
+    PROXY_METRICS.circuitBreakerTransitioned(state, newState);
+
+    if (newState == State.OPEN) {
+      openUntilNanos = System.nanoTime() + openNanos;
+    }
+
+    // each state starts with a clean slate, in which the calls of earlier states do not count
+    epoch++;
+    failedCalls = 0;
+    outcomeCount = 0;
+    outcomeIndex = 0;
+    probesInFlight = 0;
+    probeSuccesses = 0;
+    slowCalls = 0;
+    state = newState;
+  }
+
+  enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+}
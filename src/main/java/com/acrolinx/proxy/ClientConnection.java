@@ -0,0 +1,119 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Tracks whether the client of an exchange is still connected, so that an editor that closes a tab
+ * does not keep a request to Acrolinx, its connection and its buffers busy until the check is done.
+ *
+ * <p>The disconnect shows when writing to the client fails. For asynchronous requests, the
+ * container reports that failure as an error of the {@link jakarta.servlet.AsyncContext}, upon
+ * which the abort action of the current phase of the exchange runs. Tomcat does not notice a client
+ * that disconnects while no response is written yet, so an exchange that still waits for the
+ * response headers of Acrolinx is not aborted.
+ */
+final class ClientConnection implements AsyncListener {
+  private Runnable abortAction;
+  private volatile boolean disconnected;
+
+  @Override
+  public void onComplete(AsyncEvent asyncEvent) {
+    // the exchange is finished
+  }
+
+  @Override
+  public void onError(AsyncEvent asyncEvent) {
+    Runnable currentAbortAction;
+
+    synchronized (this) {
+      disconnected = true;
+      currentAbortAction = abortAction;
+      abortAction = null;
+    }
+
+    if (currentAbortAction != null) {
+      currentAbortAction.run();
+    }
+  }
+
+  @Override
+  public void onStartAsync(AsyncEvent asyncEvent) {
+    // the listener is registered for each exchange
+  }
+
+  @Override
+  public void onTimeout(AsyncEvent asyncEvent) {
+    // the asynchronous requests of the proxy do not time out
+  }
+
+  /**
+   * @return {@code true} if the client disconnected or writing to it failed
+   */
+  boolean isDisconnected() {
+    return disconnected;
+  }
+
+  /**
+   * Replaces the action that cancels the request to Acrolinx once the client disconnects, and runs
+   * it right away if the client has already disconnected.
+   */
+  void onDisconnect(Runnable abortAction) {
+    synchronized (this) {
+      if (!disconnected) {
+        this.abortAction = abortAction;
+        return;
+      }
+    }
+
+    abortAction.run();
+  }
+
+  /**
+   * @return the output stream to the client that marks the client as disconnected once writing to
+   *     it fails
+   */
+  OutputStream watch(OutputStream outputStream) {
+    return new ClientOutputStream(outputStream);
+  }
+
+  private final class ClientOutputStream extends FilterOutputStream {
+    ClientOutputStream(OutputStream outputStream) {
+      super(outputStream);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        disconnected = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      try {
+        out.write(buffer, offset, length);
+      } catch (IOException e) {
+        disconnected = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        out.write(b);
+      } catch (IOException e) {
+        disconnected = true;
+        throw e;
+      }
+    }
+  }
+}
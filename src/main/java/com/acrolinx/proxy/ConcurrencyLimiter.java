@@ -0,0 +1,225 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of requests to the Acrolinx back-end in flight, so that a burst of requests
+ * does not overload the back-end and the proxy until every request times out. Requests beyond the
+ * limit wait in a bounded queue for a limited time and are rejected once the queue is full or the
+ * time is up.
+ *
+ * <p>The limit adapts to the round-trip times. Each response compares the time until its headers
+ * arrived with a long-term moving average of these times. While responses are about as fast as
+ * usual, the limit grows by roughly its square root, which allows for some queueing in the
+ * back-end. When responses slow down, the limit shrinks in proportion, and requests that time out
+ * or are answered with 503 reduce it by a tenth right away.
+ *
+ * <p>Each request belongs to a {@link TrafficClass} with its own budget and queue. The classes are
+ * ordered by priority, and a free slot goes to the waiting request of the first class that has
+ * budget left, so that a queue of report downloads does not delay interactive checks.
+ */
+final class ConcurrencyLimiter {
+  private static final CompletableFuture<Boolean> ADMITTED =
+      CompletableFuture.completedFuture(true);
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final double LIMIT_SMOOTHING = 0.2;
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+  // weights the last 600 samples like a simple moving average would
+  private static final double LONG_RTT_SMOOTHING = 2.0 / (600 + 1);
+  private static final double MIN_GRADIENT = 0.5;
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+  private static final CompletableFuture<Boolean> REJECTED =
+      CompletableFuture.completedFuture(false);
+  private static final double RTT_TOLERANCE = 1.5;
+
+  private int inFlight;
+  private double limit;
+  private double longRttNanos;
+  private final int maxLimit;
+  private final int minLimit;
+  private final long queueTimeoutNanos;
+  private final List<TrafficClass> trafficClasses;
+
+  /**
+   * @param initialLimit the limit until the first responses arrived
+   * @param trafficClasses the classes of requests in the order of their priority, of which the last
+   *     one takes all requests that match no class
+   * @param queueTimeout the maximum time that a request waits for a free slot
+   */
+  ConcurrencyLimiter(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      List<TrafficClass> trafficClasses,
+      Duration queueTimeout) {
+    if (trafficClasses.isEmpty()) {
+      throw new IllegalArgumentException("No traffic class");
+    }
+
+    this.minLimit = Math.max(minLimit, 1);
+    this.maxLimit = Math.max(maxLimit, this.minLimit);
+    this.trafficClasses = List.copyOf(trafficClasses);
+    this.queueTimeoutNanos = queueTimeout.toNanos();
+    this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+    PROXY_METRICS.concurrencyLimitChanged((int) limit);
+    PROXY_METRICS.trafficClassesChanged(this.trafficClasses);
+  }
+
+  /**
+   * @return a future that completes with {@code true} once the request may be sent, in which case
+   *     {@link #release(TrafficClass)} must be called after the exchange, or with {@code false} if
+   *     it is rejected
+   */
+  CompletableFuture<Boolean> acquire(TrafficClass trafficClass) {
+    CompletableFuture<Boolean> waiter;
+
+    synchronized (this) {
+      if (inFlight < (int) limit && trafficClass.hasBudget()) {
+        inFlight++;
+        trafficClass.requestStarted();
+        return ADMITTED;
+      }
+
+      waiter = new CompletableFuture<>();
+
+      if (!trafficClass.addWaiter(waiter)) {
+        PROXY_METRICS.requestShed(false /* timed out */);
+        return REJECTED;
+      }
+
+      PROXY_METRICS.requestQueued();
+    }
+
+    waiter
+        .completeOnTimeout(false, queueTimeoutNanos, TimeUnit.NANOSECONDS)
+        .thenAccept(
+            admitted -> {
+              if (!admitted) {
+                timedOut(trafficClass, waiter);
+              }
+            });
+    return waiter;
+  }
+
+  /**
+   * @param pathInfo the path info of the request, or {@code null}
+   * @return the first traffic class that the request matches, or the last one
+   */
+  TrafficClass classify(String pathInfo) {
+    int lastIndex = trafficClasses.size() - 1;
+
+    if (pathInfo != null) {
+      for (int i = 0; i < lastIndex; i++) {
+        if (trafficClasses.get(i).matches(pathInfo)) {
+          return trafficClasses.get(i);
+        }
+      }
+    }
+
+    return trafficClasses.get(lastIndex);
+  }
+
+  /** Rejects the waiting requests. */
+  void close() {
+    for (TrafficClass trafficClass : trafficClasses) {
+      CompletableFuture<Boolean> waiter;
+
+      while ((waiter = pollWaiter(trafficClass)) != null) {
+        waiter.complete(false);
+      }
+    }
+  }
+
+  /** Reduces the limit after a request timed out or the back-end reported that it is overloaded. */
+  synchronized void onDropped() {
+    setLimit(limit * BACKOFF_RATIO);
+  }
+
+  /**
+   * @param rttNanos the time from sending the request until the response headers arrived
+   */
+  synchronized void onSample(long rttNanos) {
+    if (longRttNanos == 0) {
+      longRttNanos = rttNanos;
+    } else {
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_SMOOTHING;
+    }
+
+    if (longRttNanos > 2.0 * rttNanos) {
+      // the back-end recovers from an overload, which the long-term average follows only slowly
+      longRttNanos *= 0.95;
+    }
+
+    if (inFlight < limit / 2) {
+      // the requests do not use the limit, so their round-trip times say nothing about it
+      return;
+    }
+
+    double gradient =
+        Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / Math.max(rttNanos, 1)));
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    setLimit(limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING);
+    // a higher limit may admit waiting requests right away
+    admitWaiters();
+  }
+
+  /** Passes the slot of a finished request on to the waiting requests in the order of priority. */
+  synchronized void release(TrafficClass trafficClass) {
+    inFlight--;
+    trafficClass.requestFinished();
+    admitWaiters();
+  }
+
+  private void admitWaiters() {
+    for (int i = 0; i < trafficClasses.size() && inFlight < (int) limit; i++) {
+      TrafficClass trafficClass = trafficClasses.get(i);
+      CompletableFuture<Boolean> waiter;
+
+      while (inFlight < (int) limit
+          && trafficClass.hasBudget()
+          && (waiter = pollWaiter(trafficClass)) != null) {
+        // a waiter that has timed out has already been rejected
+        if (waiter.complete(true)) {
+          inFlight++;
+          trafficClass.requestStarted();
+        }
+      }
+    }
+  }
+
+  private synchronized CompletableFuture<Boolean> pollWaiter(TrafficClass trafficClass) {
+    CompletableFuture<Boolean> waiter = trafficClass.pollWaiter();
+
+    if (waiter != null) {
+      PROXY_METRICS.queuedRequestDequeued();
+    }
+
+    return waiter;
+  }
+
+  private void setLimit(double newLimit) {
+    int oldLimit = (int) limit;
+    limit = Math.min(Math.max(newLimit, minLimit), maxLimit);
+
+    if ((int) limit != oldLimit) {
+      LOGGER.debug("Concurrency limit changed from {} to {}", oldLimit, (int) limit);
+      PROXY_METRICS.concurrencyLimitChanged((int) limit);
+    }
+  }
+
+  private void timedOut(TrafficClass trafficClass, CompletableFuture<Boolean> waiter) {
+    synchronized (this) {
+      if (trafficClass.removeWaiter(waiter)) {
+        PROXY_METRICS.queuedRequestDequeued();
+      }
+    }
+
+    PROXY_METRICS.requestShed(true /* timed out */);
+  }
+}
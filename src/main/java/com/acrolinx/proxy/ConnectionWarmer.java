@@ -0,0 +1,108 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens connections to the Acrolinx back-end before the first client request arrives and keeps them
+ * alive with lightweight requests. Sending several requests at once makes the HttpClient open one
+ * HTTP/1.1 connection per request, or one multiplexed HTTP/2 connection, which then stays in its
+ * pool for subsequent client requests.
+ */
+final class ConnectionWarmer implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+  private final HttpClient httpClient;
+  private volatile ScheduledFuture<?> keepAliveFuture;
+  private final int numberOfConnections;
+  private final Duration timeoutDuration;
+  private final URI warmUpUri;
+
+  ConnectionWarmer(
+      HttpClient httpClient, URI warmUpUri, int numberOfConnections, Duration timeoutDuration) {
+    this.httpClient = httpClient;
+    this.warmUpUri = warmUpUri;
+    this.numberOfConnections = numberOfConnections;
+    this.timeoutDuration = timeoutDuration;
+  }
+
+  @Override
+  public void close() {
+    ScheduledFuture<?> scheduledFuture = keepAliveFuture;
+
+    if (scheduledFuture != null) {
+      scheduledFuture.cancel(false);
+    }
+  }
+
+  /**
+   * Opens the connections in the background, so that starting the servlet does not wait for the
+   * back-end, and then keeps them alive. Failures are only logged since the back-end might simply
+   * not be up yet.
+   */
+  void start(ScheduledExecutorService scheduledExecutorService, Duration keepAliveInterval) {
+    warmUp()
+        .whenComplete(
+            (result, throwable) -> {
+              if (throwable == null) {
+                LOGGER.info("Opened {} connections to {}", numberOfConnections, warmUpUri);
+              } else {
+                LOGGER.warn(
+                    "Could not open connections to {}: {}", warmUpUri, throwable.toString());
+              }
+            });
+
+    if (!keepAliveInterval.isZero()) {
+      keepAliveFuture =
+          scheduledExecutorService.scheduleWithFixedDelay(
+              this::keepAlive,
+              keepAliveInterval.toMillis(),
+              keepAliveInterval.toMillis(),
+              TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private HttpRequest createHttpRequest() {
+    return HttpRequest.newBuilder(warmUpUri)
+        .GET()
+        .header("User-Agent", AcrolinxProxyHttpServlet.USER_AGENT)
+        .header("X-Acrolinx-Integration-Proxy-Version", AcrolinxProxyHttpServlet.PROXY_VERSION)
+        .timeout(timeoutDuration)
+        .build();
+  }
+
+  private void keepAlive() {
+    warmUp()
+        .whenComplete(
+            (result, throwable) -> {
+              if (throwable != null) {
+                LOGGER.debug("Keep-alive request to {} failed", warmUpUri, throwable);
+              }
+            });
+  }
+
+  /**
+   * @return completes once all requests are finished, exceptionally if one of them failed or timed
+   *     out
+   */
+  private CompletableFuture<Void> warmUp() {
+    CompletableFuture<?>[] responseFutures = new CompletableFuture<?>[numberOfConnections];
+    HttpRequest httpRequest = createHttpRequest();
+
+    for (int i = 0; i < numberOfConnections; i++) {
+      responseFutures[i] = httpClient.sendAsync(httpRequest, BodyHandlers.discarding());
+    }
+
+    return CompletableFuture.allOf(responseFutures);
+  }
+}
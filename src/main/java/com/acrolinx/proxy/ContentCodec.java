@@ -0,0 +1,33 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A content coding that the proxy can negotiate with the Acrolinx back-end and the client. The
+ * proxy supports gzip and deflate. Further codings such as br or zstd can be added by implementing
+ * this interface and registering the implementation as a {@link java.util.ServiceLoader} provider.
+ */
+public interface ContentCodec {
+  /**
+   * @return a stream that decodes the given encoded stream
+   */
+  InputStream decode(InputStream inputStream) throws IOException;
+
+  /**
+   * The returned stream must pass on all data written so far when it is flushed, since the proxy
+   * flushes whenever the back-end has no more data available.
+   *
+   * @param compressionLevel a level between 1 (fastest) and 9 (smallest), which codings with a
+   *     different range map onto their own
+   * @return a stream that encodes the data written to it into the given stream
+   */
+  OutputStream encode(OutputStream outputStream, int compressionLevel) throws IOException;
+
+  /**
+   * @return the name used in the {@code Accept-Encoding} and {@code Content-Encoding} headers
+   */
+  String getName();
+}
@@ -0,0 +1,56 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+
+/**
+ * Describes how a response body of the Acrolinx back-end is converted into the content coding sent
+ * to the client, together with the response headers that fit the converted body.
+ */
+final class ContentTranscoding {
+  static ContentTranscoding identity(HttpHeaders httpHeaders) {
+    return new ContentTranscoding(null, null, 0, httpHeaders);
+  }
+
+  private final int compressionLevel;
+  private final ContentCodec decoder;
+  private final ContentCodec encoder;
+  private final HttpHeaders httpHeaders;
+
+  /**
+   * @param decoder decodes the body of the back-end, or {@code null} if it is not encoded
+   * @param encoder encodes the body for the client, or {@code null} to send it unencoded
+   */
+  ContentTranscoding(
+      ContentCodec decoder, ContentCodec encoder, int compressionLevel, HttpHeaders httpHeaders) {
+    this.decoder = decoder;
+    this.encoder = encoder;
+    this.compressionLevel = compressionLevel;
+    this.httpHeaders = httpHeaders;
+  }
+
+  InputStream decode(InputStream inputStream) throws IOException {
+    return decoder == null ? inputStream : decoder.decode(inputStream);
+  }
+
+  OutputStream encode(OutputStream outputStream) throws IOException {
+    return encoder == null ? outputStream : encoder.encode(outputStream, compressionLevel);
+  }
+
+  /**
+   * @return the response headers for the client
+   */
+  HttpHeaders getHeaders() {
+    return httpHeaders;
+  }
+
+  /**
+   * @return {@code true} if the body is passed on unchanged
+   */
+  boolean isIdentity() {
+    return decoder == null && encoder == null;
+  }
+}
@@ -0,0 +1,41 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** The deflate content coding of RFC 9110, which is the zlib format and not raw deflate data. */
+final class DeflateContentCodec implements ContentCodec {
+  private static final int BUFFER_SIZE = 8192;
+
+  @Override
+  public InputStream decode(InputStream inputStream) {
+    return new InflaterInputStream(inputStream);
+  }
+
+  @Override
+  public OutputStream encode(OutputStream outputStream, int compressionLevel) {
+    Deflater deflater = new Deflater(compressionLevel);
+
+    return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE, true) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // a Deflater passed to the constructor is not released by the stream itself
+          deflater.end();
+        }
+      }
+    };
+  }
+
+  @Override
+  public String getName() {
+    return "deflate";
+  }
+}
@@ -0,0 +1,211 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Enforces the total timeout of an exchange and the idle timeout between two parts of the response
+ * body, which the timeout of the HttpClient does not cover once the response headers arrived.
+ *
+ * <p>Instead of a timer for each part of the body, a single task is scheduled for the earliest time
+ * at which a timeout could expire. If the exchange made progress in the meantime, the task
+ * schedules itself again for the new earliest time. The idle time only counts while the proxy waits
+ * for Acrolinx, so that a slow client does not abort the exchange.
+ */
+final class ExchangeTimer implements Runnable {
+  private Consumer<HttpTimeoutException> abortAction;
+  private volatile boolean finished;
+  private final long idleTimeoutNanos;
+  private ScheduledExecutorService scheduledExecutorService;
+  private volatile ScheduledFuture<?> scheduledFuture;
+  private final long startNanos;
+  private volatile HttpTimeoutException timeoutException;
+  private final long totalTimeoutNanos;
+  private volatile boolean waiting;
+  private volatile long waitingStartNanos;
+
+  /**
+   * @param startNanos the time at which the proxy received the request
+   * @param totalTimeoutNanos the maximum time of the whole exchange, or {@link
+   *     TimeoutPolicy#NO_TIMEOUT}
+   * @param idleTimeoutNanos the maximum time between two parts of the response body, or {@link
+   *     TimeoutPolicy#NO_TIMEOUT}
+   */
+  ExchangeTimer(long startNanos, long totalTimeoutNanos, long idleTimeoutNanos) {
+    this.startNanos = startNanos;
+    this.totalTimeoutNanos = totalTimeoutNanos;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  @Override
+  public void run() {
+    if (finished) {
+      return;
+    }
+
+    long nowNanos = System.nanoTime();
+    long delayNanos = getRemainingNanos(nowNanos);
+
+    if (delayNanos <= 0) {
+      expire("Exchange timed out");
+      return;
+    }
+
+    if (idleTimeoutNanos != TimeoutPolicy.NO_TIMEOUT) {
+      long idleRemainingNanos =
+          waiting ? idleTimeoutNanos - (nowNanos - waitingStartNanos) : idleTimeoutNanos;
+
+      if (idleRemainingNanos <= 0) {
+        expire("Response body idle timeout");
+        return;
+      }
+
+      delayNanos = Math.min(delayNanos, idleRemainingNanos);
+    }
+
+    schedule(delayNanos);
+  }
+
+  /**
+   * @return the time left until the total timeout expires, or {@link TimeoutPolicy#NO_TIMEOUT}
+   */
+  long getRemainingNanos() {
+    return getRemainingNanos(System.nanoTime());
+  }
+
+  boolean hasDeadline() {
+    return totalTimeoutNanos != TimeoutPolicy.NO_TIMEOUT;
+  }
+
+  /**
+   * @return {@code true} if the exchange was aborted since a timeout expired
+   */
+  boolean isExpired() {
+    return timeoutException != null;
+  }
+
+  /**
+   * Starts to watch the transfer of the response body.
+   *
+   * @param abortAction aborts the transfer once a timeout expired
+   */
+  void start(
+      ScheduledExecutorService scheduledExecutorService,
+      Consumer<HttpTimeoutException> abortAction) {
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.abortAction = abortAction;
+    run();
+  }
+
+  /** Stops to watch the exchange once it is finished. */
+  void stop() {
+    finished = true;
+    ScheduledFuture<?> future = scheduledFuture;
+
+    if (future != null) {
+      future.cancel(false);
+    }
+  }
+
+  /** Called before the proxy waits for the next part of the response body. */
+  void waitingStarted() {
+    waitingStartNanos = System.nanoTime();
+    waiting = true;
+  }
+
+  /** Called once the next part of the response body arrived. */
+  void waitingFinished() {
+    waiting = false;
+  }
+
+  /**
+   * Starts to watch the transfer of a blocking response body, which is closed once a timeout
+   * expired.
+   *
+   * @return the response body that throws an {@link HttpTimeoutException} once a timeout expired
+   */
+  InputStream watch(InputStream inputStream, ScheduledExecutorService scheduledExecutorService) {
+    TimedInputStream timedInputStream = new TimedInputStream(inputStream);
+    start(scheduledExecutorService, exception -> timedInputStream.abort());
+    return timedInputStream;
+  }
+
+  private void expire(String message) {
+    finished = true;
+    timeoutException = new HttpTimeoutException(message);
+    abortAction.accept(timeoutException);
+  }
+
+  private long getRemainingNanos(long nowNanos) {
+    if (totalTimeoutNanos == TimeoutPolicy.NO_TIMEOUT) {
+      return TimeoutPolicy.NO_TIMEOUT;
+    }
+
+    return totalTimeoutNanos - (nowNanos - startNanos);
+  }
+
+  private void schedule(long delayNanos) {
+    ScheduledFuture<?> future =
+        scheduledExecutorService.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+    scheduledFuture = future;
+
+    // the exchange may have finished while the task was scheduled
+    if (finished) {
+      future.cancel(false);
+    }
+  }
+
+  private final class TimedInputStream extends FilterInputStream {
+    TimedInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+      waitingStarted();
+
+      try {
+        return super.read();
+      } catch (IOException e) {
+        throw translate(e);
+      } finally {
+        waitingFinished();
+      }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      waitingStarted();
+
+      try {
+        return super.read(buffer, offset, length);
+      } catch (IOException e) {
+        throw translate(e);
+      } finally {
+        waitingFinished();
+      }
+    }
+
+    /** Closing the body of the HttpClient wakes up a thread that is blocked in a read. */
+    private void abort() {
+      try {
+        in.close();
+      } catch (IOException e) {
+        // the read fails with an HttpTimeoutException anyway
+      }
+    }
+
+    /** Replaces the failure of a read from the closed body with the reason why it was closed. */
+    private IOException translate(IOException exception) {
+      HttpTimeoutException expiredTimeoutException = timeoutException;
+      return expiredTimeoutException == null ? exception : expiredTimeoutException;
+    }
+  }
+}
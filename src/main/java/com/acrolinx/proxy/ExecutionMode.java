@@ -0,0 +1,22 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+/** Defines how the proxy servlet waits for the Acrolinx back-end. */
+enum ExecutionMode {
+  /**
+   * The request body is uploaded with Servlet non-blocking I/O, the request is sent with {@code
+   * HttpClient.sendAsync} and the response body is streamed back to the client as it arrives. No
+   * container thread is held while waiting for the Acrolinx back-end.
+   */
+  ASYNC,
+
+  /** The container thread blocks until the proxied exchange is complete. */
+  SYNC,
+
+  /**
+   * The container thread is released right away and the proxied exchange runs on a virtual thread,
+   * which also runs the tasks of the HttpClient. Blocking on the network only parks the virtual
+   * thread. Requires Java 21 or later.
+   */
+  VIRTUAL_THREAD
+}
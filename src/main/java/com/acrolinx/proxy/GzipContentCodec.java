@@ -0,0 +1,31 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+final class GzipContentCodec implements ContentCodec {
+  private static final int BUFFER_SIZE = 8192;
+
+  @Override
+  public InputStream decode(InputStream inputStream) throws IOException {
+    return new GZIPInputStream(inputStream, BUFFER_SIZE);
+  }
+
+  @Override
+  public OutputStream encode(OutputStream outputStream, int compressionLevel) throws IOException {
+    return new GZIPOutputStream(outputStream, BUFFER_SIZE, true) {
+      {
+        def.setLevel(compressionLevel);
+      }
+    };
+  }
+
+  @Override
+  public String getName() {
+    return "gzip";
+  }
+}
@@ -0,0 +1,165 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies header names without allocating. The names are grouped by length in advance, so a
+ * lookup only compares the name with the few known names of the same length. Header names are ASCII
+ * tokens, so they are compared ignoring ASCII case only, independently of the default locale.
+ */
+final class HeaderClassifier {
+  enum HeaderClass {
+    /** The HttpClient sets the header for each request to the Acrolinx back-end. */
+    CLIENT_MANAGED(false, true),
+    /** The container and the HttpClient frame the bodies on their own. */
+    CONTENT_LENGTH(false, false),
+    /** The content type of responses is set via {@code setContentType}. */
+    CONTENT_TYPE(true, false),
+    /** Only the cookies that are meant for Acrolinx are forwarded. */
+    COOKIE(true, true),
+    /** The header is forwarded unchanged. */
+    END_TO_END(true, true),
+    /** The header only applies to a single connection, see RFC 9110, section 7.6.1. */
+    HOP_BY_HOP(false, false);
+
+    private final boolean forwardedToAcrolinx;
+    private final boolean forwardedToClient;
+
+    HeaderClass(boolean forwardedToAcrolinx, boolean forwardedToClient) {
+      this.forwardedToAcrolinx = forwardedToAcrolinx;
+      this.forwardedToClient = forwardedToClient;
+    }
+
+    boolean isForwardedToAcrolinx() {
+      return forwardedToAcrolinx;
+    }
+
+    boolean isForwardedToClient() {
+      return forwardedToClient;
+    }
+  }
+
+  /**
+   * Checks if a header is named in the comma-separated values of a {@code Connection} header, which
+   * makes it a hop-by-hop header as well.
+   */
+  static boolean isListed(List<String> headerValues, String headerName) {
+    for (int i = 0; i < headerValues.size(); i++) {
+      String headerValue = headerValues.get(i);
+      int index = 0;
+
+      while (index < headerValue.length()) {
+        int separatorIndex = headerValue.indexOf(',', index);
+        int elementEnd = separatorIndex == -1 ? headerValue.length() : separatorIndex;
+        int elementStart = index;
+
+        while (elementStart < elementEnd
+            && isOptionalWhitespace(headerValue.charAt(elementStart))) {
+          elementStart++;
+        }
+
+        while (elementEnd > elementStart
+            && isOptionalWhitespace(headerValue.charAt(elementEnd - 1))) {
+          elementEnd--;
+        }
+
+        if (elementEnd - elementStart == headerName.length()
+            && regionMatchesIgnoreAsciiCase(headerValue, elementStart, headerName)) {
+          return true;
+        }
+
+        index = separatorIndex == -1 ? headerValue.length() : separatorIndex + 1;
+      }
+    }
+
+    return false;
+  }
+
+  static boolean isOptionalWhitespace(char character) {
+    return character == ' ' || character == '\t';
+  }
+
+  /**
+   * @return {@code true} if the string contains the other string at the offset, ignoring ASCII case
+   */
+  static boolean regionMatchesIgnoreAsciiCase(String string, int offset, String otherString) {
+    if (offset < 0 || string.length() - offset < otherString.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < otherString.length(); i++) {
+      if (toLowerCaseAscii(string.charAt(offset + i)) != toLowerCaseAscii(otherString.charAt(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static char toLowerCaseAscii(char character) {
+    return character >= 'A' && character <= 'Z' ? (char) (character + ('a' - 'A')) : character;
+  }
+
+  private static String toLowerCaseAscii(String string) {
+    StringBuilder stringBuilder = new StringBuilder(string.length());
+
+    for (int i = 0; i < string.length(); i++) {
+      char character = string.charAt(i);
+
+      if (character > 0x7f) {
+        throw new IllegalArgumentException("Header name is not ASCII: " + string);
+      }
+
+      stringBuilder.append(toLowerCaseAscii(character));
+    }
+
+    return stringBuilder.toString();
+  }
+
+  private final HeaderClass[][] headerClassesByLength;
+  private final String[][] headerNamesByLength;
+
+  /**
+   * @param headerClasses the classes of the known header names, which must be ASCII
+   */
+  HeaderClassifier(Map<String, HeaderClass> headerClasses) {
+    int maxLength = 0;
+
+    for (String headerName : headerClasses.keySet()) {
+      maxLength = Math.max(maxLength, headerName.length());
+    }
+
+    headerClassesByLength = new HeaderClass[maxLength + 1][0];
+    headerNamesByLength = new String[maxLength + 1][0];
+
+    headerClasses.forEach(
+        (headerName, headerClass) -> {
+          int length = headerName.length();
+          int index = headerNamesByLength[length].length;
+
+          headerNamesByLength[length] = Arrays.copyOf(headerNamesByLength[length], index + 1);
+          headerNamesByLength[length][index] = toLowerCaseAscii(headerName);
+          headerClassesByLength[length] = Arrays.copyOf(headerClassesByLength[length], index + 1);
+          headerClassesByLength[length][index] = headerClass;
+        });
+  }
+
+  HeaderClass classify(String headerName) {
+    int length = headerName.length();
+
+    if (length < headerNamesByLength.length) {
+      String[] headerNames = headerNamesByLength[length];
+
+      for (int i = 0; i < headerNames.length; i++) {
+        if (regionMatchesIgnoreAsciiCase(headerName, 0, headerNames[i])) {
+          return headerClassesByLength[length][i];
+        }
+      }
+    }
+
+    return HeaderClass.END_TO_END;
+  }
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram with fixed buckets in the Prometheus text format. Recording only updates atomic
+ * counters and never allocates.
+ */
+final class LatencyHistogram {
+  private static final String[] BUCKET_LABELS = {
+    "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10", "30", "60"
+  };
+  private static final long[] BUCKET_UPPER_BOUNDS_NANOS = new long[BUCKET_LABELS.length];
+
+  static {
+    for (int i = 0; i < BUCKET_LABELS.length; i++) {
+      BUCKET_UPPER_BOUNDS_NANOS[i] = new BigDecimal(BUCKET_LABELS[i]).movePointRight(9).longValue();
+    }
+  }
+
+  /** Holds the observations of each bucket, not the cumulative counts. The last one is +Inf. */
+  private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_LABELS.length + 1);
+
+  private final AtomicLong sumNanos = new AtomicLong();
+
+  long getCount() {
+    long count = 0;
+
+    for (int i = 0; i < bucketCounts.length(); i++) {
+      count += bucketCounts.get(i);
+    }
+
+    return count;
+  }
+
+  /**
+   * Estimates a percentile like Prometheus does, by interpolating linearly within the bucket that
+   * holds it.
+   *
+   * @param percentile the percentile between 0 and 100
+   * @return the estimated duration, or the upper bound of the last finite bucket if the percentile
+   *     falls into the +Inf bucket, or {@code 0} if nothing was recorded
+   */
+  long getPercentileNanos(double percentile) {
+    long count = getCount();
+
+    if (count == 0) {
+      return 0;
+    }
+
+    double rank = count * percentile / 100;
+    long cumulativeCount = 0;
+
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+      long bucketCount = bucketCounts.get(i);
+
+      if (cumulativeCount + bucketCount >= rank && bucketCount > 0) {
+        long lowerBoundNanos = i == 0 ? 0 : BUCKET_UPPER_BOUNDS_NANOS[i - 1];
+        double fraction = (rank - cumulativeCount) / bucketCount;
+        return lowerBoundNanos
+            + (long) ((BUCKET_UPPER_BOUNDS_NANOS[i] - lowerBoundNanos) * fraction);
+      }
+
+      cumulativeCount += bucketCount;
+    }
+
+    return BUCKET_UPPER_BOUNDS_NANOS[BUCKET_UPPER_BOUNDS_NANOS.length - 1];
+  }
+
+  void record(long durationNanos) {
+    int bucketIndex = 0;
+
+    while (bucketIndex < BUCKET_UPPER_BOUNDS_NANOS.length
+        && durationNanos > BUCKET_UPPER_BOUNDS_NANOS[bucketIndex]) {
+      bucketIndex++;
+    }
+
+    bucketCounts.incrementAndGet(bucketIndex);
+    sumNanos.addAndGet(durationNanos);
+  }
+
+  /**
+   * @param labels the labels of the series without braces, for example {@code method="GET"}
+   */
+  void writeTo(StringBuilder stringBuilder, String name, String labels) {
+    long cumulativeCount = 0;
+
+    for (int i = 0; i < bucketCounts.length(); i++) {
+      cumulativeCount += bucketCounts.get(i);
+      String bucketLabel = i < BUCKET_LABELS.length ? BUCKET_LABELS[i] : "+Inf";
+      stringBuilder
+          .append(name)
+          .append("_bucket{")
+          .append(labels)
+          .append(",le=\"")
+          .append(bucketLabel)
+          .append("\"} ")
+          .append(cumulativeCount)
+          .append('\n');
+    }
+
+    stringBuilder
+        .append(name)
+        .append("_sum{")
+        .append(labels)
+        .append("} ")
+        .append(sumNanos.get() / 1e9)
+        .append('\n');
+    stringBuilder
+        .append(name)
+        .append("_count{")
+        .append(labels)
+        .append("} ")
+        .append(cumulativeCount)
+        .append('\n');
+  }
+}
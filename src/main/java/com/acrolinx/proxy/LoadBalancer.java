@@ -0,0 +1,355 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distributes the requests over the configured Acrolinx back-end nodes. The proxy builds each
+ * request against the first node, so that the response cache and the request coalescing do not
+ * depend on the node, and only rewrites the URI when the request is sent to another node.
+ *
+ * <p>Requests with an affinity key, which is an identifier in the path or the value of a cookie,
+ * are assigned by rendezvous hashing. Every request with the same key goes to the same node, and
+ * only the keys of a node that is removed or unavailable move to other nodes.
+ *
+ * <p>Unavailable nodes are skipped. If no node is available, the requests are distributed over all
+ * nodes as if they were available, since failing all requests right away would be no better.
+ */
+final class LoadBalancer {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long NO_AFFINITY = 0;
+
+  /**
+   * @return {@code true} if the node may receive the request, which depends on chance while the
+   *     node is being readmitted
+   */
+  private static boolean admits(Upstream upstream, long nowNanos) {
+    double admissionProbability = upstream.getAdmissionProbability(nowNanos);
+    return admissionProbability >= 1
+        || ThreadLocalRandom.current().nextDouble() < admissionProbability;
+  }
+
+  private static long getPathIdHash(String path) {
+    if (path == null) {
+      return NO_AFFINITY;
+    }
+
+    long hash = NO_AFFINITY;
+    int index = 0;
+
+    while (index < path.length()) {
+      int segmentEnd = path.indexOf('/', index);
+
+      if (segmentEnd == -1) {
+        segmentEnd = path.length();
+      }
+
+      if (segmentEnd > index && ProxyMetrics.isIdentifier(path, index, segmentEnd)) {
+        hash = hash(hash == NO_AFFINITY ? FNV_OFFSET_BASIS : hash, path, index, segmentEnd);
+      }
+
+      index = segmentEnd + 1;
+    }
+
+    return hash;
+  }
+
+  private static long hash(long hash, String string, int start, int end) {
+    for (int i = start; i < end; i++) {
+      hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+    }
+
+    return hash;
+  }
+
+  /** The finalizer of SplitMix64, which spreads similar keys over the whole range. */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+
+  private final boolean affinityByPathId;
+  private final String affinityCookieName;
+  private final AtomicInteger nextIndex = new AtomicInteger();
+  private final LoadBalancingStrategy strategy;
+  private final long[] upstreamHashes;
+  private final Upstream[] upstreams;
+
+  /**
+   * @param affinityCookieName the name of the cookie whose value pins requests to a node, or {@code
+   *     null}, which must start with {@code X-Acrolinx-} since the affinity key is read from the
+   *     request to Acrolinx and other cookies are not forwarded
+   * @param affinityByPathId {@code true} to pin requests with identifiers in the path to a node
+   */
+  LoadBalancer(
+      List<Upstream> upstreams,
+      LoadBalancingStrategy strategy,
+      String affinityCookieName,
+      boolean affinityByPathId) {
+    if (upstreams.isEmpty()) {
+      throw new IllegalArgumentException("No Acrolinx URL");
+    }
+
+    if (affinityCookieName != null
+        && !HeaderClassifier.regionMatchesIgnoreAsciiCase(
+            affinityCookieName, 0, AcrolinxProxyHttpServlet.ACROLINX_COOKIE_NAME_PREFIX)) {
+      throw new IllegalArgumentException(
+          "Affinity cookie is not forwarded to Acrolinx: " + affinityCookieName);
+    }
+
+    this.strategy = strategy;
+    this.affinityCookieName = affinityCookieName;
+    this.affinityByPathId = affinityByPathId;
+
+    this.upstreams = upstreams.toArray(new Upstream[0]);
+    upstreamHashes = new long[this.upstreams.length];
+
+    for (int i = 0; i < this.upstreams.length; i++) {
+      String url = this.upstreams[i].getUrl();
+      upstreamHashes[i] = mix(hash(FNV_OFFSET_BASIS, url, 0, url.length()));
+    }
+  }
+
+  /**
+   * @return the node that the requests are built against
+   */
+  Upstream getPrimaryUpstream() {
+    return upstreams[0];
+  }
+
+  /**
+   * @param uri the URI of a request built against the primary node
+   * @return the URI of the same resource on the given node
+   */
+  URI getUpstreamUri(URI uri, Upstream upstream) {
+    if (upstream == upstreams[0]) {
+      return uri;
+    }
+
+    String pathAndQuery = uri.toString().substring(upstreams[0].getUrl().length());
+    return URI.create(upstream.getUrl() + pathAndQuery);
+  }
+
+  List<Upstream> getUpstreams() {
+    return List.of(upstreams);
+  }
+
+  Upstream select(HttpRequest httpRequest) {
+    if (upstreams.length == 1) {
+      return upstreams[0];
+    }
+
+    long nowNanos = System.nanoTime();
+    boolean anyAvailable = false;
+
+    for (Upstream upstream : upstreams) {
+      anyAvailable |= upstream.isAvailable(nowNanos);
+    }
+
+    long affinityHash = getAffinityHash(httpRequest);
+
+    if (affinityHash != NO_AFFINITY) {
+      return selectByRendezvousHashing(affinityHash, nowNanos, anyAvailable);
+    }
+
+    // ties are broken by rotating the first candidate, so idle nodes are used in turn
+    int firstIndex = Math.floorMod(nextIndex.getAndIncrement(), upstreams.length);
+
+    switch (strategy) {
+      case EWMA:
+        return selectByLowestCost(
+            firstIndex, nowNanos, anyAvailable, true /* weighted by latency */);
+      case LEAST_OUTSTANDING:
+        return selectByLowestCost(
+            firstIndex, nowNanos, anyAvailable, false /* weighted by latency */);
+      default:
+        return selectInTurn(firstIndex, nowNanos, anyAvailable);
+    }
+  }
+
+  /**
+   * Selects the node for a request that is retried or hedged, which should go to another node than
+   * the one that failed or is slow, regardless of its affinity.
+   *
+   * @return the available node other than the given one with the fewest requests in flight, or
+   *     {@code null} if there is none
+   */
+  Upstream selectAlternative(Upstream excludedUpstream) {
+    long nowNanos = System.nanoTime();
+    // ties are broken at random, so that the rotation of the other requests is not disturbed
+    int firstIndex = ThreadLocalRandom.current().nextInt(upstreams.length);
+    Upstream selectedUpstream = null;
+
+    for (int i = 0; i < upstreams.length; i++) {
+      Upstream upstream = upstreams[(firstIndex + i) % upstreams.length];
+
+      if (upstream == excludedUpstream || !upstream.isAvailable(nowNanos)) {
+        continue;
+      }
+
+      if (selectedUpstream == null
+          || upstream.getOutstandingRequests() < selectedUpstream.getOutstandingRequests()) {
+        selectedUpstream = upstream;
+      }
+    }
+
+    return selectedUpstream;
+  }
+
+  /**
+   * @return a hash of the affinity key of the request, or {@link #NO_AFFINITY} if it has none
+   */
+  private long getAffinityHash(HttpRequest httpRequest) {
+    if (affinityCookieName != null) {
+      List<String> cookieHeaderValues = httpRequest.headers().allValues("Cookie");
+
+      for (int i = 0; i < cookieHeaderValues.size(); i++) {
+        long cookieHash = getCookieHash(cookieHeaderValues.get(i));
+
+        if (cookieHash != NO_AFFINITY) {
+          return cookieHash;
+        }
+      }
+    }
+
+    if (affinityByPathId) {
+      return getPathIdHash(httpRequest.uri().getRawPath());
+    }
+
+    return NO_AFFINITY;
+  }
+
+  private long getCookieHash(String headerValue) {
+    int index = 0;
+
+    while (index < headerValue.length()) {
+      int separatorIndex = headerValue.indexOf(';', index);
+      int cookieEnd = separatorIndex == -1 ? headerValue.length() : separatorIndex;
+      int nameStart = index;
+
+      while (nameStart < cookieEnd
+          && HeaderClassifier.isOptionalWhitespace(headerValue.charAt(nameStart))) {
+        nameStart++;
+      }
+
+      int valueStart = nameStart + affinityCookieName.length() + 1;
+
+      if (valueStart <= cookieEnd
+          && headerValue.startsWith(affinityCookieName, nameStart)
+          && headerValue.charAt(valueStart - 1) == '=') {
+        return hash(FNV_OFFSET_BASIS, headerValue, valueStart, cookieEnd);
+      }
+
+      index = cookieEnd + 1;
+    }
+
+    return NO_AFFINITY;
+  }
+
+  /**
+   * Nodes that have not responded yet are assumed to be as fast as the fastest node, so that they
+   * are neither flooded with requests nor avoided. The costs of nodes that are being readmitted are
+   * raised in inverse proportion to the share of requests that they accept.
+   */
+  private Upstream selectByLowestCost(
+      int firstIndex, long nowNanos, boolean anyAvailable, boolean weightedByLatency) {
+    double lowestLatencyNanos = Double.MAX_VALUE;
+
+    if (weightedByLatency) {
+      for (Upstream upstream : upstreams) {
+        if (upstream.getLatencyNanos() > 0) {
+          lowestLatencyNanos = Math.min(lowestLatencyNanos, upstream.getLatencyNanos());
+        }
+      }
+    }
+
+    if (lowestLatencyNanos == Double.MAX_VALUE) {
+      // without any latency, the costs only depend on the requests in flight
+      lowestLatencyNanos = 1;
+    }
+
+    Upstream selectedUpstream = null;
+    double lowestCost = Double.MAX_VALUE;
+
+    for (int i = 0; i < upstreams.length; i++) {
+      Upstream upstream = upstreams[(firstIndex + i) % upstreams.length];
+
+      if (anyAvailable && !upstream.isAvailable(nowNanos)) {
+        continue;
+      }
+
+      double cost = upstream.getOutstandingRequests() + 1.0;
+
+      if (weightedByLatency) {
+        double latencyNanos = upstream.getLatencyNanos();
+        cost *= latencyNanos > 0 ? latencyNanos : lowestLatencyNanos;
+      }
+
+      cost /= upstream.getAdmissionProbability(nowNanos);
+
+      if (selectedUpstream == null || cost < lowestCost) {
+        selectedUpstream = upstream;
+        lowestCost = cost;
+      }
+    }
+
+    return selectedUpstream;
+  }
+
+  /**
+   * Picks the available node with the highest hash of the key combined with the node. The key stays
+   * with its node while the node is being readmitted.
+   */
+  private Upstream selectByRendezvousHashing(
+      long affinityHash, long nowNanos, boolean anyAvailable) {
+    int selectedIndex = 0;
+    long highestScore = Long.MIN_VALUE;
+
+    for (int i = 0; i < upstreams.length; i++) {
+      if (anyAvailable && !upstreams[i].isAvailable(nowNanos)) {
+        continue;
+      }
+
+      long score = mix(affinityHash ^ upstreamHashes[i]);
+
+      if (score > highestScore) {
+        highestScore = score;
+        selectedIndex = i;
+      }
+    }
+
+    return upstreams[selectedIndex];
+  }
+
+  /**
+   * @return the next node that is available and admits the request, or the next available node if
+   *     all of them turn the request away while they are being readmitted
+   */
+  private Upstream selectInTurn(int firstIndex, long nowNanos, boolean anyAvailable) {
+    Upstream firstAvailableUpstream = null;
+
+    for (int i = 0; i < upstreams.length; i++) {
+      Upstream upstream = upstreams[(firstIndex + i) % upstreams.length];
+
+      if (anyAvailable && !upstream.isAvailable(nowNanos)) {
+        continue;
+      }
+
+      if (admits(upstream, nowNanos)) {
+        return upstream;
+      }
+
+      if (firstAvailableUpstream == null) {
+        firstAvailableUpstream = upstream;
+      }
+    }
+
+    return firstAvailableUpstream;
+  }
+}
@@ -0,0 +1,18 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+/** Defines how the proxy servlet picks one of several Acrolinx back-end nodes for a request. */
+enum LoadBalancingStrategy {
+  /**
+   * Prefers the node with the lowest product of its recent latency and its requests in flight. The
+   * latency is a moving average that decays over about ten seconds, but follows a slower response
+   * right away, so a node that slows down loses traffic quickly.
+   */
+  EWMA,
+
+  /** Prefers the node with the fewest requests in flight. */
+  LEAST_OUTSTANDING,
+
+  /** Sends the requests to the nodes in turn. */
+  ROUND_ROBIN
+}
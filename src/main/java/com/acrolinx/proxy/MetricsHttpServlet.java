@@ -0,0 +1,31 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exposes the metrics of the proxy in the Prometheus text format. Map this servlet to a path that
+ * only your monitoring system can reach, since the metrics reveal which Acrolinx APIs are used.
+ */
+public class MetricsHttpServlet extends HttpServlet {
+  public static final String METRICS_PATH = "acrolinx-proxy-sample/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  public void doGet(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
+      throws IOException {
+    String metrics = ProxyMetrics.getInstance().scrape();
+
+    httpServletResponse.setContentType(CONTENT_TYPE);
+    httpServletResponse.setHeader("Cache-Control", "no-store");
+
+    try (Writer writer = httpServletResponse.getWriter()) {
+      writer.write(metrics);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches request paths against glob patterns. In a pattern, {@code *} matches any characters
+ * within a path segment and {@code **} matches any characters including slashes.
+ */
+final class PathPatterns {
+  /**
+   * @return {@code true} if the path matches at least one of the patterns
+   */
+  static boolean matches(List<String> pathPatterns, String path) {
+    for (int i = 0; i < pathPatterns.size(); i++) {
+      if (matches(pathPatterns.get(i), 0, path, 0)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @param pathPatterns comma-separated path patterns
+   */
+  static List<String> parse(String pathPatterns) {
+    List<String> parsedPathPatterns = new ArrayList<>();
+
+    for (String pathPattern : pathPatterns.split(",")) {
+      if (!pathPattern.isBlank()) {
+        parsedPathPatterns.add(pathPattern.trim());
+      }
+    }
+
+    return parsedPathPatterns;
+  }
+
+  private static boolean matches(String pattern, int patternIndex, String path, int pathIndex) {
+    while (patternIndex < pattern.length()) {
+      char patternCharacter = pattern.charAt(patternIndex);
+
+      if (patternCharacter == '*') {
+        boolean anySegments =
+            patternIndex + 1 < pattern.length() && pattern.charAt(patternIndex + 1) == '*';
+        int nextPatternIndex = patternIndex + (anySegments ? 2 : 1);
+
+        for (int end = pathIndex; end <= path.length(); end++) {
+          if (matches(pattern, nextPatternIndex, path, end)) {
+            return true;
+          }
+
+          if (!anySegments && end < path.length() && path.charAt(end) == '/') {
+            return false;
+          }
+        }
+
+        return false;
+      }
+
+      if (pathIndex >= path.length() || path.charAt(pathIndex) != patternCharacter) {
+        return false;
+      }
+
+      patternIndex++;
+      pathIndex++;
+    }
+
+    return pathIndex == path.length();
+  }
+
+  private PathPatterns() {
+    throw new IllegalStateException();
+  }
+}
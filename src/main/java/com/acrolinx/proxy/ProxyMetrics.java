@@ -0,0 +1,790 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of all proxied exchanges and renders them in the Prometheus text format. The
+ * recording methods never allocate in the steady state. Requests are grouped by method and by
+ * route, which is the path of the Acrolinx API with identifiers replaced by {@code {id}}, for
+ * example {@code /api/v1/checking/checks/{id}}. Only the first routes get series of their own, so
+ * that arbitrary paths cannot make the number of series grow without bounds.
+ */
+final class ProxyMetrics {
+  static final int MAX_ROUTES = 256;
+  private static final int[] ERROR_STATUS_CODES = {413, 429, 500, 502, 503, 504};
+  private static final String ID_PLACEHOLDER = "{id}";
+  // appending the placeholder multiplies the hash code by 31 once per character
+  private static final int ID_PLACEHOLDER_HASH_MULTIPLIER = 31 * 31 * 31 * 31;
+  private static final int MAX_FIXED_SEGMENT_LENGTH = 32;
+  private static final String[] METHODS = {"DELETE", "GET", "POST", "PUT", "OTHER"};
+  private static final String OTHER_ROUTE = "{other}";
+  // a power of two that keeps the open addressing table at most a quarter full
+  private static final int ROUTE_TABLE_SIZE = Integer.highestOneBit(MAX_ROUTES) * 4;
+  private static final Version[] VERSIONS = Version.values();
+  // created last, since its fields depend on the other constants
+  private static final ProxyMetrics INSTANCE = new ProxyMetrics();
+
+  static ProxyMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the hash code of the normalized path without creating it
+   */
+  static int hashRoute(String path) {
+    int hashCode = 0;
+    int index = 0;
+
+    while (index < path.length()) {
+      if (path.charAt(index) == '/') {
+        hashCode = 31 * hashCode + '/';
+        index++;
+        continue;
+      }
+
+      int segmentEnd = getSegmentEnd(path, index);
+
+      if (isIdentifier(path, index, segmentEnd)) {
+        hashCode = ID_PLACEHOLDER_HASH_MULTIPLIER * hashCode + ID_PLACEHOLDER.hashCode();
+      } else {
+        for (int i = index; i < segmentEnd; i++) {
+          hashCode = 31 * hashCode + path.charAt(i);
+        }
+      }
+
+      index = segmentEnd;
+    }
+
+    return hashCode;
+  }
+
+  /**
+   * A path segment is considered an identifier if it contains a digit, except for API versions such
+   * as {@code v1}, or a percent-encoded character, or if it is very long.
+   */
+  static boolean isIdentifier(String path, int segmentStart, int segmentEnd) {
+    if (segmentEnd - segmentStart > MAX_FIXED_SEGMENT_LENGTH) {
+      return true;
+    }
+
+    boolean apiVersion = segmentEnd - segmentStart >= 2 && path.charAt(segmentStart) == 'v';
+    boolean containsDigit = false;
+
+    for (int i = segmentStart; i < segmentEnd; i++) {
+      char character = path.charAt(i);
+
+      if (character == '%') {
+        return true;
+      }
+
+      if (character >= '0' && character <= '9') {
+        containsDigit = true;
+      } else if (i > segmentStart) {
+        apiVersion = false;
+      }
+    }
+
+    return containsDigit && !apiVersion;
+  }
+
+  /**
+   * @return {@code true} if the route is the normalized form of the path
+   */
+  static boolean matchesRoute(String route, String path) {
+    int routeIndex = 0;
+    int index = 0;
+
+    while (index < path.length()) {
+      if (path.charAt(index) == '/') {
+        if (routeIndex >= route.length() || route.charAt(routeIndex) != '/') {
+          return false;
+        }
+
+        routeIndex++;
+        index++;
+        continue;
+      }
+
+      int segmentEnd = getSegmentEnd(path, index);
+
+      if (isIdentifier(path, index, segmentEnd)) {
+        if (!route.startsWith(ID_PLACEHOLDER, routeIndex)) {
+          return false;
+        }
+
+        routeIndex += ID_PLACEHOLDER.length();
+      } else {
+        if (!route.regionMatches(routeIndex, path, index, segmentEnd - index)) {
+          return false;
+        }
+
+        routeIndex += segmentEnd - index;
+      }
+
+      index = segmentEnd;
+    }
+
+    return routeIndex == route.length();
+  }
+
+  static String normalizeRoute(String path) {
+    StringBuilder stringBuilder = new StringBuilder(path.length());
+    int index = 0;
+
+    while (index < path.length()) {
+      if (path.charAt(index) == '/') {
+        stringBuilder.append('/');
+        index++;
+        continue;
+      }
+
+      int segmentEnd = getSegmentEnd(path, index);
+
+      if (isIdentifier(path, index, segmentEnd)) {
+        stringBuilder.append(ID_PLACEHOLDER);
+      } else {
+        stringBuilder.append(path, index, segmentEnd);
+      }
+
+      index = segmentEnd;
+    }
+
+    return stringBuilder.toString();
+  }
+
+  private static void appendHeader(
+      StringBuilder stringBuilder, String name, String type, String help) {
+    stringBuilder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    stringBuilder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static String escapeLabelValue(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static int getMethodIndex(String method) {
+    switch (method) {
+      case "DELETE":
+        return 0;
+      case "GET":
+        return 1;
+      case "POST":
+        return 2;
+      case "PUT":
+        return 3;
+      default:
+        return 4;
+    }
+  }
+
+  private static String getPath(HttpRequest httpRequest) {
+    String path = httpRequest.uri().getRawPath();
+    return path == null ? "" : path;
+  }
+
+  private static int getSegmentEnd(String path, int segmentStart) {
+    int segmentEnd = path.indexOf('/', segmentStart);
+    return segmentEnd == -1 ? path.length() : segmentEnd;
+  }
+
+  private final LongAdder bufferPoolHits = new LongAdder();
+  private final LongAdder bufferPoolMisses = new LongAdder();
+  private final LongAdder circuitBreakerRejections = new LongAdder();
+  private final LongAdder clientDisconnects = new LongAdder();
+  private final AtomicLongArray circuitBreakerTransitions =
+      new AtomicLongArray(CircuitBreaker.State.values().length);
+  private volatile int concurrencyLimit;
+  private final AtomicLongArray errorResponses = new AtomicLongArray(ERROR_STATUS_CODES.length);
+  private final LongAdder hedgedRequests = new LongAdder();
+  private final LongAdder hedgedRequestsWon = new LongAdder();
+  private final LongAdder inFlightRequests = new LongAdder();
+  private final LongAdder openCircuitBreakers = new LongAdder();
+  private final RouteMetrics otherRouteMetrics = new RouteMetrics(OTHER_ROUTE, 0);
+  private final LongAdder outstandingBuffers = new LongAdder();
+  private final LongAdder queuedRequests = new LongAdder();
+  private final LongAdder queueFullRejections = new LongAdder();
+  private final LongAdder queueTimeoutRejections = new LongAdder();
+  private final LongAdder rateLimitKeys = new LongAdder();
+  private final LongAdder requestBodyBytes = new LongAdder();
+  private final LongAdder responseBodyBytes = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder retryBudgetRejections = new LongAdder();
+  private int routeCount;
+  private final AtomicReferenceArray<RouteMetrics> routeTable =
+      new AtomicReferenceArray<>(ROUTE_TABLE_SIZE);
+  private volatile boolean routeTableFull;
+  private volatile List<TrafficClass> trafficClasses = List.of();
+  private final LongAdder upstreamEjections = new LongAdder();
+  private final LongAdder upstreamExchanges = new LongAdder();
+  private final AtomicLongArray upstreamResponses = new AtomicLongArray(VERSIONS.length);
+  private final AtomicLongArray upstreamResponsesInFlight = new AtomicLongArray(VERSIONS.length);
+
+  /**
+   * @param pooled {@code true} if the buffer was taken from the pool, {@code false} if it had to be
+   *     allocated
+   */
+  void bufferAcquired(boolean pooled) {
+    if (pooled) {
+      bufferPoolHits.increment();
+    } else {
+      bufferPoolMisses.increment();
+    }
+
+    outstandingBuffers.increment();
+  }
+
+  void bufferReleased() {
+    outstandingBuffers.decrement();
+  }
+
+  void circuitBreakerRejected() {
+    circuitBreakerRejections.increment();
+  }
+
+  void circuitBreakerTransitioned(CircuitBreaker.State oldState, CircuitBreaker.State newState) {
+    circuitBreakerTransitions.incrementAndGet(newState.ordinal());
+
+    if (oldState == CircuitBreaker.State.CLOSED) {
+      openCircuitBreakers.increment();
+    } else if (newState == CircuitBreaker.State.CLOSED) {
+      openCircuitBreakers.decrement();
+    }
+  }
+
+  void clientDisconnected() {
+    clientDisconnects.increment();
+  }
+
+  void concurrencyLimitChanged(int limit) {
+    concurrencyLimit = limit;
+  }
+
+  /** Counts the error responses that the proxy sent on its own. */
+  void errorSent(int statusCode) {
+    for (int i = 0; i < ERROR_STATUS_CODES.length; i++) {
+      if (ERROR_STATUS_CODES[i] == statusCode) {
+        errorResponses.incrementAndGet(i);
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param startNanos the value returned by {@link #exchangeStarted()}
+   */
+  void exchangeFinished(HttpRequest httpRequest, long startNanos) {
+    inFlightRequests.decrement();
+    getRouteMetrics(getPath(httpRequest))
+        .requestDurations[getMethodIndex(httpRequest.method())]
+        .record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return the start time of the exchange
+   */
+  long exchangeStarted() {
+    inFlightRequests.increment();
+    return System.nanoTime();
+  }
+
+  void hedgedRequestSent() {
+    hedgedRequests.increment();
+  }
+
+  /** Counts a copy of a request whose response arrived before the response to the original. */
+  void hedgedRequestWon() {
+    hedgedRequestsWon.increment();
+  }
+
+  void queuedRequestDequeued() {
+    queuedRequests.decrement();
+  }
+
+  /**
+   * @param delta the number of keys that got a token bucket, or minus the number of evicted ones
+   */
+  void rateLimitKeysChanged(int delta) {
+    rateLimitKeys.add(delta);
+  }
+
+  void requestBodyRead(long numberOfBytes) {
+    requestBodyBytes.add(numberOfBytes);
+  }
+
+  void requestQueued() {
+    queuedRequests.increment();
+  }
+
+  /**
+   * @param timedOut {@code true} if the request waited too long, {@code false} if the queue was
+   *     full
+   */
+  void requestShed(boolean timedOut) {
+    if (timedOut) {
+      queueTimeoutRejections.increment();
+    } else {
+      queueFullRejections.increment();
+    }
+  }
+
+  void responseBodyWritten(long numberOfBytes) {
+    responseBodyBytes.add(numberOfBytes);
+  }
+
+  void retryRejected() {
+    retryBudgetRejections.increment();
+  }
+
+  void retrySent() {
+    retries.increment();
+  }
+
+  void trafficClassesChanged(List<TrafficClass> trafficClasses) {
+    this.trafficClasses = trafficClasses;
+  }
+
+  void upstreamEjected() {
+    upstreamEjections.increment();
+  }
+
+  /**
+   * @param version the negotiated HTTP version, or {@code null} if no response has been received
+   */
+  void upstreamExchangeFinished(Version version) {
+    upstreamExchanges.decrement();
+
+    if (version != null) {
+      upstreamResponsesInFlight.decrementAndGet(version.ordinal());
+    }
+  }
+
+  void upstreamExchangeStarted() {
+    upstreamExchanges.increment();
+  }
+
+  /**
+   * Records the time from sending a request to the Acrolinx back-end until its response headers
+   * arrived.
+   */
+  void upstreamResponded(HttpRequest httpRequest, long upstreamStartNanos) {
+    getRouteMetrics(getPath(httpRequest))
+        .upstreamDurations[getMethodIndex(httpRequest.method())]
+        .record(System.nanoTime() - upstreamStartNanos);
+  }
+
+  void upstreamResponseReceived(Version version) {
+    upstreamResponses.incrementAndGet(version.ordinal());
+    upstreamResponsesInFlight.incrementAndGet(version.ordinal());
+  }
+
+  /**
+   * @return all metrics in the Prometheus text format, version 0.0.4
+   */
+  String scrape() {
+    StringBuilder stringBuilder = new StringBuilder(16_384);
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_request_duration_seconds",
+        "histogram",
+        "Time from receiving a request until its response is complete.");
+    appendRouteHistograms(
+        stringBuilder, "acrolinx_proxy_request_duration_seconds", true /* request durations */);
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_upstream_duration_seconds",
+        "histogram",
+        "Time from sending a request to Acrolinx until its response headers arrived.");
+    appendRouteHistograms(
+        stringBuilder, "acrolinx_proxy_upstream_duration_seconds", false /* upstream durations */);
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_requests_in_flight",
+        "gauge",
+        "Requests that the proxy is currently handling.");
+    stringBuilder
+        .append("acrolinx_proxy_requests_in_flight ")
+        .append(inFlightRequests.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_request_body_bytes_total",
+        "counter",
+        "Bytes of request bodies forwarded to Acrolinx.");
+    stringBuilder
+        .append("acrolinx_proxy_request_body_bytes_total ")
+        .append(requestBodyBytes.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_response_body_bytes_total",
+        "counter",
+        "Bytes of response bodies forwarded to clients, before any compression by the proxy.");
+    stringBuilder
+        .append("acrolinx_proxy_response_body_bytes_total ")
+        .append(responseBodyBytes.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_error_responses_total",
+        "counter",
+        "Error responses sent by the proxy instead of forwarding a response of Acrolinx.");
+
+    for (int i = 0; i < ERROR_STATUS_CODES.length; i++) {
+      stringBuilder
+          .append("acrolinx_proxy_error_responses_total{status=\"")
+          .append(ERROR_STATUS_CODES[i])
+          .append("\"} ")
+          .append(errorResponses.get(i))
+          .append('\n');
+    }
+
+    appendUpstreamExchangeMetrics(stringBuilder);
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_upstream_ejections_total",
+        "counter",
+        "Ejections of Acrolinx nodes after consecutive connection failures or timeouts.");
+    stringBuilder
+        .append("acrolinx_proxy_upstream_ejections_total ")
+        .append(upstreamEjections.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_circuit_breaker_transitions_total",
+        "counter",
+        "Transitions of the circuit breakers of Acrolinx nodes by the state they changed to.");
+
+    for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+      stringBuilder
+          .append("acrolinx_proxy_circuit_breaker_transitions_total{state=\"")
+          .append(state.name().toLowerCase(Locale.ENGLISH))
+          .append("\"} ")
+          .append(circuitBreakerTransitions.get(state.ordinal()))
+          .append('\n');
+    }
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_circuit_breakers_open",
+        "gauge",
+        "Acrolinx nodes whose circuit breaker is open or half-open.");
+    stringBuilder
+        .append("acrolinx_proxy_circuit_breakers_open ")
+        .append(openCircuitBreakers.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_circuit_breaker_rejections_total",
+        "counter",
+        "Requests rejected with 503 since the circuit breaker of their Acrolinx node was open.");
+    stringBuilder
+        .append("acrolinx_proxy_circuit_breaker_rejections_total ")
+        .append(circuitBreakerRejections.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_client_disconnects_total",
+        "counter",
+        "Exchanges whose request to Acrolinx was cancelled since the client disconnected.");
+    stringBuilder
+        .append("acrolinx_proxy_client_disconnects_total ")
+        .append(clientDisconnects.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_retries_total",
+        "counter",
+        "GET requests sent to Acrolinx again after the connection was refused or reset.");
+    stringBuilder.append("acrolinx_proxy_retries_total ").append(retries.sum()).append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_hedged_requests_total",
+        "counter",
+        "Copies of slow GET requests sent to another Acrolinx node.");
+    stringBuilder
+        .append("acrolinx_proxy_hedged_requests_total ")
+        .append(hedgedRequests.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_hedged_requests_won_total",
+        "counter",
+        "Copies of slow GET requests whose response arrived before the original one.");
+    stringBuilder
+        .append("acrolinx_proxy_hedged_requests_won_total ")
+        .append(hedgedRequestsWon.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_retry_budget_rejections_total",
+        "counter",
+        "Retries and hedged requests not sent since the retry budget was used up.");
+    stringBuilder
+        .append("acrolinx_proxy_retry_budget_rejections_total ")
+        .append(retryBudgetRejections.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_concurrency_limit",
+        "gauge",
+        "Current adaptive limit of requests to Acrolinx in flight.");
+    stringBuilder.append("acrolinx_proxy_concurrency_limit ").append(concurrencyLimit).append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_queued_requests",
+        "gauge",
+        "Requests waiting until fewer requests to Acrolinx are in flight than the limit.");
+    stringBuilder
+        .append("acrolinx_proxy_queued_requests ")
+        .append(queuedRequests.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_shed_requests_total",
+        "counter",
+        "Requests rejected with 503 since the queue was full or they waited too long.");
+    stringBuilder
+        .append("acrolinx_proxy_shed_requests_total{reason=\"queue_full\"} ")
+        .append(queueFullRejections.sum())
+        .append('\n');
+    stringBuilder
+        .append("acrolinx_proxy_shed_requests_total{reason=\"queue_timeout\"} ")
+        .append(queueTimeoutRejections.sum())
+        .append('\n');
+
+    appendTrafficClassGauges(stringBuilder);
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_rate_limit_keys",
+        "gauge",
+        "Clients that currently have a token bucket of their own.");
+    stringBuilder
+        .append("acrolinx_proxy_rate_limit_keys ")
+        .append(rateLimitKeys.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_buffer_pool_acquisitions_total",
+        "counter",
+        "Transfer buffers taken from the pool (hit) or newly allocated (miss).");
+    stringBuilder
+        .append("acrolinx_proxy_buffer_pool_acquisitions_total{result=\"hit\"} ")
+        .append(bufferPoolHits.sum())
+        .append('\n');
+    stringBuilder
+        .append("acrolinx_proxy_buffer_pool_acquisitions_total{result=\"miss\"} ")
+        .append(bufferPoolMisses.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_buffer_pool_outstanding_buffers",
+        "gauge",
+        "Transfer buffers that are in use and not yet returned to the pool.");
+    stringBuilder
+        .append("acrolinx_proxy_buffer_pool_outstanding_buffers ")
+        .append(outstandingBuffers.sum())
+        .append('\n');
+
+    return stringBuilder.toString();
+  }
+
+  private synchronized RouteMetrics addRouteMetrics(String path, int hashCode) {
+    // another thread may have added the route since the lock-free lookup
+    for (int i = 0; i < ROUTE_TABLE_SIZE; i++) {
+      int slot = (hashCode + i) & (ROUTE_TABLE_SIZE - 1);
+      RouteMetrics routeMetrics = routeTable.get(slot);
+
+      if (routeMetrics == null) {
+        if (routeCount >= MAX_ROUTES) {
+          return otherRouteMetrics;
+        }
+
+        routeMetrics = new RouteMetrics(normalizeRoute(path), hashCode);
+        routeTable.set(slot, routeMetrics);
+        routeCount++;
+        routeTableFull = routeCount >= MAX_ROUTES;
+        return routeMetrics;
+      }
+
+      if (routeMetrics.hashCode == hashCode && matchesRoute(routeMetrics.route, path)) {
+        return routeMetrics;
+      }
+    }
+
+    return otherRouteMetrics;
+  }
+
+  private void appendRouteHistograms(
+      StringBuilder stringBuilder, String name, boolean requestDurations) {
+    for (int i = 0; i <= ROUTE_TABLE_SIZE; i++) {
+      RouteMetrics routeMetrics = i < ROUTE_TABLE_SIZE ? routeTable.get(i) : otherRouteMetrics;
+
+      if (routeMetrics == null) {
+        continue;
+      }
+
+      LatencyHistogram[] latencyHistograms =
+          requestDurations ? routeMetrics.requestDurations : routeMetrics.upstreamDurations;
+
+      for (int methodIndex = 0; methodIndex < METHODS.length; methodIndex++) {
+        LatencyHistogram latencyHistogram = latencyHistograms[methodIndex];
+
+        if (latencyHistogram.getCount() > 0) {
+          latencyHistogram.writeTo(
+              stringBuilder,
+              name,
+              "method=\""
+                  + METHODS[methodIndex]
+                  + "\",route=\""
+                  + escapeLabelValue(routeMetrics.route)
+                  + '"');
+        }
+      }
+    }
+  }
+
+  private void appendTrafficClassGauges(StringBuilder stringBuilder) {
+    List<TrafficClass> trafficClasses = this.trafficClasses;
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_traffic_class_requests_in_flight",
+        "gauge",
+        "Requests to Acrolinx in flight by traffic class.");
+
+    for (TrafficClass trafficClass : trafficClasses) {
+      stringBuilder
+          .append("acrolinx_proxy_traffic_class_requests_in_flight{traffic_class=\"")
+          .append(escapeLabelValue(trafficClass.getName()))
+          .append("\"} ")
+          .append(trafficClass.getInFlight())
+          .append('\n');
+    }
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_traffic_class_queued_requests",
+        "gauge",
+        "Requests waiting for a free slot by traffic class.");
+
+    for (TrafficClass trafficClass : trafficClasses) {
+      stringBuilder
+          .append("acrolinx_proxy_traffic_class_queued_requests{traffic_class=\"")
+          .append(escapeLabelValue(trafficClass.getName()))
+          .append("\"} ")
+          .append(trafficClass.getQueuedRequests())
+          .append('\n');
+    }
+  }
+
+  /** Renders the counts that {@link UpstreamStatistics} reports. */
+  private void appendUpstreamExchangeMetrics(StringBuilder stringBuilder) {
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_upstream_requests_in_flight",
+        "gauge",
+        "Requests to Acrolinx in flight, including those still waiting for response headers.");
+    stringBuilder
+        .append("acrolinx_proxy_upstream_requests_in_flight ")
+        .append(upstreamExchanges.sum())
+        .append('\n');
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_upstream_responses_in_flight",
+        "gauge",
+        "Responses of Acrolinx being received by negotiated HTTP version.");
+
+    for (Version version : VERSIONS) {
+      stringBuilder
+          .append("acrolinx_proxy_upstream_responses_in_flight{version=\"")
+          .append(version.name().toLowerCase(Locale.ENGLISH))
+          .append("\"} ")
+          .append(upstreamResponsesInFlight.get(version.ordinal()))
+          .append('\n');
+    }
+
+    appendHeader(
+        stringBuilder,
+        "acrolinx_proxy_upstream_responses_total",
+        "counter",
+        "Responses received from Acrolinx by negotiated HTTP version.");
+
+    for (Version version : VERSIONS) {
+      stringBuilder
+          .append("acrolinx_proxy_upstream_responses_total{version=\"")
+          .append(version.name().toLowerCase(Locale.ENGLISH))
+          .append("\"} ")
+          .append(upstreamResponses.get(version.ordinal()))
+          .append('\n');
+    }
+  }
+
+  private RouteMetrics getRouteMetrics(String path) {
+    int hashCode = hashRoute(path);
+
+    for (int i = 0; i < ROUTE_TABLE_SIZE; i++) {
+      RouteMetrics routeMetrics = routeTable.get((hashCode + i) & (ROUTE_TABLE_SIZE - 1));
+
+      if (routeMetrics == null) {
+        // once the table is full, unknown routes are recorded without taking the lock
+        return routeTableFull ? otherRouteMetrics : addRouteMetrics(path, hashCode);
+      }
+
+      if (routeMetrics.hashCode == hashCode && matchesRoute(routeMetrics.route, path)) {
+        return routeMetrics;
+      }
+    }
+
+    return otherRouteMetrics;
+  }
+
+  private static final class RouteMetrics {
+    private final int hashCode;
+    private final LatencyHistogram[] requestDurations = createLatencyHistograms();
+    private final String route;
+    private final LatencyHistogram[] upstreamDurations = createLatencyHistograms();
+
+    private static LatencyHistogram[] createLatencyHistograms() {
+      LatencyHistogram[] latencyHistograms = new LatencyHistogram[METHODS.length];
+
+      for (int i = 0; i < latencyHistograms.length; i++) {
+        latencyHistograms[i] = new LatencyHistogram();
+      }
+
+      return latencyHistograms;
+    }
+
+    RouteMetrics(String route, int hashCode) {
+      this.route = route;
+      this.hashCode = hashCode;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate of requests per key, such as an integration client or a user, so that a single
+ * noisy client cannot starve the others of the shared Acrolinx back-end.
+ *
+ * <p>Each key has a token bucket that holds up to the burst size and refills at the configured
+ * rate. A bucket is a single {@link AtomicLong} with the time at which it will be full again, which
+ * is updated by compare-and-set without any lock. A full bucket is equivalent to no bucket at all,
+ * so buckets are evicted as soon as they are full again. Once the maximum number of keys is
+ * reached, new keys share one overflow bucket until buckets have been evicted, which bounds the
+ * memory even if clients make up arbitrary keys.
+ */
+final class RateLimiter implements AutoCloseable {
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+
+  private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  private final long burstNanos;
+  private volatile ScheduledFuture<?> evictionFuture;
+  private final long intervalNanos;
+  private final List<KeySource> keySources;
+  private final int maxKeys;
+  private final AtomicLong overflowBucket = new AtomicLong(System.nanoTime());
+
+  /**
+   * @param rate the number of requests per second that each key may send on average
+   * @param burst the number of requests that a key may send at once
+   * @param keySources the attributes of a request that make up its key
+   * @param maxKeys the maximum number of keys with a bucket of their own
+   */
+  RateLimiter(double rate, int burst, List<KeySource> keySources, int maxKeys) {
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    this.burstNanos = intervalNanos * Math.max(burst, 1);
+    this.keySources = List.copyOf(keySources);
+    this.maxKeys = maxKeys;
+  }
+
+  @Override
+  public void close() {
+    ScheduledFuture<?> scheduledFuture = evictionFuture;
+
+    if (scheduledFuture != null) {
+      scheduledFuture.cancel(false);
+    }
+  }
+
+  String getKey(HttpServletRequest httpServletRequest) {
+    if (keySources.size() == 1) {
+      return keySources.get(0).getValue(httpServletRequest);
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+
+    for (KeySource keySource : keySources) {
+      stringBuilder.append(keySource.getValue(httpServletRequest)).append('\n');
+    }
+
+    return stringBuilder.toString();
+  }
+
+  /** Evicts the full buckets each time that an empty bucket takes to fill up. */
+  void start(ScheduledExecutorService scheduledExecutorService) {
+    long evictionIntervalMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(burstNanos), 1_000);
+    evictionFuture =
+        scheduledExecutorService.scheduleWithFixedDelay(
+            this::evictFullBuckets,
+            evictionIntervalMillis,
+            evictionIntervalMillis,
+            TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return {@code 0} if the request may be sent, otherwise the time in nanoseconds until the key
+   *     may send another request
+   */
+  long tryAcquire(String key) {
+    long nowNanos = System.nanoTime();
+    AtomicLong bucket = buckets.get(key);
+
+    if (bucket == null) {
+      bucket = addBucket(key, nowNanos);
+    }
+
+    while (true) {
+      long fullNanos = bucket.get();
+      long newFullNanos = (fullNanos - nowNanos > 0 ? fullNanos : nowNanos) + intervalNanos;
+      long waitNanos = newFullNanos - nowNanos - burstNanos;
+
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+
+      if (bucket.compareAndSet(fullNanos, newFullNanos)) {
+        return 0;
+      }
+    }
+  }
+
+  private AtomicLong addBucket(String key, long nowNanos) {
+    if (buckets.size() >= maxKeys) {
+      return overflowBucket;
+    }
+
+    AtomicLong bucket = new AtomicLong(nowNanos);
+    AtomicLong existingBucket = buckets.putIfAbsent(key, bucket);
+
+    if (existingBucket != null) {
+      return existingBucket;
+    }
+
+    PROXY_METRICS.rateLimitKeysChanged(1);
+    return bucket;
+  }
+
+  private void evictFullBuckets() {
+    long nowNanos = System.nanoTime();
+    int evictedBuckets = 0;
+
+    for (Iterator<AtomicLong> iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+      // a request that takes a token from an evicted bucket at the same time is not counted
+      if (iterator.next().get() - nowNanos <= 0) {
+        iterator.remove();
+        evictedBuckets++;
+      }
+    }
+
+    PROXY_METRICS.rateLimitKeysChanged(-evictedBuckets);
+  }
+
+  /** An attribute of a request that identifies who sent it. */
+  enum KeySource {
+    /** The value of the {@code X-Acrolinx-Client} header, which identifies the integration. */
+    CLIENT {
+      @Override
+      String getValue(HttpServletRequest httpServletRequest) {
+        return nullToEmpty(httpServletRequest.getHeader("X-Acrolinx-Client"));
+      }
+    },
+
+    /** The name of the user that the container authenticated. */
+    PRINCIPAL {
+      @Override
+      String getValue(HttpServletRequest httpServletRequest) {
+        return nullToEmpty(httpServletRequest.getRemoteUser());
+      }
+    },
+
+    /** The IP address of the client or of the last proxy in front of the servlet container. */
+    REMOTE_ADDRESS {
+      @Override
+      String getValue(HttpServletRequest httpServletRequest) {
+        return nullToEmpty(httpServletRequest.getRemoteAddr());
+      }
+    };
+
+    private static String nullToEmpty(String string) {
+      return string == null ? "" : string;
+    }
+
+    abstract String getValue(HttpServletRequest httpServletRequest);
+  }
+}
@@ -0,0 +1,27 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+
+/** Signals that a request body exceeds the configured maximum size while it is forwarded. */
+final class RequestBodyTooLargeException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * @return {@code true} if the throwable or one of its causes is a {@code
+   *     RequestBodyTooLargeException}
+   */
+  static boolean isCausedBy(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof RequestBodyTooLargeException) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  RequestBodyTooLargeException(long maxRequestBodySize) {
+    super("Request body exceeds " + maxRequestBodySize + " bytes");
+  }
+}
@@ -0,0 +1,112 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets identical GET requests that arrive while one of them is in flight share its response. The
+ * first request, the leader, is sent to the Acrolinx back-end and records its response while
+ * streaming it to its client. All identical requests arriving in the meantime wait for that
+ * recording instead of sending requests of their own.
+ *
+ * <p>Requests are identical if they have the same key as in the {@link ResponseCache} and also the
+ * same content negotiation headers, which back-ends typically name in {@code Vary}. A follower
+ * receives {@code null} if the leader failed or its response was too large to be recorded, and then
+ * sends its own request.
+ */
+final class RequestCoalescer {
+  private static final List<String> NEGOTIATION_HEADER_NAMES =
+      List.of("Accept", "Accept-Encoding", "Accept-Language");
+
+  /**
+   * Conditional requests are excluded since the response to one of them, for example a 304
+   * response, does not fit a request without the same conditions.
+   */
+  static boolean isCoalescable(HttpRequest httpRequest) {
+    return httpRequest.method().equals("GET")
+        && httpRequest.headers().firstValue("If-Modified-Since").isEmpty()
+        && httpRequest.headers().firstValue("If-None-Match").isEmpty()
+        && httpRequest.headers().firstValue("Range").isEmpty();
+  }
+
+  private static String createKey(HttpRequest httpRequest) {
+    StringBuilder stringBuilder = new StringBuilder(ResponseCache.createKey(httpRequest));
+
+    for (String headerName : NEGOTIATION_HEADER_NAMES) {
+      stringBuilder.append('\n');
+
+      for (String headerValue : httpRequest.headers().allValues(headerName)) {
+        stringBuilder.append(headerValue).append(',');
+      }
+    }
+
+    return stringBuilder.toString();
+  }
+
+  private final LongAdder coalescedRequests = new LongAdder();
+  private final ConcurrentMap<String, CompletableFuture<BufferedResponse>> exchangesInFlight =
+      new ConcurrentHashMap<>();
+  private final LongAdder leaderRequests = new LongAdder();
+  private final int maxResponseSize;
+
+  /**
+   * @param maxResponseSize the maximum size in bytes of a response body that is shared
+   */
+  RequestCoalescer(int maxResponseSize) {
+    this.maxResponseSize = maxResponseSize;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestCoalescer[inFlight="
+        + exchangesInFlight.size()
+        + ", leaderRequests="
+        + leaderRequests
+        + ", coalescedRequests="
+        + coalescedRequests
+        + ']';
+  }
+
+  /**
+   * Unregisters the exchange of a leader and hands its response to all followers. Must be called
+   * exactly once for every registered exchange.
+   *
+   * @param bufferedResponse the recorded response, or {@code null} if there is none
+   */
+  void complete(
+      HttpRequest httpRequest,
+      CompletableFuture<BufferedResponse> sharedResponse,
+      BufferedResponse bufferedResponse) {
+    exchangesInFlight.remove(createKey(httpRequest), sharedResponse);
+    sharedResponse.complete(bufferedResponse);
+  }
+
+  int getMaxResponseSize() {
+    return maxResponseSize;
+  }
+
+  /**
+   * Registers the exchange of a leader unless an identical exchange is already in flight.
+   *
+   * @return the shared response of the identical exchange in flight, or {@code null} if the given
+   *     exchange has been registered
+   */
+  CompletableFuture<BufferedResponse> register(
+      HttpRequest httpRequest, CompletableFuture<BufferedResponse> sharedResponse) {
+    CompletableFuture<BufferedResponse> leaderResponse =
+        exchangesInFlight.putIfAbsent(createKey(httpRequest), sharedResponse);
+
+    if (leaderResponse == null) {
+      leaderRequests.increment();
+    } else {
+      coalescedRequests.increment();
+    }
+
+    return leaderResponse;
+  }
+}
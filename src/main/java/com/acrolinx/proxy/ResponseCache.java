@@ -0,0 +1,440 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches GET responses of the Acrolinx back-end in memory, as a shared cache in the sense of RFC
+ * 9111. Responses are stored if they have an explicit freshness lifetime or a validator, which is
+ * an {@code ETag} or {@code Last-Modified} header. Stale responses with a validator are kept, so
+ * that a conditional request to the back-end suffices to serve them again.
+ *
+ * <p>The cache key contains the target URI and the request headers that identify the user, as they
+ * are sent to the back-end, so for example only the filtered Acrolinx cookies are part of it.
+ * Headers named by {@code Vary} must match as well. The total size of the cached bodies is bounded,
+ * and the least recently used responses are evicted first.
+ */
+final class ResponseCache {
+  private static final Set<Integer> CACHEABLE_STATUS_CODES =
+      Set.of(200, 203, 204, 300, 301, 404, 410);
+  private static final Set<String> CONDITIONAL_HEADER_NAMES =
+      Set.of("if-modified-since", "if-none-match");
+  private static final List<String> KEY_HEADER_NAMES =
+      List.of("Authorization", "Cookie", "X-Acrolinx-Auth", "X-Acrolinx-Client");
+
+  /**
+   * @return a copy of the request that asks the back-end whether the stored response is still
+   *     valid, instead of any conditions of the client
+   */
+  static HttpRequest createConditionalRequest(
+      HttpRequest httpRequest, BufferedResponse storedResponse) {
+    HttpRequest.Builder httpRequestBuilder =
+        HttpRequest.newBuilder(
+            httpRequest,
+            (headerName, headerValue) ->
+                !CONDITIONAL_HEADER_NAMES.contains(headerName.toLowerCase(Locale.ENGLISH)));
+    HttpHeaders storedHeaders = storedResponse.getHeaders();
+    Optional<String> entityTag = storedHeaders.firstValue("ETag");
+    Optional<String> lastModified = storedHeaders.firstValue("Last-Modified");
+
+    if (entityTag.isPresent()) {
+      httpRequestBuilder.setHeader("If-None-Match", entityTag.get());
+    }
+
+    if (lastModified.isPresent()) {
+      httpRequestBuilder.setHeader("If-Modified-Since", lastModified.get());
+    }
+
+    return httpRequestBuilder.build();
+  }
+
+  static String createKey(HttpRequest httpRequest) {
+    StringBuilder stringBuilder = new StringBuilder(httpRequest.uri().toString());
+
+    for (String headerName : KEY_HEADER_NAMES) {
+      stringBuilder.append('\n');
+
+      for (String headerValue : httpRequest.headers().allValues(headerName)) {
+        // a Cookie header without any Acrolinx cookies is empty after filtering
+        if (!headerValue.isEmpty()) {
+          stringBuilder.append(headerValue).append(',');
+        }
+      }
+    }
+
+    return stringBuilder.toString();
+  }
+
+  /**
+   * @return the freshness lifetime from the {@code s-maxage} or {@code max-age} directive, or from
+   *     the {@code Expires} and {@code Date} headers, or zero if the response has none
+   */
+  static Duration getFreshnessLifetime(HttpHeaders httpHeaders) {
+    Map<String, String> cacheControlDirectives = parseCacheControlDirectives(httpHeaders);
+
+    for (String directiveName : List.of("s-maxage", "max-age")) {
+      if (cacheControlDirectives.containsKey(directiveName)) {
+        return parseDeltaSeconds(cacheControlDirectives.get(directiveName));
+      }
+    }
+
+    Optional<String> expiresHeader = httpHeaders.firstValue("Expires");
+    Optional<String> dateHeader = httpHeaders.firstValue("Date");
+
+    if (expiresHeader.isPresent() && dateHeader.isPresent()) {
+      try {
+        Duration freshnessLifetime =
+            Duration.between(parseHttpDate(dateHeader.get()), parseHttpDate(expiresHeader.get()));
+        return freshnessLifetime.isNegative() ? Duration.ZERO : freshnessLifetime;
+      } catch (DateTimeParseException e) {
+        // an invalid Expires header means that the response is already stale
+      }
+    }
+
+    return Duration.ZERO;
+  }
+
+  /**
+   * @return {@code true} if the response can be used without asking the back-end, which requires
+   *     that neither the client nor the back-end demand a revalidation
+   */
+  static boolean isFresh(HttpRequest httpRequest, BufferedResponse bufferedResponse) {
+    HttpHeaders httpHeaders = bufferedResponse.getHeaders();
+
+    return !hasDirective(httpRequest.headers(), "no-cache")
+        && !hasDirective(httpHeaders, "no-cache")
+        && bufferedResponse.getAge().compareTo(getFreshnessLifetime(httpHeaders)) < 0;
+  }
+
+  /**
+   * Evaluates the conditions of the client against a response as defined by RFC 9110. The {@code
+   * If-Modified-Since} header is only evaluated if there is no {@code If-None-Match} header.
+   *
+   * @return {@code true} if the client already has the response
+   */
+  static boolean isNotModified(HttpRequest httpRequest, HttpHeaders httpHeaders) {
+    List<String> ifNoneMatchHeaders = httpRequest.headers().allValues("If-None-Match");
+
+    if (!ifNoneMatchHeaders.isEmpty()) {
+      Optional<String> entityTag = httpHeaders.firstValue("ETag");
+      return entityTag.isPresent() && matchesEntityTag(ifNoneMatchHeaders, entityTag.get());
+    }
+
+    Optional<String> ifModifiedSince = httpRequest.headers().firstValue("If-Modified-Since");
+    Optional<String> lastModified = httpHeaders.firstValue("Last-Modified");
+
+    if (ifModifiedSince.isEmpty() || lastModified.isEmpty()) {
+      return false;
+    }
+
+    try {
+      return !parseHttpDate(lastModified.get()).isAfter(parseHttpDate(ifModifiedSince.get()));
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return the lower-case directive names mapped to their unquoted arguments, or to an empty
+   *     string for directives without an argument
+   */
+  static Map<String, String> parseCacheControlDirectives(HttpHeaders httpHeaders) {
+    Map<String, String> directives = new HashMap<>();
+
+    for (String headerValue : httpHeaders.allValues("Cache-Control")) {
+      for (String directive : headerValue.split(",")) {
+        int equalsIndex = directive.indexOf('=');
+        String name = equalsIndex < 0 ? directive : directive.substring(0, equalsIndex);
+        String argument = equalsIndex < 0 ? "" : directive.substring(equalsIndex + 1).trim();
+
+        if (argument.length() >= 2 && argument.startsWith("\"") && argument.endsWith("\"")) {
+          argument = argument.substring(1, argument.length() - 1);
+        }
+
+        directives.putIfAbsent(name.trim().toLowerCase(Locale.ENGLISH), argument);
+      }
+    }
+
+    return directives;
+  }
+
+  private static List<String> getVaryHeaderNames(HttpHeaders httpHeaders) {
+    List<String> varyHeaderNames = new ArrayList<>();
+
+    for (String headerValue : httpHeaders.allValues("Vary")) {
+      for (String headerName : headerValue.split(",")) {
+        if (!headerName.isBlank()) {
+          varyHeaderNames.add(headerName.trim());
+        }
+      }
+    }
+
+    return varyHeaderNames;
+  }
+
+  private static boolean hasDirective(HttpHeaders httpHeaders, String directiveName) {
+    return parseCacheControlDirectives(httpHeaders).containsKey(directiveName)
+        || (directiveName.equals("no-cache")
+            && httpHeaders.allValues("Pragma").stream()
+                .anyMatch(headerValue -> headerValue.trim().equalsIgnoreCase("no-cache")));
+  }
+
+  private static boolean hasValidator(HttpHeaders httpHeaders) {
+    return httpHeaders.firstValue("ETag").isPresent()
+        || httpHeaders.firstValue("Last-Modified").isPresent();
+  }
+
+  private static boolean isRequestCacheable(HttpRequest httpRequest) {
+    return httpRequest.method().equals("GET")
+        && httpRequest.headers().firstValue("Range").isEmpty()
+        && !hasDirective(httpRequest.headers(), "no-store");
+  }
+
+  /** Uses the weak comparison of RFC 9110, which ignores the {@code W/} prefix. */
+  private static boolean matchesEntityTag(List<String> entityTagLists, String entityTag) {
+    String opaqueTag = toOpaqueTag(entityTag.trim());
+
+    for (String entityTagList : entityTagLists) {
+      for (String requestedEntityTag : entityTagList.split(",")) {
+        String requestedOpaqueTag = toOpaqueTag(requestedEntityTag.trim());
+
+        if (requestedOpaqueTag.equals("*") || requestedOpaqueTag.equals(opaqueTag)) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private static Duration parseDeltaSeconds(String deltaSeconds) {
+    try {
+      return Duration.ofSeconds(Math.max(Long.parseLong(deltaSeconds), 0));
+    } catch (NumberFormatException e) {
+      return Duration.ZERO;
+    }
+  }
+
+  private static ZonedDateTime parseHttpDate(String httpDate) {
+    return ZonedDateTime.parse(httpDate, DateTimeFormatter.RFC_1123_DATE_TIME);
+  }
+
+  private static String toOpaqueTag(String entityTag) {
+    return entityTag.startsWith("W/") ? entityTag.substring(2) : entityTag;
+  }
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final int maxEntrySize;
+  private final long maxSize;
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder notModifiedResponses = new LongAdder();
+  private final LongAdder revalidations = new LongAdder();
+  private long size;
+
+  /**
+   * @param maxSize the maximum total size of all cached bodies in bytes
+   * @param maxEntrySize the maximum size of a single cached body in bytes
+   */
+  ResponseCache(long maxSize, int maxEntrySize) {
+    this.maxSize = maxSize;
+    this.maxEntrySize = (int) Math.min(maxEntrySize, maxSize);
+  }
+
+  @Override
+  public String toString() {
+    synchronized (this) {
+      return "ResponseCache[entries="
+          + entries.size()
+          + ", size="
+          + size
+          + ", hits="
+          + hits
+          + ", misses="
+          + misses
+          + ", revalidations="
+          + revalidations
+          + ", notModifiedResponses="
+          + notModifiedResponses
+          + ']';
+    }
+  }
+
+  /**
+   * @return the stored response for the request if it is fresh or can be revalidated, or {@code
+   *     null}
+   */
+  BufferedResponse get(HttpRequest httpRequest) {
+    if (!isRequestCacheable(httpRequest)) {
+      return null;
+    }
+
+    Entry entry;
+
+    synchronized (this) {
+      entry = entries.get(createKey(httpRequest));
+    }
+
+    if (entry == null || !entry.matchesVaryHeaders(httpRequest)) {
+      misses.increment();
+      return null;
+    }
+
+    BufferedResponse bufferedResponse = entry.bufferedResponse;
+
+    if (isFresh(httpRequest, bufferedResponse)) {
+      hits.increment();
+    } else if (hasValidator(bufferedResponse.getHeaders())) {
+      revalidations.increment();
+    } else {
+      misses.increment();
+      return null;
+    }
+
+    return bufferedResponse;
+  }
+
+  int getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  /**
+   * @return {@code true} if a response with the given status code and headers may be stored for the
+   *     request
+   */
+  boolean isStorable(HttpRequest httpRequest, int statusCode, HttpHeaders httpHeaders) {
+    return isRequestCacheable(httpRequest) && isResponseStorable(statusCode, httpHeaders);
+  }
+
+  /**
+   * Updates a stored response with the headers of a 304 response of the back-end, which confirmed
+   * that the stored body is still valid.
+   *
+   * @return the updated response, or {@code null} if the back-end refers to another representation
+   */
+  BufferedResponse revalidate(
+      HttpRequest httpRequest, BufferedResponse storedResponse, HttpHeaders notModifiedHeaders) {
+    Optional<String> entityTag = notModifiedHeaders.firstValue("ETag");
+    Optional<String> storedEntityTag = storedResponse.getHeaders().firstValue("ETag");
+
+    if (entityTag.isPresent()
+        && !(storedEntityTag.isPresent()
+            && matchesEntityTag(List.of(entityTag.get()), storedEntityTag.get()))) {
+      return null;
+    }
+
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(storedResponse.getHeaders().map());
+
+    for (Map.Entry<String, List<String>> header : notModifiedHeaders.map().entrySet()) {
+      // A 304 response has no body, so its framing headers do not apply to the stored one
+      if (!header.getKey().equalsIgnoreCase("Content-Length")
+          && !header.getKey().equalsIgnoreCase("Transfer-Encoding")) {
+        headers.put(header.getKey(), header.getValue());
+      }
+    }
+
+    BufferedResponse revalidatedResponse =
+        new BufferedResponse(
+            storedResponse.getStatusCode(),
+            HttpHeaders.of(headers, (headerName, headerValue) -> true),
+            storedResponse.getBody(),
+            System.nanoTime());
+    notModifiedResponses.increment();
+    put(httpRequest, revalidatedResponse);
+    return revalidatedResponse;
+  }
+
+  /**
+   * Stores the response unless it must not be stored or its body is too large. A response replaces
+   * any earlier one with the same key, also if they differ in the headers named by {@code Vary}.
+   */
+  void put(HttpRequest httpRequest, BufferedResponse bufferedResponse) {
+    if (bufferedResponse.getBody().length > maxEntrySize
+        || !isStorable(
+            httpRequest, bufferedResponse.getStatusCode(), bufferedResponse.getHeaders())) {
+      return;
+    }
+
+    String key = createKey(httpRequest);
+    Entry entry = new Entry(httpRequest, bufferedResponse, key.length());
+
+    synchronized (this) {
+      remove(key);
+      entries.put(key, entry);
+      size += entry.size;
+      evict();
+    }
+  }
+
+  private boolean isResponseStorable(int statusCode, HttpHeaders httpHeaders) {
+    Map<String, String> cacheControlDirectives = parseCacheControlDirectives(httpHeaders);
+
+    return CACHEABLE_STATUS_CODES.contains(statusCode)
+        && !cacheControlDirectives.containsKey("no-store")
+        && !cacheControlDirectives.containsKey("private")
+        && httpHeaders.firstValue("Set-Cookie").isEmpty()
+        && !getVaryHeaderNames(httpHeaders).contains("*")
+        && (!getFreshnessLifetime(httpHeaders).isZero() || hasValidator(httpHeaders));
+  }
+
+  /** Must be called while holding the lock. */
+  private void evict() {
+    Iterator<Entry> iterator = entries.values().iterator();
+
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().size;
+      iterator.remove();
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  private void remove(String key) {
+    Entry entry = entries.remove(key);
+
+    if (entry != null) {
+      size -= entry.size;
+    }
+  }
+
+  private static final class Entry {
+    private final BufferedResponse bufferedResponse;
+    private final long size;
+    private final Map<String, List<String>> varyHeaders = new HashMap<>();
+
+    Entry(HttpRequest httpRequest, BufferedResponse bufferedResponse, int keySize) {
+      this.bufferedResponse = bufferedResponse;
+      this.size = (long) bufferedResponse.getBody().length + keySize;
+
+      for (String headerName : getVaryHeaderNames(bufferedResponse.getHeaders())) {
+        varyHeaders.put(headerName, httpRequest.headers().allValues(headerName));
+      }
+    }
+
+    boolean matchesVaryHeaders(HttpRequest httpRequest) {
+      for (Map.Entry<String, List<String>> varyHeader : varyHeaders.entrySet()) {
+        if (!httpRequest.headers().allValues(varyHeader.getKey()).equals(varyHeader.getValue())) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Negotiates the content coding of response bodies. The proxy asks the Acrolinx back-end for all
+ * enabled codings. A body in a coding that the client accepts is passed on unchanged. Otherwise the
+ * body is decoded and, if it is large enough and the client accepts one of the enabled codings,
+ * compressed again in the preferred one of them.
+ */
+final class ResponseCompressor {
+  private static final List<String> INCOMPRESSIBLE_CONTENT_TYPE_PREFIXES =
+      List.of("application/gzip", "application/zip", "audio/", "image/", "video/");
+
+  /**
+   * Evaluates the {@code Accept-Encoding} headers of a request. A request without them only accepts
+   * unencoded bodies.
+   */
+  static boolean isAccepted(List<String> acceptEncodingHeaders, String contentCoding) {
+    Double wildcardQualityValue = null;
+
+    for (String acceptEncodingHeader : acceptEncodingHeaders) {
+      for (String element : acceptEncodingHeader.split(",")) {
+        String[] parameters = element.split(";");
+        String coding = parameters[0].trim().toLowerCase(Locale.ENGLISH);
+        double qualityValue = parseQualityValue(parameters);
+
+        if (coding.equals(contentCoding)) {
+          return qualityValue > 0;
+        }
+
+        if (coding.equals("*")) {
+          wildcardQualityValue = qualityValue;
+        }
+      }
+    }
+
+    return wildcardQualityValue != null && wildcardQualityValue > 0;
+  }
+
+  private static HttpHeaders createHeaders(
+      HttpHeaders httpHeaders, ContentCodec encoder, boolean transcoded) {
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(httpHeaders.map());
+
+    if (transcoded) {
+      headers.remove("Content-Encoding");
+      headers.remove("Content-Length");
+
+      if (encoder != null) {
+        headers.put("Content-Encoding", List.of(encoder.getName()));
+      }
+
+      // the body differs byte by byte from the one the entity tag of the back-end refers to
+      headers.computeIfPresent(
+          "ETag",
+          (headerName, headerValues) ->
+              headerValues.stream()
+                  .map(entityTag -> entityTag.startsWith("W/") ? entityTag : "W/" + entityTag)
+                  .collect(Collectors.toList()));
+    }
+
+    List<String> varyHeaderValues = headers.getOrDefault("Vary", List.of());
+    boolean varyIncludesAcceptEncoding =
+        varyHeaderValues.stream()
+            .flatMap(headerValue -> List.of(headerValue.split(",")).stream())
+            .map(String::trim)
+            .anyMatch(
+                headerName ->
+                    headerName.equals("*") || headerName.equalsIgnoreCase("Accept-Encoding"));
+
+    if (!varyIncludesAcceptEncoding) {
+      List<String> newVaryHeaderValues = new ArrayList<>(varyHeaderValues);
+      newVaryHeaderValues.add("Accept-Encoding");
+      headers.put("Vary", newVaryHeaderValues);
+    }
+
+    return HttpHeaders.of(headers, (headerName, headerValue) -> true);
+  }
+
+  private static List<String> getContentCodings(HttpHeaders httpHeaders) {
+    List<String> contentCodings = new ArrayList<>();
+
+    for (String headerValue : httpHeaders.allValues("Content-Encoding")) {
+      for (String contentCoding : headerValue.split(",")) {
+        String trimmedContentCoding = contentCoding.trim().toLowerCase(Locale.ENGLISH);
+
+        if (!trimmedContentCoding.isEmpty() && !trimmedContentCoding.equals("identity")) {
+          contentCodings.add(trimmedContentCoding);
+        }
+      }
+    }
+
+    return contentCodings;
+  }
+
+  private static boolean isBodyless(int statusCode, HttpHeaders httpHeaders) {
+    return statusCode < 200
+        || statusCode == 204
+        || statusCode == 304
+        || httpHeaders.firstValueAsLong("Content-Length").orElse(-1) == 0;
+  }
+
+  private static Map<String, ContentCodec> loadContentCodecs() {
+    Map<String, ContentCodec> contentCodecs = new HashMap<>();
+
+    for (ContentCodec contentCodec : List.of(new DeflateContentCodec(), new GzipContentCodec())) {
+      contentCodecs.put(contentCodec.getName(), contentCodec);
+    }
+
+    for (ContentCodec contentCodec :
+        ServiceLoader.load(ContentCodec.class, ContentCodec.class.getClassLoader())) {
+      contentCodecs.put(contentCodec.getName().toLowerCase(Locale.ENGLISH), contentCodec);
+    }
+
+    return contentCodecs;
+  }
+
+  private static double parseQualityValue(String[] parameters) {
+    for (int i = 1; i < parameters.length; i++) {
+      String parameter = parameters[i].trim();
+
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+
+    return 1;
+  }
+
+  private final String acceptEncoding;
+  private final int compressionLevel;
+  private final Map<String, ContentCodec> contentCodecs = new LinkedHashMap<>();
+  private final int minCompressionSize;
+
+  /**
+   * @param contentCodings the comma-separated names of the enabled codings, in the order of
+   *     preference
+   * @param compressionLevel the level between 1 (fastest) and 9 (smallest) to compress with
+   * @param minCompressionSize the minimum size in bytes of a body that is compressed
+   */
+  ResponseCompressor(String contentCodings, int compressionLevel, int minCompressionSize) {
+    Map<String, ContentCodec> availableContentCodecs = loadContentCodecs();
+
+    for (String contentCoding : contentCodings.split(",")) {
+      String name = contentCoding.trim().toLowerCase(Locale.ENGLISH);
+      ContentCodec contentCodec = availableContentCodecs.get(name);
+
+      if (contentCodec == null) {
+        throw new IllegalArgumentException("Unsupported content coding: " + name);
+      }
+
+      this.contentCodecs.put(name, contentCodec);
+    }
+
+    if (compressionLevel < 1 || compressionLevel > 9) {
+      throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+    }
+
+    this.acceptEncoding = String.join(", ", this.contentCodecs.keySet());
+    this.compressionLevel = compressionLevel;
+    this.minCompressionSize = minCompressionSize;
+  }
+
+  /**
+   * @return the value of the {@code Accept-Encoding} header sent to the back-end
+   */
+  String getAcceptEncoding() {
+    return acceptEncoding;
+  }
+
+  /**
+   * @param httpRequest the request as received from the client
+   * @param httpHeaders the response headers of the back-end
+   */
+  ContentTranscoding negotiate(HttpRequest httpRequest, int statusCode, HttpHeaders httpHeaders) {
+    List<String> acceptEncodingHeaders = httpRequest.headers().allValues("Accept-Encoding");
+    List<String> contentCodings = getContentCodings(httpHeaders);
+    ContentCodec decoder = null;
+
+    if (contentCodings.size() == 1) {
+      String contentCoding = contentCodings.get(0);
+
+      if (isAccepted(acceptEncodingHeaders, contentCoding)) {
+        return ContentTranscoding.identity(createHeaders(httpHeaders, null, false));
+      }
+
+      decoder = contentCodecs.get(contentCoding);
+    }
+
+    boolean unknownContentCoding =
+        contentCodings.size() > 1 || (contentCodings.size() == 1 && decoder == null);
+
+    // unknown or stacked codings are passed on, just like bodies that must not be transformed
+    if (unknownContentCoding
+        || isBodyless(statusCode, httpHeaders)
+        || ResponseCache.parseCacheControlDirectives(httpHeaders).containsKey("no-transform")) {
+      return ContentTranscoding.identity(createHeaders(httpHeaders, null, false));
+    }
+
+    ContentCodec encoder = null;
+
+    if (isCompressible(httpHeaders)) {
+      for (ContentCodec contentCodec : contentCodecs.values()) {
+        if (isAccepted(acceptEncodingHeaders, contentCodec.getName())) {
+          encoder = contentCodec;
+          break;
+        }
+      }
+    }
+
+    if (decoder == null && encoder == null) {
+      return ContentTranscoding.identity(createHeaders(httpHeaders, null, false));
+    }
+
+    return new ContentTranscoding(
+        decoder, encoder, compressionLevel, createHeaders(httpHeaders, encoder, true));
+  }
+
+  private boolean isCompressible(HttpHeaders httpHeaders) {
+    if (httpHeaders.firstValue("Content-Range").isPresent()) {
+      return false;
+    }
+
+    String contentType =
+        httpHeaders.firstValue("Content-Type").orElse("").toLowerCase(Locale.ENGLISH);
+
+    for (String incompressibleContentTypePrefix : INCOMPRESSIBLE_CONTENT_TYPE_PREFIXES) {
+      if (contentType.startsWith(incompressibleContentTypePrefix)) {
+        return false;
+      }
+    }
+
+    OptionalLong contentLength = httpHeaders.firstValueAsLong("Content-Length");
+    return contentLength.isEmpty() || contentLength.getAsLong() >= minCompressionSize;
+  }
+}
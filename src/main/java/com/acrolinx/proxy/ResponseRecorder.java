@@ -0,0 +1,113 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+
+/**
+ * Records a copy of a response body while it is streamed to the client. Recording stops for good
+ * once the body exceeds the maximum size, so large responses are still streamed without being
+ * buffered.
+ */
+final class ResponseRecorder {
+  private final ByteArrayOutputStream byteArrayOutputStream;
+  private final HttpHeaders headers;
+  private final int maxBodySize;
+  private boolean overflowed;
+  private final long receivedNanos = System.nanoTime();
+  private final int statusCode;
+
+  ResponseRecorder(int statusCode, HttpHeaders headers, int maxBodySize) {
+    this.statusCode = statusCode;
+    this.headers = headers;
+    this.maxBodySize = maxBodySize;
+
+    long contentLength = headers.firstValueAsLong("Content-Length").orElse(0);
+    byteArrayOutputStream =
+        new ByteArrayOutputStream((int) Math.min(Math.max(contentLength, 32), maxBodySize));
+  }
+
+  void record(byte[] buffer, int offset, int length) {
+    if (fits(length)) {
+      byteArrayOutputStream.write(buffer, offset, length);
+    }
+  }
+
+  /** Copies the remaining bytes of the buffer without changing its position. */
+  void record(ByteBuffer byteBuffer) {
+    int length = byteBuffer.remaining();
+
+    if (!fits(length)) {
+      return;
+    }
+
+    if (byteBuffer.hasArray()) {
+      byteArrayOutputStream.write(
+          byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length);
+    } else {
+      byte[] bytes = new byte[length];
+      byteBuffer.duplicate().get(bytes);
+      byteArrayOutputStream.write(bytes, 0, length);
+    }
+  }
+
+  /**
+   * @return a stream that records all data read from the given stream
+   */
+  InputStream record(InputStream inputStream) {
+    return new FilterInputStream(inputStream) {
+      @Override
+      public int read() throws IOException {
+        int data = super.read();
+
+        if (data != -1) {
+          record(new byte[] {(byte) data}, 0, 1);
+        }
+
+        return data;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        int numberOfReadBytes = super.read(buffer, offset, length);
+
+        if (numberOfReadBytes > 0) {
+          record(buffer, offset, numberOfReadBytes);
+        }
+
+        return numberOfReadBytes;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        // skipped data would be missing from the recording
+        return Math.max(read(new byte[(int) Math.min(n, 8192)]), 0);
+      }
+    };
+  }
+
+  /**
+   * @return the recorded response, or {@code null} if its body exceeded the maximum size
+   */
+  BufferedResponse toBufferedResponse() {
+    if (overflowed) {
+      return null;
+    }
+
+    return new BufferedResponse(
+        statusCode, headers, byteArrayOutputStream.toByteArray(), receivedNanos);
+  }
+
+  private boolean fits(int length) {
+    if (!overflowed && byteArrayOutputStream.size() + (long) length > maxBodySize) {
+      overflowed = true;
+      byteArrayOutputStream.reset();
+    }
+
+    return !overflowed;
+  }
+}
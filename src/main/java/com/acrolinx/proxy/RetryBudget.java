@@ -0,0 +1,55 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the retries and hedged requests to a share of the requests, so that they cut the tail
+ * latency while Acrolinx is healthy but do not multiply the load while it fails. Each request
+ * deposits the share of a retry, and each retry withdraws a whole one. A minimum number of retries
+ * per second is always allowed, so that a proxy with little traffic can still retry.
+ *
+ * <p>The budget saves up the retries of at most ten seconds at the minimum rate, but at least ten
+ * retries, so that a long calm period does not allow a burst of retries once Acrolinx fails.
+ */
+final class RetryBudget {
+  private static final double MIN_MAX_BALANCE = 10;
+  private static final double SAVED_SECONDS = 10;
+
+  private double balance;
+  private final double maxBalance;
+  private final double minRetriesPerNano;
+  private long refillNanos = System.nanoTime();
+  private final double retryRatio;
+
+  /**
+   * @param retryRatio the number of retries per request
+   * @param minRetriesPerSecond the number of retries per second that are allowed regardless of the
+   *     number of requests
+   */
+  RetryBudget(double retryRatio, double minRetriesPerSecond) {
+    this.retryRatio = retryRatio;
+    this.minRetriesPerNano = minRetriesPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.maxBalance = Math.max(MIN_MAX_BALANCE, SAVED_SECONDS * minRetriesPerSecond);
+  }
+
+  synchronized void requestSent() {
+    balance = Math.min(balance + retryRatio, maxBalance);
+  }
+
+  /**
+   * @return {@code true} if the budget allows another retry, which it then accounts for
+   */
+  synchronized boolean tryWithdraw() {
+    long nowNanos = System.nanoTime();
+    balance = Math.min(balance + (nowNanos - refillNanos) * minRetriesPerNano, maxBalance);
+    refillNanos = nowNanos;
+
+    if (balance < 1) {
+      return false;
+    }
+
+    balance--;
+    return true;
+  }
+}
@@ -0,0 +1,137 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a GET request to Acrolinx is sent once more. A request that failed before its
+ * response headers arrived, since the connection was refused or reset, is retried after a backoff
+ * that grows exponentially and is spread at random, so that the retries of many clients do not
+ * arrive at once. A request whose response headers take longer than a percentile of the recent
+ * response times is hedged by sending a copy to another node. Both count against a {@link
+ * RetryBudget}.
+ *
+ * <p>The hedge delay is the percentile of the response times of the previous window of requests, so
+ * that it follows the back-end when it gets slower or faster. Requests are only hedged once the
+ * first window is complete.
+ */
+final class RetryPolicy {
+  /** The hedge delay while requests are not hedged. */
+  static final long NO_HEDGING = Long.MAX_VALUE;
+
+  // the message of the exception of the HTTP client when the node reset the connection
+  private static final String CONNECTION_RESET_MESSAGE = "Connection reset";
+  private static final int HEDGE_WINDOW_SIZE = 1000;
+  private static final int MAX_BACKOFF_EXPONENT = 20;
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+
+  static boolean isRetryable(HttpRequest httpRequest) {
+    return "GET".equals(httpRequest.method());
+  }
+
+  /**
+   * @return {@code true} if the connection was refused or reset, but not for any other failure,
+   *     such as a timeout or a protocol error, since a retry would only add to the load of a
+   *     failing back-end
+   */
+  static boolean isRetryableFailure(Throwable throwable) {
+    Throwable cause =
+        throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable;
+    return cause instanceof ConnectException
+        || cause instanceof SocketException
+        || (cause instanceof IOException && CONNECTION_RESET_MESSAGE.equals(cause.getMessage()));
+  }
+
+  private final long backoffNanos;
+  private volatile long hedgeDelayNanos = NO_HEDGING;
+  private final double hedgePercentile;
+  private volatile LatencyHistogram hedgeWindow = new LatencyHistogram();
+  private final long maxBackoffNanos;
+  private final int maxRetries;
+  private final RetryBudget retryBudget;
+
+  /**
+   * @param maxRetries the maximum number of retries of a request
+   * @param backoff the backoff before the first retry, which doubles with each further retry
+   * @param hedgePercentile the percentile of the response times after which a request is hedged, or
+   *     {@code 0} to not hedge requests
+   */
+  RetryPolicy(
+      int maxRetries,
+      Duration backoff,
+      Duration maxBackoff,
+      double hedgePercentile,
+      RetryBudget retryBudget) {
+    this.maxRetries = maxRetries;
+    this.backoffNanos = backoff.toNanos();
+    this.maxBackoffNanos = maxBackoff.toNanos();
+    this.hedgePercentile = hedgePercentile;
+    this.retryBudget = retryBudget;
+  }
+
+  /**
+   * @param retry the number of the retry, starting at {@code 0}
+   * @return a random backoff between zero and the exponential backoff of the retry
+   */
+  long getBackoffNanos(int retry) {
+    long exponentialBackoffNanos =
+        Math.min(maxBackoffNanos, backoffNanos << Math.min(retry, MAX_BACKOFF_EXPONENT));
+    return exponentialBackoffNanos <= 0
+        ? 0
+        : ThreadLocalRandom.current().nextLong(exponentialBackoffNanos + 1);
+  }
+
+  /**
+   * @return the time after which a copy of a request is sent to another node, or {@link
+   *     #NO_HEDGING}
+   */
+  long getHedgeDelayNanos() {
+    return hedgeDelayNanos;
+  }
+
+  int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * @param responseNanos the time from sending a request until its response headers arrived
+   */
+  void responseReceived(long responseNanos) {
+    if (hedgePercentile <= 0) {
+      return;
+    }
+
+    LatencyHistogram currentHedgeWindow = hedgeWindow;
+    currentHedgeWindow.record(responseNanos);
+
+    if (currentHedgeWindow.getCount() >= HEDGE_WINDOW_SIZE) {
+      hedgeWindow = new LatencyHistogram();
+      hedgeDelayNanos = currentHedgeWindow.getPercentileNanos(hedgePercentile);
+    }
+  }
+
+  /** Called once for each request that may be retried or hedged. */
+  void requestSent() {
+    retryBudget.requestSent();
+  }
+
+  /**
+   * @return {@code true} if the budget allows to retry or hedge a request
+   */
+  boolean tryAcquireRetry() {
+    if (retryBudget.tryWithdraw()) {
+      return true;
+    }
+
+    PROXY_METRICS.retryRejected();
+    return false;
+  }
+}
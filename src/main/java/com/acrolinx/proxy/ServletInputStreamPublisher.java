@@ -0,0 +1,196 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the body of an asynchronous servlet request to the HttpClient. The servlet input stream
+ * is only read while the HttpClient signals demand and while the container reports that data can be
+ * read without blocking.
+ */
+final class ServletInputStreamPublisher implements BodyPublisher {
+  private static final int END_OF_STREAM = -1;
+
+  private final BufferPool bufferPool;
+  private final long contentLength;
+  private final HttpServletRequest httpServletRequest;
+  private final long maxBodySize;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final int transferBufferSize;
+
+  /**
+   * @param contentLength the length of the body declared by the client, or {@code -1}
+   * @param maxBodySize the maximum size of the body, or {@code -1} if it is not limited
+   */
+  ServletInputStreamPublisher(
+      HttpServletRequest httpServletRequest,
+      BufferPool bufferPool,
+      int transferBufferSize,
+      long contentLength,
+      long maxBodySize) {
+    this.httpServletRequest = httpServletRequest;
+    this.bufferPool = bufferPool;
+    this.transferBufferSize = transferBufferSize;
+    this.contentLength = contentLength;
+    this.maxBodySize = maxBodySize;
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new ReadListenerSubscription(subscriber, null));
+      subscriber.onError(new IllegalStateException("The request body can only be read once"));
+      return;
+    }
+
+    final ServletInputStream servletInputStream;
+
+    try {
+      servletInputStream = httpServletRequest.getInputStream();
+    } catch (IOException e) {
+      subscriber.onSubscribe(new ReadListenerSubscription(subscriber, null));
+      subscriber.onError(e);
+      return;
+    }
+
+    ReadListenerSubscription readListenerSubscription =
+        new ReadListenerSubscription(subscriber, servletInputStream);
+    subscriber.onSubscribe(readListenerSubscription);
+    servletInputStream.setReadListener(readListenerSubscription);
+  }
+
+  private final class ReadListenerSubscription implements Flow.Subscription, ReadListener {
+    private volatile boolean allDataRead;
+    private volatile boolean cancelled;
+    private final AtomicLong demand = new AtomicLong();
+    private boolean done;
+    private volatile Throwable failure;
+    private long numberOfReadBytes;
+    private final ServletInputStream servletInputStream;
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final AtomicInteger workInProgress = new AtomicInteger();
+
+    ReadListenerSubscription(
+        Flow.Subscriber<? super ByteBuffer> subscriber, ServletInputStream servletInputStream) {
+      this.subscriber = subscriber;
+      this.servletInputStream = servletInputStream;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public void onAllDataRead() {
+      allDataRead = true;
+      drain();
+    }
+
+    @Override
+    public void onDataAvailable() {
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      failure = throwable;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        failure = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+
+      drain();
+    }
+
+    /**
+     * Serializes all signals to the subscriber. Whichever thread enters first keeps draining until
+     * no other thread has asked for more work in the meantime.
+     */
+    private void drain() {
+      if (servletInputStream == null || workInProgress.getAndIncrement() != 0) {
+        return;
+      }
+
+      do {
+        if (!done && !cancelled) {
+          readAvailableData();
+        }
+      } while (workInProgress.decrementAndGet() != 0);
+    }
+
+    private void finish(Throwable throwable) {
+      done = true;
+
+      if (throwable == null) {
+        subscriber.onComplete();
+      } else {
+        subscriber.onError(throwable);
+      }
+    }
+
+    /**
+     * Reads into a pooled buffer and publishes a copy of exactly the bytes read, since the
+     * container often has less data available than fits into the buffer and the HttpClient does not
+     * signal when it no longer needs a published buffer.
+     */
+    private void readAvailableData() {
+      byte[] buffer = bufferPool.acquire(transferBufferSize);
+
+      try {
+        while (failure == null && demand.get() > 0 && servletInputStream.isReady()) {
+          int numberOfBytes = servletInputStream.read(buffer, 0, transferBufferSize);
+
+          if (numberOfBytes == END_OF_STREAM) {
+            allDataRead = true;
+            break;
+          }
+
+          numberOfReadBytes += numberOfBytes;
+
+          if (maxBodySize >= 0 && numberOfReadBytes > maxBodySize) {
+            finish(new RequestBodyTooLargeException(maxBodySize));
+            return;
+          }
+
+          if (numberOfBytes > 0) {
+            ProxyMetrics.getInstance().requestBodyRead(numberOfBytes);
+            demand.decrementAndGet();
+            subscriber.onNext(ByteBuffer.wrap(Arrays.copyOf(buffer, numberOfBytes)));
+          }
+        }
+
+        if (failure != null) {
+          finish(failure);
+        } else if (allDataRead || servletInputStream.isFinished()) {
+          finish(null);
+        }
+      } catch (IOException | RuntimeException e) {
+        finish(e);
+      } finally {
+        bufferPool.release(buffer);
+      }
+    }
+  }
+}
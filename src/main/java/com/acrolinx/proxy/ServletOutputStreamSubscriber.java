@@ -0,0 +1,170 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the response body received by the HttpClient to an asynchronous servlet response. The next
+ * part of the body is only requested from the HttpClient once everything received so far has been
+ * handed to the container, so a slow client slows down the upstream transfer instead of filling up
+ * the heap.
+ */
+final class ServletOutputStreamSubscriber implements BodySubscriber<Long>, WriteListener {
+  private final CompletableFuture<Long> body = new CompletableFuture<>();
+  private volatile boolean completed;
+  private boolean done;
+  private final ExchangeTimer exchangeTimer;
+  private volatile Throwable failure;
+  private long numberOfTransferredBytes;
+  private final Queue<ByteBuffer> pendingByteBuffers = new ConcurrentLinkedQueue<>();
+  private boolean requested;
+  private final ResponseRecorder responseRecorder;
+  private final ServletOutputStream servletOutputStream;
+  private volatile Flow.Subscription subscription;
+  private final AtomicInteger workInProgress = new AtomicInteger();
+
+  /**
+   * @param responseRecorder records a copy of the body, or {@code null}
+   * @param exchangeTimer is told when the subscriber waits for the next part of the body, or {@code
+   *     null}
+   */
+  ServletOutputStreamSubscriber(
+      ServletOutputStream servletOutputStream,
+      ResponseRecorder responseRecorder,
+      ExchangeTimer exchangeTimer) {
+    this.servletOutputStream = servletOutputStream;
+    this.responseRecorder = responseRecorder;
+    this.exchangeTimer = exchangeTimer;
+  }
+
+  @Override
+  public CompletionStage<Long> getBody() {
+    return body;
+  }
+
+  @Override
+  public void onComplete() {
+    completed = true;
+    drain();
+  }
+
+  /**
+   * Called by the HttpClient when the upstream transfer fails, by the container when writing to the
+   * client fails, by the {@link ExchangeTimer} when a timeout expired, and once the client
+   * disconnected.
+   */
+  @Override
+  public void onError(Throwable throwable) {
+    failure = throwable;
+    drain();
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> byteBuffers) {
+    if (exchangeTimer != null) {
+      exchangeTimer.waitingFinished();
+    }
+
+    pendingByteBuffers.addAll(byteBuffers);
+    drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+
+    if (failure != null) {
+      // a timeout expired before the HttpClient subscribed
+      subscription.cancel();
+      return;
+    }
+
+    // the container calls onWritePossible as soon as the response can be written
+    servletOutputStream.setWriteListener(this);
+  }
+
+  @Override
+  public void onWritePossible() {
+    drain();
+  }
+
+  /**
+   * Serializes the callbacks of the HttpClient and of the container. Whichever thread enters first
+   * keeps writing until no other thread has asked for more work in the meantime.
+   */
+  private void drain() {
+    if (workInProgress.getAndIncrement() != 0) {
+      return;
+    }
+
+    do {
+      if (!done) {
+        writePendingByteBuffers();
+      }
+    } while (workInProgress.decrementAndGet() != 0);
+  }
+
+  private void fail(Throwable throwable) {
+    done = true;
+    pendingByteBuffers.clear();
+    Flow.Subscription currentSubscription = subscription;
+
+    if (currentSubscription != null) {
+      currentSubscription.cancel();
+    }
+
+    body.completeExceptionally(throwable);
+  }
+
+  private void writePendingByteBuffers() {
+    if (failure != null) {
+      fail(failure);
+      return;
+    }
+
+    try {
+      while (servletOutputStream.isReady()) {
+        ByteBuffer byteBuffer = pendingByteBuffers.poll();
+
+        if (byteBuffer == null) {
+          if (completed) {
+            done = true;
+            body.complete(numberOfTransferredBytes);
+          } else if (!requested) {
+            requested = true;
+
+            if (exchangeTimer != null) {
+              exchangeTimer.waitingStarted();
+            }
+
+            subscription.request(1);
+          }
+
+          return;
+        }
+
+        requested = false;
+        numberOfTransferredBytes += byteBuffer.remaining();
+
+        if (responseRecorder != null) {
+          responseRecorder.record(byteBuffer);
+        }
+
+        servletOutputStream.write(byteBuffer);
+      }
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The timeouts of the requests whose path info matches one of the {@link PathPatterns} of the
+ * policy, so that fast endpoints fail fast while report downloads may take long.
+ */
+final class TimeoutPolicy {
+  /** The value of a timeout that does not apply. */
+  static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+  /**
+   * @return the duration in nanoseconds, or {@link #NO_TIMEOUT} if the duration is zero
+   */
+  static long toTimeoutNanos(Duration duration) {
+    return duration.isZero() ? NO_TIMEOUT : duration.toNanos();
+  }
+
+  private final long idleTimeoutNanos;
+  private final String name;
+  private final List<String> pathPatterns;
+  private final Duration responseTimeout;
+  private final long totalTimeoutNanos;
+
+  /**
+   * @param responseTimeout the maximum time until the response headers arrived
+   * @param totalTimeoutNanos the maximum time of the whole exchange, or {@link #NO_TIMEOUT}
+   * @param idleTimeoutNanos the maximum time between two parts of the response body, or {@link
+   *     #NO_TIMEOUT}
+   */
+  TimeoutPolicy(
+      String name,
+      List<String> pathPatterns,
+      Duration responseTimeout,
+      long totalTimeoutNanos,
+      long idleTimeoutNanos) {
+    this.name = name;
+    this.pathPatterns = List.copyOf(pathPatterns);
+    this.responseTimeout = responseTimeout;
+    this.totalTimeoutNanos = totalTimeoutNanos;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  long getIdleTimeoutNanos() {
+    return idleTimeoutNanos;
+  }
+
+  Duration getResponseTimeout() {
+    return responseTimeout;
+  }
+
+  long getTotalTimeoutNanos() {
+    return totalTimeoutNanos;
+  }
+
+  boolean matches(String pathInfo) {
+    return PathPatterns.matches(pathPatterns, pathInfo);
+  }
+}
@@ -0,0 +1,88 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A class of requests, such as interactive checks or report downloads, with its own budget of
+ * requests to Acrolinx in flight and its own queue. A request belongs to the class if its path info
+ * matches one of the {@link PathPatterns} of the class. The state is guarded by the {@link
+ * ConcurrencyLimiter} that the class belongs to.
+ */
+final class TrafficClass {
+  private volatile int inFlight;
+  private final int maxInFlight;
+  private final int maxQueueSize;
+  private final String name;
+  private final List<String> pathPatterns;
+  private volatile int queuedRequests;
+  private final ArrayDeque<CompletableFuture<Boolean>> waiters = new ArrayDeque<>();
+
+  /**
+   * @param maxInFlight the maximum number of requests of this class in flight
+   * @param maxQueueSize the maximum number of requests of this class that wait for a free slot
+   */
+  TrafficClass(String name, List<String> pathPatterns, int maxInFlight, int maxQueueSize) {
+    this.name = name;
+    this.pathPatterns = List.copyOf(pathPatterns);
+    this.maxInFlight = maxInFlight;
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  boolean addWaiter(CompletableFuture<Boolean> waiter) {
+    if (waiters.size() >= maxQueueSize) {
+      return false;
+    }
+
+    waiters.add(waiter);
+    queuedRequests = waiters.size();
+    return true;
+  }
+
+  int getInFlight() {
+    return inFlight;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getQueuedRequests() {
+    return queuedRequests;
+  }
+
+  boolean hasBudget() {
+    return inFlight < maxInFlight;
+  }
+
+  boolean matches(String pathInfo) {
+    return PathPatterns.matches(pathPatterns, pathInfo);
+  }
+
+  CompletableFuture<Boolean> pollWaiter() {
+    CompletableFuture<Boolean> waiter = waiters.poll();
+    queuedRequests = waiters.size();
+    return waiter;
+  }
+
+  boolean removeWaiter(CompletableFuture<Boolean> waiter) {
+    boolean removed = waiters.remove(waiter);
+    queuedRequests = waiters.size();
+    return removed;
+  }
+
+  void requestFinished() {
+    inFlight--;
+  }
+
+  void requestStarted() {
+    inFlight++;
+  }
+}
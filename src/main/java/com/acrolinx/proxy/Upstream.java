@@ -0,0 +1,194 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An Acrolinx back-end node together with the load that the proxy currently puts on it and its
+ * health. A node is unavailable while the active health checks consider it unhealthy or while it is
+ * ejected after consecutive failed requests. Each ejection of a node lasts longer than the previous
+ * one, up to ten times the base duration, until the node serves requests again. When a node becomes
+ * available again, it only receives a growing share of its usual requests during the following base
+ * duration, so that it is not overwhelmed right away. A node is also unavailable while its circuit
+ * breaker does not permit calls.
+ */
+final class Upstream {
+  private static final int HEALTH_CHECK_THRESHOLD = 2;
+  private static final double LATENCY_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final Logger LOGGER = LoggerFactory.getLogger(Upstream.class);
+  private static final int MAX_EJECTION_MULTIPLIER = 10;
+  private static final double MIN_ADMISSION_PROBABILITY = 0.1;
+
+  private final CircuitBreaker circuitBreaker;
+  private final int consecutiveFailureThreshold;
+  private int consecutiveFailures;
+  private int consecutiveProbeResults;
+  private final long ejectionNanos;
+  private int ejections;
+  private volatile boolean healthy = true;
+  private long lastLatencyNanos;
+  private volatile double latencyNanos;
+  private final AtomicInteger outstandingRequests = new AtomicInteger();
+  private volatile long readmissionNanos;
+  private final String url;
+
+  /**
+   * @param url the base URL of the node without a trailing slash
+   * @param consecutiveFailureThreshold the number of consecutive failed requests after which the
+   *     node is ejected, or {@code 0} to never eject it
+   * @param ejectionDuration the base duration of an ejection
+   */
+  Upstream(
+      String url,
+      int consecutiveFailureThreshold,
+      Duration ejectionDuration,
+      CircuitBreaker circuitBreaker) {
+    this.url = url;
+    this.consecutiveFailureThreshold = consecutiveFailureThreshold;
+    this.ejectionNanos = ejectionDuration.toNanos();
+    this.circuitBreaker = circuitBreaker;
+    readmissionNanos = System.nanoTime() - ejectionNanos;
+  }
+
+  @Override
+  public String toString() {
+    return url;
+  }
+
+  /**
+   * @return the probability between 0.1 and 1 with which the node accepts a request that would go
+   *     to it, which grows linearly while the node is readmitted
+   */
+  double getAdmissionProbability(long nowNanos) {
+    long readmittedNanos = nowNanos - readmissionNanos;
+
+    if (readmittedNanos >= ejectionNanos) {
+      return 1;
+    }
+
+    return Math.max((double) readmittedNanos / ejectionNanos, MIN_ADMISSION_PROBABILITY);
+  }
+
+  CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * @return the moving average of the time until the node sent its response headers, or zero if it
+   *     has not responded yet
+   */
+  double getLatencyNanos() {
+    return latencyNanos;
+  }
+
+  int getOutstandingRequests() {
+    return outstandingRequests.get();
+  }
+
+  String getUrl() {
+    return url;
+  }
+
+  boolean isAvailable(long nowNanos) {
+    return healthy && nowNanos - readmissionNanos >= 0 && circuitBreaker.isCallPermitted(nowNanos);
+  }
+
+  /**
+   * Records the result of an active health check. The health of the node only changes after two
+   * consecutive checks agree.
+   */
+  synchronized void probed(boolean successful) {
+    if (successful == healthy) {
+      consecutiveProbeResults = 0;
+      return;
+    }
+
+    if (++consecutiveProbeResults < HEALTH_CHECK_THRESHOLD) {
+      return;
+    }
+
+    consecutiveProbeResults = 0;
+    healthy = successful;
+
+    if (successful) {
+      long nowNanos = System.nanoTime();
+
+      if (nowNanos - readmissionNanos > 0) {
+        readmissionNanos = nowNanos;
+      }
+
+      LOGGER.info("Health checks of {} succeeded again", url);
+    } else {
+      LOGGER.warn("Health checks of {} failed", url);
+    }
+  }
+
+  /**
+   * Called when the node could not be connected to or did not respond in time.
+   *
+   * @return {@code true} if the node has been ejected
+   */
+  synchronized boolean requestFailed() {
+    consecutiveFailures++;
+    long nowNanos = System.nanoTime();
+
+    if (consecutiveFailureThreshold == 0
+        || consecutiveFailures < consecutiveFailureThreshold
+        || nowNanos - readmissionNanos < 0) {
+      return false;
+    }
+
+    consecutiveFailures = 0;
+    ejections = Math.min(ejections + 1, MAX_EJECTION_MULTIPLIER);
+    readmissionNanos = nowNanos + ejectionNanos * ejections;
+    LOGGER.warn(
+        "Ejected {} for {} after {} consecutive failures",
+        url,
+        Duration.ofNanos(ejectionNanos * ejections),
+        consecutiveFailureThreshold);
+    return true;
+  }
+
+  void requestFinished() {
+    outstandingRequests.decrementAndGet();
+  }
+
+  void requestStarted() {
+    outstandingRequests.incrementAndGet();
+  }
+
+  /**
+   * @param responseNanos the time from sending the request until the response headers arrived
+   */
+  synchronized void responseReceived(long responseNanos) {
+    long nowNanos = System.nanoTime();
+
+    if (responseNanos > latencyNanos) {
+      latencyNanos = responseNanos;
+    } else {
+      double weight = Math.exp(-(nowNanos - lastLatencyNanos) / LATENCY_DECAY_NANOS);
+      latencyNanos = latencyNanos * weight + responseNanos * (1 - weight);
+    }
+
+    lastLatencyNanos = nowNanos;
+    consecutiveFailures = 0;
+
+    if (nowNanos - readmissionNanos >= ejectionNanos) {
+      // the node has served requests for a while since it was readmitted
+      ejections = 0;
+    }
+  }
+
+  /**
+   * @return the permission of the circuit breaker to send a request to the node, or {@code null} if
+   *     the breaker does not permit it
+   */
+  UpstreamPermit tryAcquirePermit() {
+    long epoch = circuitBreaker.tryAcquirePermission();
+    return epoch == CircuitBreaker.NOT_PERMITTED ? null : new UpstreamPermit(this, epoch);
+  }
+}
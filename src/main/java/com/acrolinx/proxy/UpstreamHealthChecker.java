@@ -0,0 +1,82 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Probes each Acrolinx node at a fixed interval. A node passes a check if it responds in time with
+ * a status code below 500, so that a login page or a redirect still counts as healthy.
+ */
+final class UpstreamHealthChecker implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamHealthChecker.class);
+
+  private final String healthCheckPath;
+  private final HttpClient httpClient;
+  private volatile ScheduledFuture<?> scheduledFuture;
+  private final Duration timeoutDuration;
+  private final List<Upstream> upstreams;
+
+  UpstreamHealthChecker(
+      HttpClient httpClient,
+      List<Upstream> upstreams,
+      String healthCheckPath,
+      Duration timeoutDuration) {
+    this.httpClient = httpClient;
+    this.upstreams = upstreams;
+    this.healthCheckPath = healthCheckPath;
+    this.timeoutDuration = timeoutDuration;
+  }
+
+  @Override
+  public void close() {
+    ScheduledFuture<?> future = scheduledFuture;
+
+    if (future != null) {
+      future.cancel(false);
+    }
+  }
+
+  void start(ScheduledExecutorService scheduledExecutorService, Duration interval) {
+    scheduledFuture =
+        scheduledExecutorService.scheduleWithFixedDelay(
+            this::checkAll, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void check(Upstream upstream) {
+    HttpRequest httpRequest =
+        HttpRequest.newBuilder(URI.create(upstream.getUrl() + healthCheckPath))
+            .GET()
+            .header("User-Agent", AcrolinxProxyHttpServlet.USER_AGENT)
+            .header("X-Acrolinx-Integration-Proxy-Version", AcrolinxProxyHttpServlet.PROXY_VERSION)
+            .timeout(timeoutDuration)
+            .build();
+
+    httpClient
+        .sendAsync(httpRequest, BodyHandlers.discarding())
+        .whenComplete(
+            (httpResponse, throwable) -> {
+              if (throwable != null) {
+                LOGGER.debug("Health check of {} failed", upstream, throwable);
+                upstream.probed(false);
+              } else {
+                upstream.probed(httpResponse.statusCode() < 500);
+              }
+            });
+  }
+
+  private void checkAll() {
+    for (Upstream upstream : upstreams) {
+      check(upstream);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+/**
+ * The permission of the circuit breaker of a node to send it one request. The result of the request
+ * only counts for the breaker if it is still in the state in which it granted the permission.
+ */
+final class UpstreamPermit {
+  private final long epoch;
+  private final Upstream upstream;
+
+  /**
+   * @param epoch the value returned by {@link CircuitBreaker#tryAcquirePermission()}
+   */
+  UpstreamPermit(Upstream upstream, long epoch) {
+    this.upstream = upstream;
+    this.epoch = epoch;
+  }
+
+  @Override
+  public String toString() {
+    return upstream.toString();
+  }
+
+  /** Must be called once the request is finished, whether it has a result or not. */
+  void callFinished() {
+    upstream.getCircuitBreaker().callFinished(epoch);
+  }
+
+  Upstream getUpstream() {
+    return upstream;
+  }
+
+  void onFailure() {
+    upstream.getCircuitBreaker().onFailure(epoch);
+  }
+
+  /**
+   * @param responseNanos the time from sending the request until the response headers arrived
+   */
+  void onSuccess(long responseNanos) {
+    upstream.getCircuitBreaker().onSuccess(epoch, responseNanos);
+  }
+}
@@ -0,0 +1,370 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The requests to Acrolinx on behalf of one client request. A GET request that fails before its
+ * response headers arrive is retried on another node, and one whose response headers take longer
+ * than the hedge delay is hedged by sending a copy to another node. The first request whose
+ * response headers arrive answers the client, and all other requests are cancelled.
+ *
+ * <p>Each request is accounted for with its node once it is finished, except the one that answers
+ * the client, which the caller takes from the upstream reference once the response body was
+ * transferred. Each request carries the permit of the circuit breaker of its node, so that its
+ * result only counts for the state of the breaker in which it was sent.
+ */
+final class UpstreamRequests<T> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamRequests.class);
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+
+  private final AtomicBoolean answered = new AtomicBoolean();
+  private final BodyHandler<T> bodyHandler;
+  private final ExchangeTimer exchangeTimer;
+  private volatile ScheduledFuture<?> hedgeFuture;
+  private final HttpClient httpClient;
+  private final Listener listener;
+  private final LoadBalancer loadBalancer;
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  private final Function<Upstream, HttpRequest> requestFactory;
+  private final List<CompletableFuture<?>> requestFutures = new ArrayList<>();
+  private final CompletableFuture<HttpResponse<T>> responseFuture = new CompletableFuture<>();
+  private final AtomicInteger retries = new AtomicInteger();
+  private final RetryPolicy retryPolicy;
+  private final ScheduledExecutorService scheduledExecutorService;
+  private final AtomicReference<UpstreamPermit> upstreamReference;
+
+  /**
+   * @param retryPolicy the policy for retrying and hedging the request, or {@code null} if it is
+   *     neither retried nor hedged
+   * @param requestFactory creates the request to the given node
+   * @param exchangeTimer enforces the total and idle timeouts, or {@code null} if there are none
+   * @param upstreamReference receives the permit of the request whose response answers the client
+   */
+  UpstreamRequests(
+      HttpClient httpClient,
+      LoadBalancer loadBalancer,
+      ScheduledExecutorService scheduledExecutorService,
+      Listener listener,
+      RetryPolicy retryPolicy,
+      Function<Upstream, HttpRequest> requestFactory,
+      ExchangeTimer exchangeTimer,
+      BodyHandler<T> bodyHandler,
+      AtomicReference<UpstreamPermit> upstreamReference) {
+    this.httpClient = httpClient;
+    this.loadBalancer = loadBalancer;
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.listener = listener;
+    this.retryPolicy = retryPolicy;
+    this.requestFactory = requestFactory;
+    this.exchangeTimer = exchangeTimer;
+    this.bodyHandler = bodyHandler;
+    this.upstreamReference = upstreamReference;
+
+    responseFuture.whenComplete(
+        (httpResponse, throwable) -> {
+          cancelHedge();
+
+          if (responseFuture.isCancelled()) {
+            cancelRequests(null);
+          }
+        });
+  }
+
+  /**
+   * Sends the request to the node whose circuit breaker granted the given permit.
+   *
+   * @return the response of the request that answers the client, which cancels all requests if it
+   *     is cancelled before the response headers arrived
+   */
+  CompletableFuture<HttpResponse<T>> send(UpstreamPermit permit) {
+    sendRequest(permit, false /* hedged */);
+
+    if (retryPolicy != null) {
+      retryPolicy.requestSent();
+      long hedgeDelayNanos = retryPolicy.getHedgeDelayNanos();
+
+      if (hedgeDelayNanos != RetryPolicy.NO_HEDGING
+          && (exchangeTimer == null || hedgeDelayNanos < exchangeTimer.getRemainingNanos())) {
+        hedgeFuture =
+            scheduledExecutorService.schedule(
+                () -> hedge(permit.getUpstream()), hedgeDelayNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    return responseFuture;
+  }
+
+  private void cancelHedge() {
+    ScheduledFuture<?> future = hedgeFuture;
+
+    if (future != null) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * @param winningRequestFuture the request that answers the client, or {@code null} to cancel all
+   *     requests
+   */
+  private synchronized void cancelRequests(CompletableFuture<?> winningRequestFuture) {
+    for (CompletableFuture<?> requestFuture : requestFutures) {
+      if (requestFuture != winningRequestFuture) {
+        // Cancelling a request before its response headers arrived closes its connection
+        requestFuture.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * @return the handler of the response of a request, which only hands the response to the body
+   *     handler of the caller if it is the first one to arrive
+   */
+  private BodyHandler<T> createBodyHandler(
+      UpstreamPermit permit,
+      boolean hedged,
+      AtomicBoolean won,
+      AtomicReference<CompletableFuture<?>> requestFutureReference,
+      AtomicReference<Version> version) {
+    long upstreamStartNanos = System.nanoTime();
+
+    return responseInfo -> {
+      long responseNanos = System.nanoTime() - upstreamStartNanos;
+      listener.responseReceived(
+          permit, responseInfo.statusCode(), responseInfo.version(), responseNanos);
+      version.set(responseInfo.version());
+
+      if (retryPolicy != null) {
+        retryPolicy.responseReceived(responseNanos);
+      }
+
+      if (!answered.compareAndSet(false, true)) {
+        // another request answers the client, so the body of this one is discarded
+        return BodySubscribers.replacing(null);
+      }
+
+      won.set(true);
+      upstreamReference.set(permit);
+      cancelHedge();
+      cancelRequests(requestFutureReference.get());
+
+      if (hedged) {
+        PROXY_METRICS.hedgedRequestWon();
+      }
+
+      if (responseFuture.isDone()) {
+        // the caller cancelled the requests in the meantime
+        return BodySubscribers.replacing(null);
+      }
+
+      return bodyHandler.apply(responseInfo);
+    };
+  }
+
+  /**
+   * Sends a copy of the request to another node, if the request has not been answered yet and the
+   * budget allows it.
+   */
+  private void hedge(Upstream slowUpstream) {
+    if (answered.get() || responseFuture.isDone() || pendingRequests.get() == 0) {
+      return;
+    }
+
+    Upstream upstream = loadBalancer.selectAlternative(slowUpstream);
+
+    if (upstream == null || !retryPolicy.tryAcquireRetry()) {
+      return;
+    }
+
+    UpstreamPermit permit = upstream.tryAcquirePermit();
+
+    if (permit == null) {
+      return;
+    }
+
+    LOGGER.debug("Hedging request to Acrolinx on {}", upstream);
+    PROXY_METRICS.hedgedRequestSent();
+    sendRequest(permit, true /* hedged */);
+  }
+
+  /**
+   * Registers a request, which is cancelled right away if another request already answers the
+   * client or the caller cancelled the requests.
+   */
+  private synchronized void register(CompletableFuture<?> requestFuture, AtomicBoolean won) {
+    requestFutures.add(requestFuture);
+
+    if ((answered.get() && !won.get()) || responseFuture.isCancelled()) {
+      requestFuture.cancel(true);
+    }
+  }
+
+  private void requestFinished(
+      UpstreamPermit permit,
+      boolean won,
+      Version version,
+      HttpResponse<T> httpResponse,
+      Throwable throwable) {
+    int remainingRequests = pendingRequests.decrementAndGet();
+    Throwable cause =
+        throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable;
+
+    if (won) {
+      if (throwable == null
+          ? responseFuture.complete(httpResponse)
+          : responseFuture.completeExceptionally(cause)) {
+        return;
+      }
+
+      // the caller cancelled the requests before the response could be handed over
+      if (httpResponse != null && httpResponse.body() instanceof InputStream) {
+        AcrolinxProxyHttpServlet.closeUpstreamBody((InputStream) httpResponse.body());
+      }
+
+      if (upstreamReference.compareAndSet(permit, null)) {
+        listener.requestFinished(permit, version);
+      }
+
+      return;
+    }
+
+    if (throwable != null && AcrolinxProxyHttpServlet.isUpstreamFailure(throwable)) {
+      listener.requestFailed(permit);
+    }
+
+    listener.requestFinished(permit, version);
+
+    if (remainingRequests > 0 || answered.get() || responseFuture.isDone()) {
+      return;
+    }
+
+    if (tryRetry(permit.getUpstream(), cause)) {
+      return;
+    }
+
+    if (answered.compareAndSet(false, true)) {
+      responseFuture.completeExceptionally(cause);
+    }
+  }
+
+  private void retry(Upstream failedUpstream, Throwable cause) {
+    if (responseFuture.isDone()) {
+      return;
+    }
+
+    Upstream upstream = loadBalancer.selectAlternative(failedUpstream);
+
+    if (upstream == null) {
+      upstream = failedUpstream;
+    }
+
+    UpstreamPermit permit = upstream.tryAcquirePermit();
+
+    if (permit == null) {
+      if (answered.compareAndSet(false, true)) {
+        responseFuture.completeExceptionally(cause);
+      }
+
+      return;
+    }
+
+    LOGGER.info("Retrying request to Acrolinx on {} after: {}", upstream, cause.toString());
+    sendRequest(permit, false /* hedged */);
+  }
+
+  private void sendRequest(UpstreamPermit permit, boolean hedged) {
+    listener.requestStarted(permit.getUpstream());
+    pendingRequests.incrementAndGet();
+    AtomicBoolean won = new AtomicBoolean();
+    AtomicReference<CompletableFuture<?>> requestFutureReference = new AtomicReference<>();
+    AtomicReference<Version> version = new AtomicReference<>();
+    CompletableFuture<HttpResponse<T>> requestFuture;
+
+    try {
+      requestFuture =
+          httpClient.sendAsync(
+              requestFactory.apply(permit.getUpstream()),
+              createBodyHandler(permit, hedged, won, requestFutureReference, version));
+    } catch (RuntimeException e) {
+      requestFuture = CompletableFuture.failedFuture(e);
+    }
+
+    requestFutureReference.set(requestFuture);
+    register(requestFuture, won);
+    requestFuture.whenComplete(
+        (httpResponse, throwable) ->
+            requestFinished(permit, won.get(), version.get(), httpResponse, throwable));
+  }
+
+  /**
+   * @return {@code true} if the failed request is retried after a backoff
+   */
+  private boolean tryRetry(Upstream failedUpstream, Throwable cause) {
+    if (retryPolicy == null
+        || !RetryPolicy.isRetryableFailure(cause)
+        || retries.get() >= retryPolicy.getMaxRetries()) {
+      return false;
+    }
+
+    long backoffNanos = retryPolicy.getBackoffNanos(retries.get());
+
+    if ((exchangeTimer != null && backoffNanos >= exchangeTimer.getRemainingNanos())
+        || !retryPolicy.tryAcquireRetry()) {
+      return false;
+    }
+
+    retries.incrementAndGet();
+
+    try {
+      scheduledExecutorService.schedule(
+          () -> retry(failedUpstream, cause), backoffNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Could not schedule retry", e);
+      return false;
+    }
+
+    PROXY_METRICS.retrySent();
+    return true;
+  }
+
+  /**
+   * Accounts for each request with its node, in the same way as for requests that are not retried.
+   */
+  interface Listener {
+    /** Called if the request could not connect to the node or did not get a response in time. */
+    void requestFailed(UpstreamPermit permit);
+
+    /** Called once the request is finished, unless it answers the client. */
+    void requestFinished(UpstreamPermit permit, Version version);
+
+    void requestStarted(Upstream upstream);
+
+    /**
+     * @param responseNanos the time from sending the request until the response headers arrived
+     */
+    void responseReceived(
+        UpstreamPermit permit, int statusCode, Version version, long responseNanos);
+  }
+}
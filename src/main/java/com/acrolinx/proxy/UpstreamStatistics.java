@@ -0,0 +1,71 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.http.HttpClient.Version;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the exchanges with the Acrolinx back-end per negotiated HTTP version. The JDK HttpClient
+ * does not expose its connection pool, but the counts below map onto it: every HTTP/1.1 exchange in
+ * flight occupies a connection of its own, whereas all HTTP/2 exchanges with one back-end are
+ * streams multiplexed over a shared connection. The counts are logged and exported as metrics.
+ */
+final class UpstreamStatistics {
+  private static final ProxyMetrics PROXY_METRICS = ProxyMetrics.getInstance();
+  private static final Version[] VERSIONS = Version.values();
+
+  private final LongAdder[] exchangesByVersion = new LongAdder[VERSIONS.length];
+  private final AtomicInteger inFlightExchanges = new AtomicInteger();
+  private final AtomicInteger[] inFlightExchangesByVersion = new AtomicInteger[VERSIONS.length];
+
+  UpstreamStatistics() {
+    for (int i = 0; i < VERSIONS.length; i++) {
+      exchangesByVersion[i] = new LongAdder();
+      inFlightExchangesByVersion[i] = new AtomicInteger();
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder =
+        new StringBuilder("UpstreamStatistics[inFlightExchanges=").append(inFlightExchanges);
+
+    for (Version version : VERSIONS) {
+      stringBuilder
+          .append(", ")
+          .append(version)
+          .append("[inFlight=")
+          .append(inFlightExchangesByVersion[version.ordinal()])
+          .append(", total=")
+          .append(exchangesByVersion[version.ordinal()])
+          .append(']');
+    }
+
+    return stringBuilder.append(']').toString();
+  }
+
+  /**
+   * @param version the negotiated HTTP version, or {@code null} if no response has been received
+   */
+  void exchangeFinished(Version version) {
+    inFlightExchanges.decrementAndGet();
+
+    if (version != null) {
+      inFlightExchangesByVersion[version.ordinal()].decrementAndGet();
+    }
+
+    PROXY_METRICS.upstreamExchangeFinished(version);
+  }
+
+  void exchangeStarted() {
+    inFlightExchanges.incrementAndGet();
+    PROXY_METRICS.upstreamExchangeStarted();
+  }
+
+  void responseReceived(Version version) {
+    exchangesByVersion[version.ordinal()].increment();
+    inFlightExchangesByVersion[version.ordinal()].incrementAndGet();
+    PROXY_METRICS.upstreamResponseReceived(version);
+  }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import com.acrolinx.proxy.HeaderClassifier.HeaderClass;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+class AcrolinxProxyHeaderTest {
+  @Test
+  void classifyHeaderNamesTest() {
+    HeaderClassifier headerClassifier =
+        new HeaderClassifier(
+            Map.of("Connection", HeaderClass.HOP_BY_HOP, "cookie", HeaderClass.COOKIE));
+
+    Assertions.assertEquals(HeaderClass.HOP_BY_HOP, headerClassifier.classify("connection"));
+    Assertions.assertEquals(HeaderClass.HOP_BY_HOP, headerClassifier.classify("CONNECTION"));
+    Assertions.assertEquals(HeaderClass.COOKIE, headerClassifier.classify("Cookie"));
+    Assertions.assertEquals(HeaderClass.END_TO_END, headerClassifier.classify("Cookie2"));
+    Assertions.assertEquals(HeaderClass.END_TO_END, headerClassifier.classify("X-Acrolinx-Client"));
+    Assertions.assertEquals(HeaderClass.END_TO_END, headerClassifier.classify(""));
+  }
+
+  @Test
+  void copyHeadersTest() {
+    HttpServletRequest httpServletRequest = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(httpServletRequest.getHeaderNames())
+        .thenReturn(
+            Collections.enumeration(
+                List.of("Accept", "Connection", "Cookie", "Keep-Alive", "X-Private")));
+    Mockito.when(httpServletRequest.getHeaders("Connection"))
+        .thenReturn(Collections.enumeration(List.of("keep-alive, x-private")));
+    Mockito.when(httpServletRequest.getHeaders("Accept"))
+        .thenReturn(Collections.enumeration(List.of("application/json", "text/plain")));
+    Mockito.when(httpServletRequest.getHeaders("Cookie"))
+        .thenReturn(Collections.enumeration(List.of("session=1", "X-Acrolinx-Auth=2")));
+
+    HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder(URI.create("http://localhost"));
+    AcrolinxProxyHttpServlet.copyHeaders(httpServletRequest, httpRequestBuilder);
+
+    Assertions.assertEquals(
+        Map.of(
+            "Accept",
+            List.of("application/json", "text/plain"),
+            "Cookie",
+            List.of("X-Acrolinx-Auth=2")),
+        httpRequestBuilder.build().headers().map());
+  }
+
+  @Test
+  void filterCookiesTest() {
+    Assertions.assertEquals("", AcrolinxProxyHttpServlet.filterCookies(""));
+    Assertions.assertEquals("", AcrolinxProxyHttpServlet.filterCookies("session=1; other=2"));
+    Assertions.assertEquals(
+        "X-Acrolinx-Auth=1", AcrolinxProxyHttpServlet.filterCookies("X-Acrolinx-Auth=1"));
+    Assertions.assertEquals(
+        "x-acrolinx-a=1; X-ACROLINX-B=2",
+        AcrolinxProxyHttpServlet.filterCookies("x-acrolinx-a=1; session=3;X-ACROLINX-B=2 ;"));
+    Assertions.assertEquals(
+        "X-Acrolinx-A=1", AcrolinxProxyHttpServlet.filterCookies("session=3;\tX-Acrolinx-A=1"));
+  }
+
+  @Test
+  void filterCookiesWithTurkishLocaleTest() {
+    Locale defaultLocale = Locale.getDefault();
+
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+
+      Assertions.assertEquals(
+          "x-acrolinx-id=1", AcrolinxProxyHttpServlet.filterCookies("x-acrolinx-id=1"));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  void transferResponseHeadersTest() {
+    HttpServletResponse httpServletResponse = Mockito.mock(HttpServletResponse.class);
+    HttpHeaders httpHeaders =
+        HttpHeaders.of(
+            Map.of(
+                "Connection", List.of("X-Private"),
+                "Content-Length", List.of("3"),
+                "Set-Cookie", List.of("a=1", "b=2"),
+                "Transfer-Encoding", List.of("chunked"),
+                "X-Private", List.of("secret")),
+            (headerName, headerValue) -> true);
+
+    AcrolinxProxyHttpServlet.transferResponseHeaders(httpServletResponse, httpHeaders);
+
+    InOrder inOrder = Mockito.inOrder(httpServletResponse);
+    inOrder.verify(httpServletResponse).setHeader("Set-Cookie", "a=1");
+    inOrder.verify(httpServletResponse).addHeader("Set-Cookie", "b=2");
+    Mockito.verifyNoMoreInteractions(httpServletResponse);
+  }
+}
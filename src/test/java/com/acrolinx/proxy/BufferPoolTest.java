@@ -0,0 +1,56 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+  @Test
+  void acquireRoundsUpToSizeClassTest() {
+    BufferPool bufferPool = new BufferPool(1, false);
+
+    Assertions.assertEquals(1024, bufferPool.acquire(1).length);
+    Assertions.assertEquals(8192, bufferPool.acquire(8192).length);
+    Assertions.assertEquals(16_384, bufferPool.acquire(8193).length);
+    Assertions.assertEquals(100_000, bufferPool.acquire(100_000).length);
+  }
+
+  @Test
+  void doubleReleaseTest() {
+    BufferPool bufferPool = new BufferPool(1, true);
+    byte[] buffer = bufferPool.acquire(8192);
+    bufferPool.release(buffer);
+
+    Assertions.assertThrows(IllegalStateException.class, () -> bufferPool.release(buffer));
+    Assertions.assertThrows(IllegalStateException.class, () -> bufferPool.release(new byte[8192]));
+  }
+
+  @Test
+  void releasedBufferIsClearedTest() {
+    BufferPool bufferPool = new BufferPool(1, true);
+    byte[] buffer = bufferPool.acquire(8192);
+    buffer[0] = 1;
+    bufferPool.release(buffer);
+
+    Assertions.assertEquals(0, buffer[0]);
+  }
+
+  @Test
+  void releasedBufferIsReusedTest() {
+    BufferPool bufferPool = new BufferPool(1, false);
+    byte[] buffer = bufferPool.acquire(8192);
+    bufferPool.release(buffer);
+
+    Assertions.assertSame(buffer, bufferPool.acquire(5000));
+    Assertions.assertNotSame(buffer, bufferPool.acquire(5000));
+  }
+
+  @Test
+  void unpooledBufferIsNotReusedTest() {
+    BufferPool bufferPool = new BufferPool(1, false);
+    byte[] buffer = bufferPool.acquire(100_000);
+    bufferPool.release(buffer);
+
+    Assertions.assertNotSame(buffer, bufferPool.acquire(100_000));
+  }
+}
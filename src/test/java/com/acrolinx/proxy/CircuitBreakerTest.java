@@ -0,0 +1,151 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+  private static final long FAST_NANOS = Duration.ofMillis(10).toNanos();
+  private static final long SLOW_NANOS = Duration.ofSeconds(2).toNanos();
+
+  private static long acquirePermission(CircuitBreaker circuitBreaker) {
+    long epoch = circuitBreaker.tryAcquirePermission();
+    Assertions.assertNotEquals(CircuitBreaker.NOT_PERMITTED, epoch);
+    return epoch;
+  }
+
+  private static CircuitBreaker createCircuitBreaker(int windowSize, Duration openDuration) {
+    return new CircuitBreaker("node", windowSize, 50, 80, Duration.ofSeconds(1), openDuration, 2);
+  }
+
+  private static void recordCall(CircuitBreaker circuitBreaker, boolean failed) {
+    long epoch = acquirePermission(circuitBreaker);
+
+    if (failed) {
+      circuitBreaker.onFailure(epoch);
+    } else {
+      circuitBreaker.onSuccess(epoch, FAST_NANOS);
+    }
+
+    circuitBreaker.callFinished(epoch);
+  }
+
+  @Test
+  void disabledTest() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(0, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 10; i++) {
+      recordCall(circuitBreaker, true);
+    }
+
+    acquirePermission(circuitBreaker);
+  }
+
+  @Test
+  void failedProbeReopensTest() throws InterruptedException {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(2, Duration.ofMillis(1));
+    recordCall(circuitBreaker, true);
+    recordCall(circuitBreaker, true);
+    Thread.sleep(10);
+
+    recordCall(circuitBreaker, false);
+    recordCall(circuitBreaker, true);
+    Assertions.assertFalse(circuitBreaker.isCallPermitted(System.nanoTime()));
+  }
+
+  @Test
+  void halfOpenLimitsProbesTest() throws InterruptedException {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(2, Duration.ofMillis(1));
+    recordCall(circuitBreaker, true);
+    recordCall(circuitBreaker, true);
+    Thread.sleep(10);
+
+    long firstProbe = acquirePermission(circuitBreaker);
+    long secondProbe = acquirePermission(circuitBreaker);
+    Assertions.assertEquals(CircuitBreaker.NOT_PERMITTED, circuitBreaker.tryAcquirePermission());
+
+    circuitBreaker.onSuccess(firstProbe, FAST_NANOS);
+    circuitBreaker.callFinished(firstProbe);
+    circuitBreaker.onSuccess(secondProbe, FAST_NANOS);
+    circuitBreaker.callFinished(secondProbe);
+
+    for (int i = 0; i < 10; i++) {
+      acquirePermission(circuitBreaker);
+    }
+  }
+
+  @Test
+  void lateCallsAreIgnoredTest() throws InterruptedException {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(2, Duration.ofMillis(1));
+    long closedCall = acquirePermission(circuitBreaker);
+    recordCall(circuitBreaker, true);
+    recordCall(circuitBreaker, true);
+    Thread.sleep(10);
+
+    long firstProbe = acquirePermission(circuitBreaker);
+    long secondProbe = acquirePermission(circuitBreaker);
+
+    // the call that was sent while the breaker was closed is neither a probe nor frees a probe slot
+    circuitBreaker.onSuccess(closedCall, FAST_NANOS);
+    circuitBreaker.callFinished(closedCall);
+    Assertions.assertEquals(CircuitBreaker.NOT_PERMITTED, circuitBreaker.tryAcquirePermission());
+
+    circuitBreaker.onFailure(firstProbe);
+    circuitBreaker.callFinished(firstProbe);
+    Assertions.assertFalse(circuitBreaker.isCallPermitted(System.nanoTime()));
+    Thread.sleep(10);
+
+    long thirdProbe = acquirePermission(circuitBreaker);
+    long fourthProbe = acquirePermission(circuitBreaker);
+
+    // the probe of the previous half-open state neither counts nor frees a probe slot
+    circuitBreaker.onSuccess(secondProbe, FAST_NANOS);
+    circuitBreaker.callFinished(secondProbe);
+    Assertions.assertEquals(CircuitBreaker.NOT_PERMITTED, circuitBreaker.tryAcquirePermission());
+
+    circuitBreaker.onSuccess(thirdProbe, FAST_NANOS);
+    circuitBreaker.callFinished(thirdProbe);
+
+    circuitBreaker.onSuccess(fourthProbe, FAST_NANOS);
+    circuitBreaker.callFinished(fourthProbe);
+
+    for (int i = 0; i < 10; i++) {
+      acquirePermission(circuitBreaker);
+    }
+  }
+
+  @Test
+  void opensOnFailureRateTest() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(4, Duration.ofMinutes(1));
+    recordCall(circuitBreaker, true);
+    recordCall(circuitBreaker, false);
+    recordCall(circuitBreaker, false);
+    recordCall(circuitBreaker, false);
+    // the oldest failure leaves the window
+    recordCall(circuitBreaker, true);
+    recordCall(circuitBreaker, false);
+
+    acquirePermission(circuitBreaker);
+
+    recordCall(circuitBreaker, true);
+
+    Assertions.assertEquals(CircuitBreaker.NOT_PERMITTED, circuitBreaker.tryAcquirePermission());
+    Assertions.assertEquals(60, circuitBreaker.getRetryAfterSeconds());
+  }
+
+  @Test
+  void opensOnSlowCallRateTest() {
+    CircuitBreaker circuitBreaker = createCircuitBreaker(5, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 4; i++) {
+      long epoch = acquirePermission(circuitBreaker);
+      circuitBreaker.onSuccess(epoch, SLOW_NANOS);
+      circuitBreaker.callFinished(epoch);
+    }
+
+    recordCall(circuitBreaker, false);
+
+    Assertions.assertEquals(CircuitBreaker.NOT_PERMITTED, circuitBreaker.tryAcquirePermission());
+  }
+}
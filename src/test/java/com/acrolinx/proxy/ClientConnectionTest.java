@@ -0,0 +1,58 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ClientConnectionTest {
+  @Test
+  void abortActionAfterDisconnectRunsRightAwayTest() {
+    ClientConnection clientConnection = new ClientConnection();
+    clientConnection.onError(null);
+
+    AtomicInteger abortions = new AtomicInteger();
+    clientConnection.onDisconnect(abortions::incrementAndGet);
+
+    Assertions.assertEquals(1, abortions.get());
+  }
+
+  @Test
+  void latestAbortActionRunsOnceTest() {
+    ClientConnection clientConnection = new ClientConnection();
+    AtomicInteger cancelledRequests = new AtomicInteger();
+    AtomicInteger closedBodies = new AtomicInteger();
+    clientConnection.onDisconnect(cancelledRequests::incrementAndGet);
+    clientConnection.onDisconnect(closedBodies::incrementAndGet);
+    Assertions.assertFalse(clientConnection.isDisconnected());
+
+    clientConnection.onError(null);
+    clientConnection.onError(null);
+
+    Assertions.assertTrue(clientConnection.isDisconnected());
+    Assertions.assertEquals(0, cancelledRequests.get());
+    Assertions.assertEquals(1, closedBodies.get());
+  }
+
+  @Test
+  void writeFailureTest() {
+    ClientConnection clientConnection = new ClientConnection();
+    AtomicInteger abortions = new AtomicInteger();
+    clientConnection.onDisconnect(abortions::incrementAndGet);
+    OutputStream outputStream = clientConnection.watch(new BrokenOutputStream());
+
+    Assertions.assertThrows(IOException.class, () -> outputStream.write(new byte[8]));
+    Assertions.assertTrue(clientConnection.isDisconnected());
+    // the writing thread stops the transfer on its own
+    Assertions.assertEquals(0, abortions.get());
+  }
+
+  private static final class BrokenOutputStream extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+  }
+}
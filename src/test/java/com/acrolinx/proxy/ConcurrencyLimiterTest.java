@@ -0,0 +1,164 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+  private static ConcurrencyLimiter createConcurrencyLimiter(
+      int initialLimit, int maxLimit, int maxQueueSize, Duration queueTimeout) {
+    return new ConcurrencyLimiter(
+        initialLimit,
+        1,
+        maxLimit,
+        List.of(new TrafficClass("default", List.of(), Integer.MAX_VALUE, maxQueueSize)),
+        queueTimeout);
+  }
+
+  private final TrafficClass batch =
+      new TrafficClass("batch", List.of("/api/v1/reports/**"), 1, 10);
+  private final TrafficClass interactive =
+      new TrafficClass("interactive", List.of("/api/v1/checking/*"), Integer.MAX_VALUE, 10);
+
+  private ConcurrencyLimiter createPriorityConcurrencyLimiter() {
+    TrafficClass trafficClass = new TrafficClass("default", List.of(), Integer.MAX_VALUE, 10);
+    return new ConcurrencyLimiter(
+        2, 2, 2, List.of(interactive, batch, trafficClass), Duration.ofMinutes(1));
+  }
+
+  @Test
+  void classifyTest() {
+    ConcurrencyLimiter concurrencyLimiter = createPriorityConcurrencyLimiter();
+
+    Assertions.assertSame(interactive, concurrencyLimiter.classify("/api/v1/checking/checks"));
+    Assertions.assertSame(batch, concurrencyLimiter.classify("/api/v1/reports/1/content"));
+    Assertions.assertEquals(
+        "default", concurrencyLimiter.classify("/api/v1/checking/checks/1").getName());
+    Assertions.assertEquals("default", concurrencyLimiter.classify(null).getName());
+  }
+
+  @Test
+  void droppedRequestReducesLimitTest() {
+    ConcurrencyLimiter concurrencyLimiter =
+        createConcurrencyLimiter(10, 10, 0, Duration.ofMinutes(1));
+    TrafficClass trafficClass = concurrencyLimiter.classify("/");
+
+    for (int i = 0; i < 10; i++) {
+      Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+    }
+
+    concurrencyLimiter.onDropped();
+
+    for (int i = 0; i < 10; i++) {
+      concurrencyLimiter.release(trafficClass);
+    }
+
+    for (int i = 0; i < 9; i++) {
+      Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+    }
+
+    Assertions.assertFalse(concurrencyLimiter.acquire(trafficClass).join());
+  }
+
+  @Test
+  void higherPriorityIsAdmittedFirstTest() {
+    ConcurrencyLimiter concurrencyLimiter = createPriorityConcurrencyLimiter();
+    TrafficClass trafficClass = concurrencyLimiter.classify("/");
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+
+    CompletableFuture<Boolean> queuedBatchRequest = concurrencyLimiter.acquire(batch);
+    CompletableFuture<Boolean> queuedInteractiveRequest = concurrencyLimiter.acquire(interactive);
+
+    concurrencyLimiter.release(trafficClass);
+    Assertions.assertTrue(queuedInteractiveRequest.join());
+    Assertions.assertFalse(queuedBatchRequest.isDone());
+
+    concurrencyLimiter.release(trafficClass);
+    Assertions.assertTrue(queuedBatchRequest.join());
+  }
+
+  @Test
+  void queuedRequestIsAdmittedOnReleaseTest() {
+    ConcurrencyLimiter concurrencyLimiter =
+        createConcurrencyLimiter(1, 1, 1, Duration.ofMinutes(1));
+    TrafficClass trafficClass = concurrencyLimiter.classify("/");
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+
+    CompletableFuture<Boolean> queuedRequest = concurrencyLimiter.acquire(trafficClass);
+    Assertions.assertFalse(queuedRequest.isDone());
+    // the queue is full
+    Assertions.assertFalse(concurrencyLimiter.acquire(trafficClass).join());
+
+    concurrencyLimiter.release(trafficClass);
+    Assertions.assertTrue(queuedRequest.join());
+    Assertions.assertFalse(concurrencyLimiter.acquire(trafficClass).isDone());
+  }
+
+  @Test
+  void queuedRequestTimesOutTest() {
+    ConcurrencyLimiter concurrencyLimiter =
+        createConcurrencyLimiter(1, 1, 1, Duration.ofMillis(10));
+    TrafficClass trafficClass = concurrencyLimiter.classify("/");
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+
+    Assertions.assertFalse(concurrencyLimiter.acquire(trafficClass).join());
+
+    concurrencyLimiter.release(trafficClass);
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+  }
+
+  @Test
+  void slowerResponsesReduceLimitTest() {
+    ConcurrencyLimiter concurrencyLimiter =
+        createConcurrencyLimiter(20, 100, 0, Duration.ofMinutes(1));
+    TrafficClass trafficClass = concurrencyLimiter.classify("/");
+
+    for (int i = 0; i < 20; i++) {
+      concurrencyLimiter.acquire(trafficClass);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      concurrencyLimiter.onSample(Duration.ofMillis(10).toNanos());
+    }
+
+    // the limit grew while the responses were as fast as usual
+    Assertions.assertTrue(concurrencyLimiter.acquire(trafficClass).join());
+
+    for (int i = 0; i < 100; i++) {
+      concurrencyLimiter.onSample(Duration.ofMillis(100).toNanos());
+    }
+
+    for (int i = 0; i < 21; i++) {
+      concurrencyLimiter.release(trafficClass);
+    }
+
+    int admittedRequests = 0;
+
+    while (concurrencyLimiter.acquire(trafficClass).join()) {
+      admittedRequests++;
+    }
+
+    Assertions.assertTrue(admittedRequests < 20, Integer.toString(admittedRequests));
+  }
+
+  @Test
+  void trafficClassBudgetTest() {
+    ConcurrencyLimiter concurrencyLimiter = createPriorityConcurrencyLimiter();
+    Assertions.assertTrue(concurrencyLimiter.acquire(batch).join());
+
+    // the batch class has used its budget, but an interactive request still gets the free slot
+    CompletableFuture<Boolean> queuedBatchRequest = concurrencyLimiter.acquire(batch);
+    Assertions.assertFalse(queuedBatchRequest.isDone());
+    Assertions.assertTrue(concurrencyLimiter.acquire(interactive).join());
+
+    concurrencyLimiter.release(interactive);
+    Assertions.assertFalse(queuedBatchRequest.isDone());
+
+    concurrencyLimiter.release(batch);
+    Assertions.assertTrue(queuedBatchRequest.join());
+  }
+}
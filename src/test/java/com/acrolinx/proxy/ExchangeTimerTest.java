@@ -0,0 +1,101 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ExchangeTimerTest {
+  private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final ScheduledExecutorService scheduledExecutorService =
+      Executors.newSingleThreadScheduledExecutor();
+
+  @AfterEach
+  void afterEach() {
+    scheduledExecutorService.shutdownNow();
+  }
+
+  @Test
+  void blockedReadIsAbortedTest() {
+    ExchangeTimer exchangeTimer =
+        new ExchangeTimer(System.nanoTime(), TIMEOUT_NANOS, TimeoutPolicy.NO_TIMEOUT);
+    InputStream inputStream =
+        exchangeTimer.watch(new BlockingInputStream(), scheduledExecutorService);
+
+    Assertions.assertThrows(HttpTimeoutException.class, inputStream::read);
+    Assertions.assertTrue(exchangeTimer.isExpired());
+  }
+
+  @Test
+  void idleTimeoutOnlyCountsWhileWaitingTest() throws InterruptedException {
+    ExchangeTimer exchangeTimer =
+        new ExchangeTimer(System.nanoTime(), TimeoutPolicy.NO_TIMEOUT, TIMEOUT_NANOS);
+    CompletableFuture<HttpTimeoutException> abortion = new CompletableFuture<>();
+    exchangeTimer.start(scheduledExecutorService, abortion::complete);
+
+    Thread.sleep(3 * TimeUnit.NANOSECONDS.toMillis(TIMEOUT_NANOS));
+    Assertions.assertFalse(abortion.isDone());
+
+    exchangeTimer.waitingStarted();
+    Assertions.assertNotNull(abortion.join());
+    Assertions.assertTrue(exchangeTimer.isExpired());
+  }
+
+  @Test
+  void stoppedTimerDoesNotAbortTest() throws InterruptedException {
+    ExchangeTimer exchangeTimer =
+        new ExchangeTimer(System.nanoTime(), TIMEOUT_NANOS, TIMEOUT_NANOS);
+    CompletableFuture<HttpTimeoutException> abortion = new CompletableFuture<>();
+    exchangeTimer.start(scheduledExecutorService, abortion::complete);
+    exchangeTimer.waitingStarted();
+    exchangeTimer.stop();
+
+    Thread.sleep(3 * TimeUnit.NANOSECONDS.toMillis(TIMEOUT_NANOS));
+    Assertions.assertFalse(abortion.isDone());
+    Assertions.assertFalse(exchangeTimer.isExpired());
+  }
+
+  @Test
+  void totalTimeoutTest() {
+    ExchangeTimer exchangeTimer =
+        new ExchangeTimer(System.nanoTime(), TIMEOUT_NANOS, TimeoutPolicy.NO_TIMEOUT);
+    Assertions.assertTrue(exchangeTimer.hasDeadline());
+    Assertions.assertTrue(exchangeTimer.getRemainingNanos() <= TIMEOUT_NANOS);
+
+    CompletableFuture<HttpTimeoutException> abortion = new CompletableFuture<>();
+    exchangeTimer.start(scheduledExecutorService, abortion::complete);
+
+    Assertions.assertNotNull(abortion.join());
+    Assertions.assertTrue(exchangeTimer.getRemainingNanos() <= 0);
+  }
+
+  /** Blocks each read until the stream is closed, like the body of the HttpClient. */
+  private static final class BlockingInputStream extends InputStream {
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        closed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      throw new IOException("closed");
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import com.acrolinx.proxy.util.TomcatWrapper;
+import com.acrolinx.proxy.util.WireMockServerWrapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares how throughput and latency of the execution modes scale with the number of concurrent
+ * slow upstream responses. The container has far fewer threads than there are requests in flight,
+ * which is where blocking a container thread per exchange starts to hurt.
+ *
+ * <p>Run with {@code mvn verify -Dbenchmark=true -Dit.test=ExecutionModeBenchmarkIT}. The virtual
+ * thread mode is only measured on Java 21 or later.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExecutionModeBenchmarkIT {
+  private static final int[] CONCURRENCY_LEVELS = {50, 200, 800};
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionModeBenchmarkIT.class);
+  private static final int MAX_CONTAINER_THREADS = 32;
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+  private static final int UPSTREAM_DELAY_MILLIS = 250;
+  private static final int UPSTREAM_THREADS = 64;
+
+  private static HttpClient createHttpClient() {
+    return HttpClient.newBuilder()
+        .connectTimeout(TIMEOUT)
+        .followRedirects(Redirect.NEVER)
+        .version(Version.HTTP_1_1)
+        .build();
+  }
+
+  private static HttpRequest createHttpRequest(int tomcatPort, int requestNumber) {
+    return HttpRequest.newBuilder()
+        .GET()
+        .uri(
+            URI.create(
+                "http://localhost:"
+                    + tomcatPort
+                    + '/'
+                    + AcrolinxProxyHttpServlet.PROXY_PATH
+                    + "/api/v1/checking/checks/"
+                    + requestNumber))
+        .timeout(TIMEOUT)
+        .build();
+  }
+
+  private static Map<String, String> createInitParameters(int wireMockPort, String executionMode) {
+    return Map.of(
+        "acrolinxUrl",
+        "http://localhost:" + wireMockPort,
+        "username",
+        "testuser",
+        "genericToken",
+        "secret",
+        "executionMode",
+        executionMode);
+  }
+
+  private static long getPercentile(long[] sortedLatencies, double percentile) {
+    int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+    return sortedLatencies[Math.max(index, 0)];
+  }
+
+  private static void measure(
+      HttpClient httpClient, int tomcatPort, String executionMode, int concurrency) {
+    List<CompletableFuture<Long>> latencyFutures = new ArrayList<>(concurrency);
+    long startNanos = System.nanoTime();
+
+    for (int i = 0; i < concurrency; i++) {
+      long requestStartNanos = System.nanoTime();
+      latencyFutures.add(
+          httpClient
+              .sendAsync(createHttpRequest(tomcatPort, i), BodyHandlers.discarding())
+              .thenApply(
+                  httpResponse -> {
+                    Assertions.assertEquals(200, httpResponse.statusCode());
+                    return System.nanoTime() - requestStartNanos;
+                  }));
+    }
+
+    long[] latencies = latencyFutures.stream().mapToLong(CompletableFuture::join).toArray();
+    double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+    Arrays.sort(latencies);
+
+    LOGGER.info(
+        "{} with {} concurrent requests: {} requests/s, p50 {} ms, p99 {} ms",
+        executionMode,
+        concurrency,
+        String.format("%.1f", concurrency / elapsedSeconds),
+        getPercentile(latencies, 50) / 1_000_000,
+        getPercentile(latencies, 99) / 1_000_000);
+  }
+
+  private static void runBenchmark(Path tempDirectory, String executionMode) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPortWithAsynchronousResponses(UPSTREAM_THREADS)) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      wireMockServer.stubFor(
+          WireMock.get(urlPathMatching("/api/v1/checking/checks/.*"))
+              .willReturn(WireMock.okJson("{}").withFixedDelay(UPSTREAM_DELAY_MILLIS)));
+
+      try (TomcatWrapper tomcatWrapper =
+          TomcatWrapper.startOnRandomHttpPortWithMaxThreads(tempDirectory, MAX_CONTAINER_THREADS)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory, createInitParameters(wireMockServer.port(), executionMode));
+
+        HttpClient httpClient = createHttpClient();
+
+        // warm up connections, class loading and the JIT before measuring
+        measure(httpClient, tomcatWrapper.getPort(), executionMode, CONCURRENCY_LEVELS[0]);
+
+        for (int concurrency : CONCURRENCY_LEVELS) {
+          measure(httpClient, tomcatWrapper.getPort(), executionMode, concurrency);
+        }
+      }
+    }
+  }
+
+  @Test
+  void asyncTest(@TempDir Path tempDirectory) throws Exception {
+    runBenchmark(tempDirectory, "ASYNC");
+  }
+
+  @Test
+  void platformThreadTest(@TempDir Path tempDirectory) throws Exception {
+    runBenchmark(tempDirectory, "SYNC");
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void virtualThreadTest(@TempDir Path tempDirectory) throws Exception {
+    runBenchmark(tempDirectory, "VIRTUAL_THREAD");
+  }
+}
@@ -0,0 +1,253 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+import com.acrolinx.proxy.util.LatencyReport;
+import com.acrolinx.proxy.util.TomcatWrapper;
+import com.acrolinx.proxy.util.WireMockServerWrapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.Fault;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Drives open-loop traffic that resembles editors submitting checks and polling for their results
+ * through the proxy in embedded Tomcat. The Acrolinx back-end is a WireMock stand-in with
+ * log-normally distributed latencies, chunked result bodies and injected errors. Sessions start at
+ * exponentially distributed intervals regardless of how fast the proxy answers, so a saturated
+ * proxy shows up as growing latencies instead of a slower load generator.
+ *
+ * <p>Run with {@code mvn verify -Dloadtest=true -Dit.test=LoadTestIT}. The {@code loadtest.*}
+ * system properties below tune the traffic and the stand-in. The latency distributions are written
+ * to {@code target/load-test} as {@code .hgrm} files.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LoadTestIT {
+  private static final String CHECK_URL_STRING = "/api/v1/checking/checks";
+  private static final int DOCUMENT_SIZE = Integer.getInteger("loadtest.documentSize", 20_000);
+  private static final Duration DURATION =
+      Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+  private static final double ERROR_RATE =
+      Double.parseDouble(System.getProperty("loadtest.errorRate", "0.01"));
+  private static final String EXECUTION_MODE =
+      System.getProperty("loadtest.executionMode", "ASYNC");
+  private static final double LATENCY_SIGMA =
+      Double.parseDouble(System.getProperty("loadtest.latencySigma", "0.5"));
+  private static final Duration MEDIAN_LATENCY =
+      Duration.parse(System.getProperty("loadtest.medianLatency", "PT0.05S"));
+  private static final int MAX_CONTAINER_THREADS =
+      Integer.getInteger("loadtest.maxContainerThreads", 200);
+  private static final int POLL_COUNT = Integer.getInteger("loadtest.pollCount", 3);
+  private static final Duration POLL_INTERVAL =
+      Duration.parse(System.getProperty("loadtest.pollInterval", "PT0.5S"));
+  private static final Path REPORT_DIRECTORY = Path.of("target", "load-test");
+  private static final int RESULT_CHUNKS = Integer.getInteger("loadtest.resultChunks", 8);
+  private static final int RESULT_SIZE = Integer.getInteger("loadtest.resultSize", 65_536);
+  private static final double SESSION_RATE =
+      Double.parseDouble(System.getProperty("loadtest.sessionRate", "50"));
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+  private static final int UPSTREAM_THREADS = Integer.getInteger("loadtest.upstreamThreads", 64);
+
+  private static HttpClient createHttpClient() {
+    return HttpClient.newBuilder()
+        .connectTimeout(TIMEOUT)
+        .followRedirects(Redirect.NEVER)
+        .version(Version.HTTP_1_1)
+        .build();
+  }
+
+  private static Map<String, String> createInitParameters(int wireMockPort) {
+    return Map.of(
+        "acrolinxUrl",
+        "http://localhost:" + wireMockPort,
+        "username",
+        "testuser",
+        "genericToken",
+        "secret",
+        "executionMode",
+        EXECUTION_MODE);
+  }
+
+  private static URI createUri(int tomcatPort, String path) {
+    return URI.create(
+        "http://localhost:" + tomcatPort + '/' + AcrolinxProxyHttpServlet.PROXY_PATH + path);
+  }
+
+  /**
+   * @return the path of a check result, which fails for the configured share of the polls
+   */
+  private static String getResultPath(int sessionNumber) {
+    double random = ThreadLocalRandom.current().nextDouble();
+
+    if (random < ERROR_RATE / 2) {
+      return CHECK_URL_STRING + "/reset-" + sessionNumber;
+    }
+
+    if (random < ERROR_RATE) {
+      return CHECK_URL_STRING + "/unavailable-" + sessionNumber;
+    }
+
+    return CHECK_URL_STRING + '/' + sessionNumber;
+  }
+
+  private static CompletableFuture<Void> poll(
+      HttpClient httpClient,
+      int tomcatPort,
+      int sessionNumber,
+      int pollNumber,
+      LatencyReport latencyReport) {
+    if (pollNumber > POLL_COUNT) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    HttpRequest httpRequest =
+        HttpRequest.newBuilder(createUri(tomcatPort, getResultPath(sessionNumber)))
+            .GET()
+            .timeout(TIMEOUT)
+            .build();
+    long intendedStartNanos = System.nanoTime() + POLL_INTERVAL.toNanos();
+
+    return CompletableFuture.runAsync(
+            () -> {},
+            CompletableFuture.delayedExecutor(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS))
+        .thenCompose(
+            ignored -> send(httpClient, httpRequest, "poll", intendedStartNanos, latencyReport))
+        .thenCompose(
+            ignored -> poll(httpClient, tomcatPort, sessionNumber, pollNumber + 1, latencyReport));
+  }
+
+  private static void runLoadTest(Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPortWithAsynchronousResponses(UPSTREAM_THREADS)) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubUpstream(wireMockServer);
+
+      try (TomcatWrapper tomcatWrapper =
+          TomcatWrapper.startOnRandomHttpPortWithMaxThreads(tempDirectory, MAX_CONTAINER_THREADS)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory, createInitParameters(wireMockServer.port()));
+
+        HttpClient httpClient = createHttpClient();
+        LatencyReport latencyReport = new LatencyReport();
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + DURATION.toNanos();
+        long nextArrivalNanos = startNanos;
+        int sessionNumber = 0;
+
+        while (nextArrivalNanos < endNanos) {
+          LockSupport.parkNanos(nextArrivalNanos - System.nanoTime());
+          sessions.add(
+              startSession(
+                  httpClient,
+                  tomcatWrapper.getPort(),
+                  sessionNumber++,
+                  nextArrivalNanos,
+                  latencyReport));
+
+          // Poisson arrivals have exponentially distributed gaps
+          double gapSeconds =
+              -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / SESSION_RATE;
+          nextArrivalNanos += (long) (gapSeconds * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        CompletableFuture.allOf(sessions.toArray(CompletableFuture[]::new))
+            .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        latencyReport.report(EXECUTION_MODE, elapsedSeconds, REPORT_DIRECTORY);
+      }
+    }
+  }
+
+  /**
+   * @param intendedStartNanos the time at which the request is due, even if it is sent later
+   * @return a future that completes with the exchange, whether it failed or not
+   */
+  private static CompletableFuture<Void> send(
+      HttpClient httpClient,
+      HttpRequest httpRequest,
+      String requestType,
+      long intendedStartNanos,
+      LatencyReport latencyReport) {
+    return httpClient
+        .sendAsync(httpRequest, BodyHandlers.discarding())
+        .handle(
+            (httpResponse, throwable) -> {
+              latencyReport.record(
+                  requestType,
+                  intendedStartNanos,
+                  throwable != null || httpResponse.statusCode() >= 500);
+              return null;
+            });
+  }
+
+  private static CompletableFuture<Void> startSession(
+      HttpClient httpClient,
+      int tomcatPort,
+      int sessionNumber,
+      long intendedStartNanos,
+      LatencyReport latencyReport) {
+    HttpRequest httpRequest =
+        HttpRequest.newBuilder(createUri(tomcatPort, CHECK_URL_STRING))
+            .POST(BodyPublishers.ofString("{\"content\":\"" + "x".repeat(DOCUMENT_SIZE) + "\"}"))
+            .header("Content-Type", "application/json")
+            .timeout(TIMEOUT)
+            .build();
+
+    return send(httpClient, httpRequest, "submit", intendedStartNanos, latencyReport)
+        .thenCompose(ignored -> poll(httpClient, tomcatPort, sessionNumber, 1, latencyReport));
+  }
+
+  private static void stubUpstream(WireMockServer wireMockServer) {
+    double medianMilliseconds = MEDIAN_LATENCY.toNanos() / 1e6;
+
+    wireMockServer.stubFor(
+        WireMock.post(urlEqualTo(CHECK_URL_STRING))
+            .willReturn(
+                WireMock.aResponse()
+                    .withStatus(201)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("{\"data\":{\"id\":\"check\"}}")
+                    .withLogNormalRandomDelay(medianMilliseconds, LATENCY_SIGMA)));
+    wireMockServer.stubFor(
+        WireMock.get(urlPathMatching(CHECK_URL_STRING + "/[0-9]+"))
+            .willReturn(
+                WireMock.okJson("{\"data\":\"" + "x".repeat(RESULT_SIZE) + "\"}")
+                    .withLogNormalRandomDelay(medianMilliseconds, LATENCY_SIGMA)
+                    .withChunkedDribbleDelay(RESULT_CHUNKS, (int) MEDIAN_LATENCY.toMillis())));
+    wireMockServer.stubFor(
+        WireMock.get(urlPathMatching(CHECK_URL_STRING + "/reset-[0-9]+"))
+            .willReturn(WireMock.aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+    wireMockServer.stubFor(
+        WireMock.get(urlPathMatching(CHECK_URL_STRING + "/unavailable-[0-9]+"))
+            .willReturn(
+                WireMock.serviceUnavailable()
+                    .withLogNormalRandomDelay(medianMilliseconds, LATENCY_SIGMA)));
+  }
+
+  @Test
+  void editorTrafficTest(@TempDir Path tempDirectory) throws Exception {
+    runLoadTest(tempDirectory);
+  }
+}
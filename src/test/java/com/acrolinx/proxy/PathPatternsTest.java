@@ -0,0 +1,43 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PathPatternsTest {
+  @Test
+  void anySegmentsTest() {
+    List<String> pathPatterns = List.of("/api/v1/reports/**");
+
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/reports/"));
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/reports/1/content"));
+    Assertions.assertFalse(PathPatterns.matches(pathPatterns, "/api/v1/reports"));
+  }
+
+  @Test
+  void exactPathTest() {
+    List<String> pathPatterns = List.of("/api/v1/checking/checks", "/api/v1/");
+
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/checking/checks"));
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/"));
+    Assertions.assertFalse(PathPatterns.matches(pathPatterns, "/api/v1/checking/checks/1"));
+  }
+
+  @Test
+  void parseTest() {
+    Assertions.assertEquals(
+        List.of("/api/v1/reports/**", "/api/v1/"),
+        PathPatterns.parse(" /api/v1/reports/**, ,/api/v1/"));
+    Assertions.assertEquals(List.of(), PathPatterns.parse(""));
+  }
+
+  @Test
+  void singleSegmentTest() {
+    List<String> pathPatterns = List.of("/api/v1/checking/*/status");
+
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/checking/abc/status"));
+    Assertions.assertTrue(PathPatterns.matches(pathPatterns, "/api/v1/checking//status"));
+    Assertions.assertFalse(PathPatterns.matches(pathPatterns, "/api/v1/checking/a/b/status"));
+  }
+}
@@ -0,0 +1,53 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ProxyMetricsTest {
+  private static HttpRequest createHttpRequest(String path) {
+    return HttpRequest.newBuilder(URI.create("http://localhost" + path)).build();
+  }
+
+  /**
+   * @return a path whose segment contains no digits, so that it is not replaced by the ID
+   *     placeholder
+   */
+  private static String createPath(int index) {
+    StringBuilder stringBuilder = new StringBuilder("/api/route");
+
+    for (int i = index; i > 0; i /= 26) {
+      stringBuilder.append((char) ('a' + i % 26));
+    }
+
+    return stringBuilder.toString();
+  }
+
+  @Test
+  void fullRouteTableIsNotLockedTest() throws Exception {
+    ProxyMetrics proxyMetrics = new ProxyMetrics();
+
+    for (int i = 0; i < ProxyMetrics.MAX_ROUTES; i++) {
+      proxyMetrics.exchangeFinished(createHttpRequest(createPath(i)), System.nanoTime());
+    }
+
+    HttpRequest httpRequest = createHttpRequest("/api/unknown");
+
+    // routes are only added while holding the lock, which a new route must not wait for
+    synchronized (proxyMetrics) {
+      CompletableFuture.runAsync(
+              () -> proxyMetrics.exchangeFinished(httpRequest, System.nanoTime()))
+          .get(10, TimeUnit.SECONDS);
+    }
+
+    String metrics = proxyMetrics.scrape();
+    Assertions.assertTrue(
+        metrics.contains("route=\"" + createPath(ProxyMetrics.MAX_ROUTES - 1) + "\""));
+    Assertions.assertTrue(metrics.contains("route=\"{other}\""));
+    Assertions.assertFalse(metrics.contains("route=\"/api/unknown\""));
+  }
+}
@@ -0,0 +1,732 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+import com.acrolinx.proxy.util.TomcatWrapper;
+import com.acrolinx.proxy.util.WireMockServerWrapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Runs the proxy servlet in embedded Tomcat with init parameters that differ from the web.xml. */
+class ProxyServletIT {
+  private static final String AFFINITY_COOKIE_NAME = "X-Acrolinx-Session";
+  // each key is sent in the cookie and as an identifier in the path, which are hashed alike
+  private static final List<String> AFFINITY_KEYS =
+      List.of("check1", "check2", "check3", "check4", "check5", "check6", "check7", "check8");
+  private static final String CHECK_URL_STRING = "/api/v1/checking/checks";
+  private static final String REQUEST_BODY = "{\"content\":\"" + "text ".repeat(10_000) + "\"}";
+  private static final String RESPONSE_BODY = "{\"data\":\"" + "issue ".repeat(100_000) + "\"}";
+  private static final String SLOW_URL_STRING = "/api/v1/checking/capacity";
+  private static final Duration TIMEOUT = Duration.ofSeconds(3);
+
+  private static HttpClient createHttpClient() {
+    return HttpClient.newBuilder()
+        .connectTimeout(TIMEOUT)
+        .followRedirects(Redirect.NEVER)
+        .version(Version.HTTP_1_1)
+        .build();
+  }
+
+  private static HttpRequest createHttpRequest(int tomcatPort, String httpMethod) {
+    return HttpRequest.newBuilder()
+        .method(
+            httpMethod,
+            "GET".equals(httpMethod)
+                ? BodyPublishers.noBody()
+                : BodyPublishers.ofString(REQUEST_BODY))
+        .uri(
+            URI.create(
+                "http://localhost:"
+                    + tomcatPort
+                    + '/'
+                    + AcrolinxProxyHttpServlet.PROXY_PATH
+                    + CHECK_URL_STRING))
+        .timeout(TIMEOUT)
+        .build();
+  }
+
+  private static Map<String, String> createInitParameters(
+      int wireMockPort, Map<String, String> additionalInitParameters) {
+    Map<String, String> initParameters = new HashMap<>(additionalInitParameters);
+    initParameters.put("acrolinxUrl", "http://localhost:" + wireMockPort);
+    initParameters.put("username", "testuser");
+    initParameters.put("genericToken", "secret");
+    initParameters.put("bufferLeakDetection", "true");
+    return initParameters;
+  }
+
+  private static void deployLoadBalancingProxyServlet(
+      Path tempDirectory, TomcatWrapper tomcatWrapper, WireMockServer... wireMockServers) {
+    Map<String, String> initParameters = createInitParameters(wireMockServers[0].port(), Map.of());
+    StringBuilder acrolinxUrls = new StringBuilder();
+
+    for (WireMockServer wireMockServer : wireMockServers) {
+      acrolinxUrls.append(acrolinxUrls.length() == 0 ? "" : ", ");
+      acrolinxUrls.append("http://localhost:").append(wireMockServer.port()).append('/');
+    }
+
+    initParameters.put("acrolinxUrl", acrolinxUrls.toString());
+    initParameters.put("affinityCookie", AFFINITY_COOKIE_NAME);
+    initParameters.put("affinityByPathId", "true");
+    tomcatWrapper.deployProxyServlet(tempDirectory, initParameters);
+  }
+
+  /**
+   * @return the index of the only node that received the requests with the affinity key in a cookie
+   *     and in the path
+   */
+  private static int findWireMockServerIndex(
+      List<WireMockServer> wireMockServers, String affinityKey, int numberOfRequests) {
+    int wireMockServerIndex = -1;
+
+    for (int i = 0; i < wireMockServers.size(); i++) {
+      int cookieRequests =
+          wireMockServers
+              .get(i)
+              .findAll(
+                  WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING))
+                      .withCookie(AFFINITY_COOKIE_NAME, equalTo(affinityKey)))
+              .size();
+      int pathIdRequests =
+          wireMockServers
+              .get(i)
+              .findAll(WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING + '/' + affinityKey)))
+              .size();
+
+      if (cookieRequests + pathIdRequests > 0) {
+        Assertions.assertEquals(-1, wireMockServerIndex, affinityKey + " went to several nodes");
+        Assertions.assertEquals(numberOfRequests, cookieRequests);
+        Assertions.assertEquals(numberOfRequests, pathIdRequests);
+        wireMockServerIndex = i;
+      }
+    }
+
+    Assertions.assertNotEquals(-1, wireMockServerIndex);
+    return wireMockServerIndex;
+  }
+
+  private static long getClientDisconnects() {
+    String metricName = "acrolinx_proxy_client_disconnects_total ";
+
+    return ProxyMetrics.getInstance()
+        .scrape()
+        .lines()
+        .filter(line -> line.startsWith(metricName))
+        .mapToLong(line -> Long.parseLong(line.substring(metricName.length())))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static void sendAffinityRequests(
+      HttpClient httpClient, int tomcatPort, String affinityKey) throws Exception {
+    HttpRequest cookieHttpRequest =
+        HttpRequest.newBuilder(
+                createHttpRequest(tomcatPort, "GET"), (headerName, headerValue) -> true)
+            .header("Cookie", "JSESSIONID=1; " + AFFINITY_COOKIE_NAME + '=' + affinityKey)
+            .build();
+    HttpRequest pathIdHttpRequest =
+        HttpRequest.newBuilder(
+                URI.create(
+                    "http://localhost:"
+                        + tomcatPort
+                        + '/'
+                        + AcrolinxProxyHttpServlet.PROXY_PATH
+                        + CHECK_URL_STRING
+                        + '/'
+                        + affinityKey))
+            .timeout(TIMEOUT)
+            .build();
+
+    Assertions.assertEquals(
+        200, httpClient.send(cookieHttpRequest, BodyHandlers.discarding()).statusCode());
+    Assertions.assertEquals(
+        200, httpClient.send(pathIdHttpRequest, BodyHandlers.discarding()).statusCode());
+  }
+
+  private static void stubWireMock(WireMockServer wireMockServer, String httpMethod) {
+    wireMockServer.stubFor(
+        WireMock.request(httpMethod, urlEqualTo(CHECK_URL_STRING))
+            .withHeader("username", equalTo("testuser"))
+            .withHeader("password", equalTo("secret"))
+            .willReturn(WireMock.okJson(RESPONSE_BODY)));
+  }
+
+  private static void verifyProxyServlet(
+      Path tempDirectory, Map<String, String> additionalInitParameters, String httpMethod)
+      throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, httpMethod);
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory, createInitParameters(wireMockServer.port(), additionalInitParameters));
+
+        HttpResponse<String> httpResponse =
+            createHttpClient()
+                .send(
+                    createHttpRequest(tomcatWrapper.getPort(), httpMethod),
+                    BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, httpResponse.statusCode());
+        Assertions.assertEquals(RESPONSE_BODY, httpResponse.body());
+      }
+
+      verifyInteractionWithWireMock(wireMockServer, httpMethod);
+    }
+  }
+
+  /**
+   * Lets the client disconnect while the check result still trickles in from Acrolinx, which makes
+   * writing the response fail and cancels the request to Acrolinx.
+   */
+  private static void verifyClientDisconnect(Path tempDirectory, String executionMode)
+      throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(CHECK_URL_STRING))
+              .willReturn(WireMock.okJson(RESPONSE_BODY).withChunkedDribbleDelay(100, 10_000)));
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(wireMockServer.port(), Map.of("executionMode", executionMode)));
+
+        long clientDisconnects = getClientDisconnects();
+
+        try (Socket socket = new Socket("localhost", tomcatWrapper.getPort())) {
+          socket.setSoTimeout((int) TIMEOUT.toMillis());
+          // resets the connection on close, as a browser does when the tab is closed
+          socket.setSoLinger(true, 0);
+          socket
+              .getOutputStream()
+              .write(
+                  ("GET /"
+                          + AcrolinxProxyHttpServlet.PROXY_PATH
+                          + CHECK_URL_STRING
+                          + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                      .getBytes(StandardCharsets.US_ASCII));
+
+          // the response headers and the first part of the body have arrived
+          Assertions.assertNotEquals(-1, socket.getInputStream().read(new byte[8192]));
+        }
+
+        long deadlineNanos = System.nanoTime() + TIMEOUT.toNanos();
+
+        while (getClientDisconnects() == clientDisconnects && System.nanoTime() < deadlineNanos) {
+          Thread.sleep(50);
+        }
+
+        Assertions.assertEquals(clientDisconnects + 1, getClientDisconnects());
+      }
+    }
+  }
+
+  private static void verifyInteractionWithWireMock(
+      WireMockServer wireMockServer, String httpMethod) {
+    RequestPatternBuilder requestPatternBuilder =
+        new RequestPatternBuilder(
+            RequestMethod.fromString(httpMethod), urlEqualTo(CHECK_URL_STRING));
+
+    if (!"GET".equals(httpMethod)) {
+      requestPatternBuilder
+          .withHeader("Content-Length", equalTo(Integer.toString(REQUEST_BODY.length())))
+          .withRequestBody(equalTo(REQUEST_BODY));
+    }
+
+    wireMockServer.verify(requestPatternBuilder);
+    Assertions.assertEquals(Collections.emptyList(), wireMockServer.findAllUnmatchedRequests());
+  }
+
+  @Test
+  void asyncGetTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "ASYNC"), "GET");
+  }
+
+  @Test
+  void asyncClientDisconnectTest(@TempDir Path tempDirectory) throws Exception {
+    verifyClientDisconnect(tempDirectory, "ASYNC");
+  }
+
+  @Test
+  void asyncPostTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "ASYNC"), "POST");
+  }
+
+  @Test
+  void cacheTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(CHECK_URL_STRING))
+              .willReturn(
+                  WireMock.okJson(RESPONSE_BODY).withHeader("Cache-Control", "max-age=60")));
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(wireMockServer.port(), Map.of("cacheMaxSize", "10000000")));
+
+        HttpClient httpClient = createHttpClient();
+
+        for (int i = 0; i < 2; i++) {
+          HttpResponse<String> httpResponse =
+              httpClient.send(
+                  createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.ofString());
+
+          Assertions.assertEquals(200, httpResponse.statusCode());
+          Assertions.assertEquals(RESPONSE_BODY, httpResponse.body());
+        }
+      }
+
+      wireMockServer.verify(1, WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING)));
+    }
+  }
+
+  @Test
+  void coalescingTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(CHECK_URL_STRING))
+              .willReturn(WireMock.okJson(RESPONSE_BODY).withFixedDelay(1_000)));
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(wireMockServer.port(), Map.of("coalesceRequests", "true")));
+
+        HttpClient httpClient = createHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responseFutures = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+          responseFutures.add(
+              httpClient.sendAsync(
+                  createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> responseFuture : responseFutures) {
+          HttpResponse<String> httpResponse = responseFuture.join();
+
+          Assertions.assertEquals(200, httpResponse.statusCode());
+          Assertions.assertEquals(RESPONSE_BODY, httpResponse.body());
+        }
+      }
+
+      wireMockServer.verify(1, WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING)));
+    }
+  }
+
+  @Test
+  void compressionTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, "GET");
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(wireMockServer.port(), Map.of("compressResponses", "true")));
+
+        HttpRequest httpRequest =
+            HttpRequest.newBuilder(
+                    createHttpRequest(tomcatWrapper.getPort(), "GET"), (name, value) -> true)
+                .header("Accept-Encoding", "gzip")
+                .build();
+        HttpResponse<byte[]> httpResponse =
+            createHttpClient().send(httpRequest, BodyHandlers.ofByteArray());
+
+        Assertions.assertEquals(200, httpResponse.statusCode());
+        Assertions.assertEquals(
+            Optional.of("gzip"), httpResponse.headers().firstValue("Content-Encoding"));
+
+        try (InputStream inputStream =
+            new GZIPInputStream(new ByteArrayInputStream(httpResponse.body()))) {
+          Assertions.assertEquals(
+              RESPONSE_BODY, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+      }
+
+      wireMockServer.verify(
+          WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING))
+              .withHeader("Accept-Encoding", equalTo("gzip, deflate")));
+    }
+  }
+
+  @Test
+  void http2GetTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("httpVersion", "HTTP_2"), "GET");
+  }
+
+  @Test
+  void http2PostTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("httpVersion", "HTTP_2"), "POST");
+  }
+
+  @Test
+  void loadBalancingTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper firstWireMockServerWrapper =
+            WireMockServerWrapper.startOnRandomHttpPort();
+        WireMockServerWrapper secondWireMockServerWrapper =
+            WireMockServerWrapper.startOnRandomHttpPort();
+        WireMockServerWrapper thirdWireMockServerWrapper =
+            WireMockServerWrapper.startOnRandomHttpPort()) {
+      final List<WireMockServer> wireMockServers =
+          List.of(
+              firstWireMockServerWrapper.getWireMockServer(),
+              secondWireMockServerWrapper.getWireMockServer(),
+              thirdWireMockServerWrapper.getWireMockServer());
+
+      for (WireMockServer wireMockServer : wireMockServers) {
+        stubWireMock(wireMockServer, "GET");
+        wireMockServer.stubFor(
+            WireMock.get(WireMock.urlPathMatching(CHECK_URL_STRING + "/.+"))
+                .willReturn(WireMock.okJson(RESPONSE_BODY)));
+      }
+
+      Map<String, Integer> wireMockServerIndexes = new HashMap<>();
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        deployLoadBalancingProxyServlet(
+            tempDirectory, tomcatWrapper, wireMockServers.get(0), wireMockServers.get(1));
+        HttpClient httpClient = createHttpClient();
+
+        for (int i = 0; i < 4; i++) {
+          HttpResponse<String> httpResponse =
+              httpClient.send(
+                  createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.ofString());
+
+          Assertions.assertEquals(200, httpResponse.statusCode());
+          Assertions.assertEquals(RESPONSE_BODY, httpResponse.body());
+        }
+
+        // requests without an affinity key are distributed in turn
+        for (WireMockServer wireMockServer : wireMockServers.subList(0, 2)) {
+          wireMockServer.verify(
+              2, WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING)).withoutHeader("Cookie"));
+        }
+
+        for (String affinityKey : AFFINITY_KEYS) {
+          for (int i = 0; i < 3; i++) {
+            sendAffinityRequests(httpClient, tomcatWrapper.getPort(), affinityKey);
+          }
+
+          // every request with the same affinity key went to the same node
+          wireMockServerIndexes.put(
+              affinityKey, findWireMockServerIndex(wireMockServers, affinityKey, 3));
+        }
+      }
+
+      wireMockServers.forEach(WireMockServer::resetRequests);
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        // the order of the nodes does not matter and a new node only takes over some keys
+        deployLoadBalancingProxyServlet(
+            tempDirectory,
+            tomcatWrapper,
+            wireMockServers.get(2),
+            wireMockServers.get(1),
+            wireMockServers.get(0));
+        HttpClient httpClient = createHttpClient();
+
+        for (String affinityKey : AFFINITY_KEYS) {
+          sendAffinityRequests(httpClient, tomcatWrapper.getPort(), affinityKey);
+          int wireMockServerIndex = findWireMockServerIndex(wireMockServers, affinityKey, 1);
+
+          if (wireMockServerIndex != 2) {
+            Assertions.assertEquals(wireMockServerIndexes.get(affinityKey), wireMockServerIndex);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void metricsTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, "POST");
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory, createInitParameters(wireMockServer.port(), Map.of()));
+
+        HttpClient httpClient = createHttpClient();
+        httpClient.send(
+            createHttpRequest(tomcatWrapper.getPort(), "POST"), BodyHandlers.discarding());
+
+        HttpResponse<String> httpResponse =
+            httpClient.send(
+                HttpRequest.newBuilder(
+                        URI.create(
+                            "http://localhost:"
+                                + tomcatWrapper.getPort()
+                                + '/'
+                                + MetricsHttpServlet.METRICS_PATH))
+                    .timeout(TIMEOUT)
+                    .build(),
+                BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, httpResponse.statusCode());
+        Assertions.assertTrue(
+            httpResponse
+                .body()
+                .contains(
+                    "acrolinx_proxy_request_duration_seconds_count{method=\"POST\","
+                        + "route=\"/api/v1/checking/checks\"}"));
+        Assertions.assertTrue(
+            httpResponse
+                .body()
+                .contains("acrolinx_proxy_upstream_duration_seconds_bucket{method=\"POST\""));
+        Assertions.assertTrue(
+            httpResponse.body().contains("acrolinx_proxy_requests_in_flight 0\n"));
+        Assertions.assertTrue(
+            httpResponse.body().contains("acrolinx_proxy_upstream_requests_in_flight 0\n"));
+        Assertions.assertTrue(
+            httpResponse
+                .body()
+                .contains("acrolinx_proxy_upstream_responses_in_flight{version=\"http_1_1\"} 0\n"));
+        Assertions.assertTrue(
+            httpResponse.body().contains("acrolinx_proxy_buffer_pool_outstanding_buffers 0\n"));
+      }
+    }
+  }
+
+  @Test
+  void outlierEjectionTest(@TempDir Path tempDirectory) throws Exception {
+    int closedPort;
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      closedPort = serverSocket.getLocalPort();
+    }
+
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, "GET");
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        Map<String, String> initParameters =
+            createInitParameters(wireMockServer.port(), Map.of("outlierEjectionThreshold", "1"));
+        initParameters.put(
+            "acrolinxUrl",
+            "http://localhost:" + closedPort + ", http://localhost:" + wireMockServer.port());
+        tomcatWrapper.deployProxyServlet(tempDirectory, initParameters);
+
+        HttpClient httpClient = createHttpClient();
+
+        // the first request goes to the closed port, which ejects that node
+        Assertions.assertEquals(
+            502,
+            httpClient
+                .send(createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.discarding())
+                .statusCode());
+
+        for (int i = 0; i < 3; i++) {
+          Assertions.assertEquals(
+              200,
+              httpClient
+                  .send(
+                      createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.discarding())
+                  .statusCode());
+        }
+      }
+
+      wireMockServer.verify(3, WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING)));
+    }
+  }
+
+  @Test
+  void requestBodyLimitTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, "POST");
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(
+                wireMockServer.port(),
+                Map.of("maxRequestBodySize", Integer.toString(REQUEST_BODY.length() - 1))));
+
+        HttpResponse<String> httpResponse =
+            createHttpClient()
+                .send(createHttpRequest(tomcatWrapper.getPort(), "POST"), BodyHandlers.ofString());
+
+        Assertions.assertEquals(413, httpResponse.statusCode());
+      }
+
+      Assertions.assertEquals(0, wireMockServer.getAllServeEvents().size());
+    }
+  }
+
+  @Test
+  void revalidationTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(CHECK_URL_STRING))
+              .willReturn(
+                  WireMock.okJson(RESPONSE_BODY)
+                      .withHeader("Cache-Control", "no-cache")
+                      .withHeader("ETag", "\"v1\"")));
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(CHECK_URL_STRING))
+              .withHeader("If-None-Match", equalTo("\"v1\""))
+              .willReturn(WireMock.status(304).withHeader("ETag", "\"v1\"")));
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(wireMockServer.port(), Map.of("cacheMaxSize", "10000000")));
+
+        HttpClient httpClient = createHttpClient();
+
+        for (int i = 0; i < 2; i++) {
+          HttpResponse<String> httpResponse =
+              httpClient.send(
+                  createHttpRequest(tomcatWrapper.getPort(), "GET"), BodyHandlers.ofString());
+
+          Assertions.assertEquals(200, httpResponse.statusCode());
+          Assertions.assertEquals(RESPONSE_BODY, httpResponse.body());
+        }
+      }
+
+      wireMockServer.verify(
+          1,
+          WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING))
+              .withHeader("If-None-Match", equalTo("\"v1\"")));
+      wireMockServer.verify(2, WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING)));
+    }
+  }
+
+  @Test
+  void syncGetTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "SYNC"), "GET");
+  }
+
+  @Test
+  void syncClientDisconnectTest(@TempDir Path tempDirectory) throws Exception {
+    verifyClientDisconnect(tempDirectory, "SYNC");
+  }
+
+  @Test
+  void syncPostTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "SYNC"), "POST");
+  }
+
+  @Test
+  void timeoutPolicyTest(@TempDir Path tempDirectory) throws Exception {
+    try (WireMockServerWrapper wireMockServerWrapper =
+        WireMockServerWrapper.startOnRandomHttpPort()) {
+      final WireMockServer wireMockServer = wireMockServerWrapper.getWireMockServer();
+      stubWireMock(wireMockServer, "GET");
+      wireMockServer.stubFor(
+          WireMock.get(urlEqualTo(SLOW_URL_STRING))
+              .willReturn(WireMock.okJson(RESPONSE_BODY).withFixedDelay(2_000)));
+
+      try (TomcatWrapper tomcatWrapper = TomcatWrapper.startOnRandomHttpPort(tempDirectory)) {
+        tomcatWrapper.deployProxyServlet(
+            tempDirectory,
+            createInitParameters(
+                wireMockServer.port(),
+                Map.of(
+                    "timeoutPolicies",
+                    "checking",
+                    "timeoutPolicy.checking.pathPatterns",
+                    "/api/v1/checking/*",
+                    "timeoutPolicy.checking.timeoutDuration",
+                    "PT0.2S")));
+
+        HttpClient httpClient = createHttpClient();
+        HttpRequest slowHttpRequest =
+            HttpRequest.newBuilder(
+                    URI.create(
+                        "http://localhost:"
+                            + tomcatWrapper.getPort()
+                            + '/'
+                            + AcrolinxProxyHttpServlet.PROXY_PATH
+                            + SLOW_URL_STRING))
+                .timeout(TIMEOUT)
+                .build();
+
+        // the route gives up long before the Acrolinx node responds
+        Assertions.assertEquals(
+            502, httpClient.send(slowHttpRequest, BodyHandlers.discarding()).statusCode());
+
+        HttpRequest httpRequestWithDeadline =
+            HttpRequest.newBuilder(
+                    createHttpRequest(tomcatWrapper.getPort(), "GET"),
+                    (headerName, headerValue) -> true)
+                .header("X-Request-Timeout-Ms", "2000")
+                .build();
+        Assertions.assertEquals(
+            200, httpClient.send(httpRequestWithDeadline, BodyHandlers.discarding()).statusCode());
+      }
+
+      // the Acrolinx node learns how much time of the deadline of the client is left
+      wireMockServer.verify(
+          WireMock.getRequestedFor(urlEqualTo(CHECK_URL_STRING))
+              .withHeader("X-Request-Timeout-Ms", WireMock.matching("[0-9]{1,4}")));
+    }
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void virtualThreadClientDisconnectTest(@TempDir Path tempDirectory) throws Exception {
+    verifyClientDisconnect(tempDirectory, "VIRTUAL_THREAD");
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void virtualThreadGetTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "VIRTUAL_THREAD"), "GET");
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void virtualThreadPostTest(@TempDir Path tempDirectory) throws Exception {
+    verifyProxyServlet(tempDirectory, Map.of("executionMode", "VIRTUAL_THREAD"), "POST");
+  }
+}
@@ -0,0 +1,50 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+  private static RateLimiter createRateLimiter(int maxKeys) {
+    return new RateLimiter(1, 3, List.of(RateLimiter.KeySource.CLIENT), maxKeys);
+  }
+
+  @Test
+  void burstTest() {
+    RateLimiter rateLimiter = createRateLimiter(10);
+
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(0, rateLimiter.tryAcquire("client"));
+    }
+
+    long waitNanos = rateLimiter.tryAcquire("client");
+    Assertions.assertTrue(waitNanos > 0 && waitNanos <= Duration.ofSeconds(1).toNanos());
+  }
+
+  @Test
+  void keysAreLimitedSeparatelyTest() {
+    RateLimiter rateLimiter = createRateLimiter(10);
+
+    for (int i = 0; i < 3; i++) {
+      rateLimiter.tryAcquire("noisy");
+    }
+
+    Assertions.assertTrue(rateLimiter.tryAcquire("noisy") > 0);
+    Assertions.assertEquals(0, rateLimiter.tryAcquire("quiet"));
+  }
+
+  @Test
+  void newKeysShareOverflowBucketTest() {
+    RateLimiter rateLimiter = createRateLimiter(1);
+    Assertions.assertEquals(0, rateLimiter.tryAcquire("first"));
+
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(0, rateLimiter.tryAcquire("other" + i));
+    }
+
+    Assertions.assertTrue(rateLimiter.tryAcquire("another") > 0);
+    Assertions.assertEquals(0, rateLimiter.tryAcquire("first"));
+  }
+}
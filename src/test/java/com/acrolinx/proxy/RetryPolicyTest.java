@@ -0,0 +1,74 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+  private static RetryPolicy createRetryPolicy(double hedgePercentile, RetryBudget retryBudget) {
+    return new RetryPolicy(
+        2, Duration.ofMillis(50), Duration.ofMillis(120), hedgePercentile, retryBudget);
+  }
+
+  @Test
+  void backoffIsCappedTest() {
+    RetryPolicy retryPolicy = createRetryPolicy(0, new RetryBudget(0.1, 10));
+
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertTrue(retryPolicy.getBackoffNanos(0) <= Duration.ofMillis(50).toNanos());
+      Assertions.assertTrue(retryPolicy.getBackoffNanos(1) <= Duration.ofMillis(100).toNanos());
+      Assertions.assertTrue(retryPolicy.getBackoffNanos(63) <= Duration.ofMillis(120).toNanos());
+    }
+  }
+
+  @Test
+  void budgetLimitsRetriesTest() {
+    RetryPolicy retryPolicy = createRetryPolicy(0, new RetryBudget(0.5, 0));
+    Assertions.assertFalse(retryPolicy.tryAcquireRetry());
+
+    retryPolicy.requestSent();
+    retryPolicy.requestSent();
+
+    Assertions.assertTrue(retryPolicy.tryAcquireRetry());
+    Assertions.assertFalse(retryPolicy.tryAcquireRetry());
+  }
+
+  @Test
+  void hedgeDelayFollowsPercentileTest() {
+    RetryPolicy retryPolicy = createRetryPolicy(90, new RetryBudget(0.1, 10));
+
+    for (int i = 0; i < 900; i++) {
+      retryPolicy.responseReceived(Duration.ofMillis(20).toNanos());
+    }
+
+    for (int i = 0; i < 99; i++) {
+      retryPolicy.responseReceived(Duration.ofSeconds(2).toNanos());
+    }
+
+    // requests are not hedged until the first window is complete
+    Assertions.assertEquals(RetryPolicy.NO_HEDGING, retryPolicy.getHedgeDelayNanos());
+
+    retryPolicy.responseReceived(Duration.ofSeconds(2).toNanos());
+    Assertions.assertEquals(Duration.ofMillis(25).toNanos(), retryPolicy.getHedgeDelayNanos());
+  }
+
+  @Test
+  void onlyRefusedAndResetConnectionsAreRetriedTest() {
+    Assertions.assertTrue(RetryPolicy.isRetryableFailure(new ConnectException()));
+    Assertions.assertTrue(
+        RetryPolicy.isRetryableFailure(
+            new CompletionException(new IOException("Connection reset"))));
+    Assertions.assertTrue(RetryPolicy.isRetryableFailure(new SocketException("Connection reset")));
+    Assertions.assertFalse(
+        RetryPolicy.isRetryableFailure(new CompletionException(new IOException("reset"))));
+    Assertions.assertFalse(RetryPolicy.isRetryableFailure(new RequestBodyTooLargeException(1)));
+    Assertions.assertFalse(RetryPolicy.isRetryableFailure(new HttpTimeoutException("timed out")));
+    Assertions.assertFalse(RetryPolicy.isRetryableFailure(new IllegalStateException()));
+  }
+}
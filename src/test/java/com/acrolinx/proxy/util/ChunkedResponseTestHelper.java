@@ -2,6 +2,7 @@
 package com.acrolinx.proxy.util;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 
 import com.acrolinx.proxy.AcrolinxProxyHttpServlet;
 import jakarta.servlet.ServletConfig;
@@ -9,6 +10,7 @@ import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -68,6 +70,7 @@ public class ChunkedResponseTestHelper {
   private final ServletInputStream servletInputStream = Mockito.mock(ServletInputStream.class);
   private final ServletOutputStream servletOutputStream = Mockito.mock(ServletOutputStream.class);
   private final Thread thread;
+  private final ByteArrayOutputStream writtenBytes = new ByteArrayOutputStream();
 
   private ChunkedResponseTestHelper(Thread thread, String acrolinxUrlString) {
     this.thread = thread;
@@ -98,6 +101,7 @@ public class ChunkedResponseTestHelper {
 
   private void setupTestEnvironment() throws IOException {
     stubServletInputStream();
+    stubServletOutputStream();
 
     stubHttpServletRequest();
     stubHttpServletResponse();
@@ -109,6 +113,8 @@ public class ChunkedResponseTestHelper {
     Mockito.when(httpServletRequest.getInputStream()).thenReturn(servletInputStream);
     Mockito.when(httpServletRequest.getHeaderNames())
         .thenReturn(Collections.enumeration(List.of(ACROLINX_BASE_URL)));
+    Mockito.when(httpServletRequest.getHeaders(ACROLINX_BASE_URL))
+        .thenReturn(Collections.enumeration(List.of(acrolinxUrlString)));
     Mockito.when(httpServletRequest.getHeader(ACROLINX_BASE_URL)).thenReturn(acrolinxUrlString);
     Mockito.when(httpServletRequest.getRequestURL())
         .thenReturn(
@@ -125,11 +131,26 @@ public class ChunkedResponseTestHelper {
     Mockito.when(servletInputStream.read(any(byte[].class))).thenReturn(END_OF_INPUT_STREAM);
   }
 
+  private void stubServletOutputStream() throws IOException {
+    Mockito.doAnswer(
+            invocation -> {
+              byte[] bytes = invocation.getArgument(0);
+              int offset = invocation.getArgument(1);
+              int length = invocation.getArgument(2);
+              writtenBytes.write(bytes, offset, length);
+              return null;
+            })
+        .when(servletOutputStream)
+        .write(any(byte[].class), anyInt(), anyInt());
+  }
+
   private void verifyHttpServletRequest() {
     InOrder inOrder = Mockito.inOrder(httpServletRequest);
 
     inOrder.verify(httpServletRequest).getHeaderNames();
-    inOrder.verify(httpServletRequest, Mockito.times(2)).getHeader(ACROLINX_BASE_URL);
+    inOrder.verify(httpServletRequest).getHeaders("Connection");
+    inOrder.verify(httpServletRequest).getHeaders(ACROLINX_BASE_URL);
+    inOrder.verify(httpServletRequest).getHeader(ACROLINX_BASE_URL);
     inOrder.verify(httpServletRequest, Mockito.times(2)).getQueryString();
     inOrder.verify(httpServletRequest).getPathInfo();
 
@@ -140,7 +161,6 @@ public class ChunkedResponseTestHelper {
     final InOrder inOrder = Mockito.inOrder(httpServletResponse);
     inOrder.verify(httpServletResponse).setStatus(200);
     inOrder.verify(httpServletResponse).getOutputStream();
-    inOrder.verify(httpServletResponse).setContentLength(3);
 
     Mockito.verifyNoMoreInteractions(httpServletResponse);
   }
@@ -150,8 +170,12 @@ public class ChunkedResponseTestHelper {
   }
 
   private void verifyInteractionWithServletOutputStream() throws IOException {
-    Mockito.verify(servletOutputStream).write("ABC".getBytes(StandardCharsets.UTF_8));
+    Mockito.verify(servletOutputStream, Mockito.atLeastOnce())
+        .write(any(byte[].class), anyInt(), anyInt());
+    Mockito.verify(servletOutputStream, Mockito.atLeastOnce()).flush();
     Mockito.verify(servletOutputStream).close();
     Mockito.verifyNoMoreInteractions(servletOutputStream);
+
+    Assertions.assertEquals("ABC", writtenBytes.toString(StandardCharsets.UTF_8));
   }
 }
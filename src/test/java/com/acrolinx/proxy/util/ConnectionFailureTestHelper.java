@@ -69,9 +69,11 @@ public class ConnectionFailureTestHelper {
 
   private void verifyInteractionWithHttpServletRequest() throws IOException {
     Mockito.verify(httpServletRequest).getHeaderNames();
+    Mockito.verify(httpServletRequest).getHeaders("Connection");
     Mockito.verify(httpServletRequest).getHeader("X-Acrolinx-Base-Url");
     Mockito.verify(httpServletRequest).getRequestURL();
     Mockito.verify(httpServletRequest, Mockito.atMost(2)).getQueryString();
+    Mockito.verify(httpServletRequest, Mockito.atMostOnce()).getContentLengthLong();
     Mockito.verify(httpServletRequest, Mockito.atMostOnce()).getInputStream();
     Mockito.verify(httpServletRequest).getPathInfo();
     Mockito.verifyNoMoreInteractions(httpServletRequest);
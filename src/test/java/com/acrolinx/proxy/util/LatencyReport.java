@@ -0,0 +1,81 @@
+/* Copyright (c) 2026 Acrolinx GmbH */
+package com.acrolinx.proxy.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the latencies and failures of a load test per request type in HdrHistograms with
+ * microsecond resolution.
+ */
+public final class LatencyReport {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LatencyReport.class);
+  private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+
+  private static double toMilliseconds(long microseconds) {
+    return microseconds / MICROSECONDS_PER_MILLISECOND;
+  }
+
+  private final Map<String, LongAdder> failureCounters = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * @param intendedStartNanos the time at which the request should have been sent, so that a
+   *     saturated proxy cannot hide its queueing delay from the measurement
+   */
+  public void record(String requestType, long intendedStartNanos, boolean failed) {
+    long latencyNanos = System.nanoTime() - intendedStartNanos;
+    histograms
+        .computeIfAbsent(requestType, key -> new ConcurrentHistogram(3))
+        .recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(latencyNanos, 0)));
+
+    if (failed) {
+      failureCounters.computeIfAbsent(requestType, key -> new LongAdder()).increment();
+    }
+  }
+
+  /**
+   * Logs throughput and latency percentiles and writes the percentile distribution of each request
+   * type in milliseconds to an {@code .hgrm} file, which the HdrHistogram plotter can display.
+   */
+  public void report(String testName, double elapsedSeconds, Path reportDirectory)
+      throws IOException {
+    Files.createDirectories(reportDirectory);
+
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      String requestType = entry.getKey();
+      Histogram histogram = entry.getValue();
+      LongAdder failureCounter = failureCounters.get(requestType);
+
+      LOGGER.info(
+          "{} {}: {} requests ({} failed), {}/s, p50 {} ms, p99 {} ms, p999 {} ms, max {} ms",
+          testName,
+          requestType,
+          histogram.getTotalCount(),
+          failureCounter == null ? 0 : failureCounter.sum(),
+          String.format("%.1f", histogram.getTotalCount() / elapsedSeconds),
+          toMilliseconds(histogram.getValueAtPercentile(50)),
+          toMilliseconds(histogram.getValueAtPercentile(99)),
+          toMilliseconds(histogram.getValueAtPercentile(99.9)),
+          toMilliseconds(histogram.getMaxValue()));
+
+      Path reportFile = reportDirectory.resolve(testName + '-' + requestType + ".hgrm");
+
+      try (PrintStream printStream =
+          new PrintStream(Files.newOutputStream(reportFile), false, StandardCharsets.UTF_8)) {
+        histogram.outputPercentileDistribution(printStream, MICROSECONDS_PER_MILLISECOND);
+      }
+    }
+  }
+}
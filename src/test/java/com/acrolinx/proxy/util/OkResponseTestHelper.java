@@ -18,6 +18,7 @@ import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
@@ -70,7 +71,10 @@ public class OkResponseTestHelper {
   private static ResponseDefinitionBuilder createResponseDefinitionBuilder(
       boolean addContentTypeResponseHeader) {
     final ResponseDefinitionBuilder responseDefinitionBuilder =
-        new ResponseDefinitionBuilder().withStatus(RESPONSE_STATUS_CODE).withBody(RESPONSE_BODY);
+        new ResponseDefinitionBuilder()
+            .withStatus(RESPONSE_STATUS_CODE)
+            .withHeader("Content-Length", Integer.toString(RESPONSE_BODY.length))
+            .withBody(RESPONSE_BODY);
 
     if (addContentTypeResponseHeader) {
       responseDefinitionBuilder.withHeader("Content-Type", RESPONSE_CONTENT_TYPE);
@@ -88,6 +92,7 @@ public class OkResponseTestHelper {
   private final ServletInputStream servletInputStream = Mockito.mock(ServletInputStream.class);
   private final ServletOutputStream servletOutputStream = Mockito.mock(ServletOutputStream.class);
   private final WireMockServer wireMockServer;
+  private final ByteArrayOutputStream writtenBytes = new ByteArrayOutputStream();
 
   private OkResponseTestHelper(
       Optional<String> acrolinxBaseUrlHeaderValue,
@@ -129,6 +134,7 @@ public class OkResponseTestHelper {
     stubWireMock(createResponseDefinitionBuilder(addContentTypeResponseHeader));
 
     stubServletInputStream();
+    stubServletOutputStream();
     stubHttpServletRequest();
     stubHttpServletResponse();
 
@@ -139,6 +145,8 @@ public class OkResponseTestHelper {
     Mockito.when(httpServletRequest.getInputStream()).thenReturn(servletInputStream);
     Mockito.when(httpServletRequest.getHeaderNames())
         .thenReturn(Collections.enumeration(List.of(ACROLINX_BASE_URL)));
+    Mockito.when(httpServletRequest.getHeaders(ACROLINX_BASE_URL))
+        .thenReturn(Collections.enumeration(acrolinxBaseUrlHeaderValue.stream().toList()));
     Mockito.when(httpServletRequest.getHeader(ACROLINX_BASE_URL))
         .thenReturn(acrolinxBaseUrlHeaderValue.orElse(null));
     Mockito.when(httpServletRequest.getRequestURL())
@@ -157,6 +165,19 @@ public class OkResponseTestHelper {
         .thenReturn(END_OF_INPUT_STREAM);
   }
 
+  private void stubServletOutputStream() throws IOException {
+    Mockito.doAnswer(
+            invocation -> {
+              byte[] bytes = invocation.getArgument(0);
+              int offset = invocation.getArgument(1);
+              int length = invocation.getArgument(2);
+              writtenBytes.write(bytes, offset, length);
+              return null;
+            })
+        .when(servletOutputStream)
+        .write(any(byte[].class), anyInt(), anyInt());
+  }
+
   private void stubWireMock(ResponseDefinitionBuilder responseDefinitionBuilder) {
     wireMockServer.stubFor(
         WireMock.request(httpMethod.name(), urlEqualTo(CHECK_URL))
@@ -173,8 +194,8 @@ public class OkResponseTestHelper {
         .verify(httpServletResponse)
         .setHeader(ArgumentMatchers.eq("matched-stub-id"), ArgumentMatchers.anyString());
     inOrder.verify(httpServletResponse).setContentType(RESPONSE_CONTENT_TYPE);
+    inOrder.verify(httpServletResponse).setContentLengthLong(RESPONSE_BODY.length);
     inOrder.verify(httpServletResponse).getOutputStream();
-    inOrder.verify(httpServletResponse).setContentLength(RESPONSE_BODY.length);
 
     Mockito.verifyNoMoreInteractions(httpServletResponse);
   }
@@ -185,8 +206,8 @@ public class OkResponseTestHelper {
     inOrder
         .verify(httpServletResponse)
         .setHeader(ArgumentMatchers.eq("matched-stub-id"), ArgumentMatchers.anyString());
+    inOrder.verify(httpServletResponse).setContentLengthLong(RESPONSE_BODY.length);
     inOrder.verify(httpServletResponse).getOutputStream();
-    inOrder.verify(httpServletResponse).setContentLength(RESPONSE_BODY.length);
 
     Mockito.verifyNoMoreInteractions(httpServletResponse);
   }
@@ -212,9 +233,13 @@ public class OkResponseTestHelper {
   }
 
   private void verifyInteractionWithServletOutputStream() throws IOException {
-    Mockito.verify(servletOutputStream, Mockito.atMostOnce()).write(RESPONSE_BODY);
+    Mockito.verify(servletOutputStream, Mockito.atLeastOnce())
+        .write(any(byte[].class), anyInt(), anyInt());
+    Mockito.verify(servletOutputStream, Mockito.atLeastOnce()).flush();
     Mockito.verify(servletOutputStream).close();
     Mockito.verifyNoMoreInteractions(servletOutputStream);
+
+    Assertions.assertArrayEquals(RESPONSE_BODY, writtenBytes.toByteArray());
   }
 
   private void verifyInteractionWithWireMock() {
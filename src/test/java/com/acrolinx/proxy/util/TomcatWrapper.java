@@ -1,15 +1,34 @@
 /* Copyright (c) 2024 Acrolinx GmbH */
 package com.acrolinx.proxy.util;
 
+import com.acrolinx.proxy.AcrolinxProxyHttpServlet;
+import com.acrolinx.proxy.MetricsHttpServlet;
 import java.nio.file.Path;
+import java.util.Map;
+import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.connector.Connector;
 import org.apache.catalina.core.StandardHost;
 import org.apache.catalina.startup.Tomcat;
 
 public final class TomcatWrapper implements AutoCloseable {
+  private static final String METRICS_SERVLET_NAME = "MetricsHttpServlet";
+  private static final String PROXY_SERVLET_NAME = "AcrolinxProxyHttpServlet";
+
   public static TomcatWrapper startOnRandomHttpPort(Path tempDirectory) throws LifecycleException {
-    final Tomcat tomcat = createTomcat(tempDirectory);
+    final Tomcat tomcat = createTomcat(tempDirectory, createConnector());
+    tomcat.start();
+
+    return new TomcatWrapper(tomcat);
+  }
+
+  public static TomcatWrapper startOnRandomHttpPortWithMaxThreads(
+      Path tempDirectory, int maxThreads) throws LifecycleException {
+    final Connector connector = createConnector();
+    connector.setProperty("maxThreads", Integer.toString(maxThreads));
+
+    final Tomcat tomcat = createTomcat(tempDirectory, connector);
     tomcat.start();
 
     return new TomcatWrapper(tomcat);
@@ -28,11 +47,11 @@ public final class TomcatWrapper implements AutoCloseable {
     return standardHost;
   }
 
-  private static Tomcat createTomcat(Path tempDirectory) {
+  private static Tomcat createTomcat(Path tempDirectory, Connector connector) {
     Tomcat tomcat = new Tomcat();
 
     tomcat.setBaseDir(tempDirectory.toString());
-    tomcat.setConnector(createConnector());
+    tomcat.setConnector(connector);
     tomcat.setHost(createHost());
 
     return tomcat;
@@ -49,6 +68,29 @@ public final class TomcatWrapper implements AutoCloseable {
     tomcat.stop();
   }
 
+  /**
+   * Deploys the proxy servlet without a WAR file, so that each test can choose its own init
+   * parameters. The servlet and the metrics servlet are mapped to the same paths as in the web.xml.
+   */
+  public void deployProxyServlet(Path docBase, Map<String, String> initParameters) {
+    Context context = tomcat.addContext("", docBase.toString());
+
+    Wrapper wrapper =
+        Tomcat.addServlet(context, PROXY_SERVLET_NAME, new AcrolinxProxyHttpServlet());
+    initParameters.forEach(wrapper::addInitParameter);
+    wrapper.setAsyncSupported(true);
+
+    context.addServletMappingDecoded(
+        '/' + AcrolinxProxyHttpServlet.PROXY_PATH + "/*", PROXY_SERVLET_NAME);
+
+    Tomcat.addServlet(context, METRICS_SERVLET_NAME, new MetricsHttpServlet());
+    context.addServletMappingDecoded('/' + MetricsHttpServlet.METRICS_PATH, METRICS_SERVLET_NAME);
+  }
+
+  public int getPort() {
+    return tomcat.getConnector().getLocalPort();
+  }
+
   public Tomcat getTomcat() {
     return tomcat;
   }
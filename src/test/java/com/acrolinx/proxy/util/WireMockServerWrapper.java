@@ -15,6 +15,20 @@ public final class WireMockServerWrapper implements AutoCloseable {
     return createAndStart(createWireMockConfiguration().dynamicPort());
   }
 
+  /**
+   * Starts a server that serves delayed responses without blocking its request threads, so that
+   * many slow responses can be in flight at the same time.
+   */
+  public static WireMockServerWrapper startOnRandomHttpPortWithAsynchronousResponses(
+      int numberOfThreads) {
+    return createAndStart(
+        createWireMockConfiguration()
+            .dynamicPort()
+            .containerThreads(numberOfThreads)
+            .asynchronousResponseEnabled(true)
+            .asynchronousResponseThreads(numberOfThreads));
+  }
+
   public static WireMockServerWrapper startOnRandomHttpsPort() {
     return createAndStart(createWireMockConfiguration().dynamicHttpsPort().httpDisabled(true));
   }